@@ -0,0 +1,137 @@
+package me.lucaspickering.cli;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import me.lucaspickering.CalculatorInputs;
+import me.lucaspickering.HerbFarmCalculator;
+import me.lucaspickering.utils.HerbCalculatorResult;
+import me.lucaspickering.utils.HerbResult;
+import me.lucaspickering.utils.RunDistribution;
+
+/**
+ * Runs the calculator over a whole file of player profiles, without starting
+ * RuneLite. Profiles are read, calculated and written one at a time, so the
+ * input can be as large as you want.
+ * <p>
+ * Usage: `./gradlew cli -PcliArgs="profiles.csv prices.csv [output.csv]"`
+ * <p>
+ * The profiles file is a CSV with a header row. Recognised columns are `name`,
+ * `farmingLevel`, `farmingXp`, `magicLevel`, `patches` (semicolon-separated, e.g.
+ * `CATHERBY;FALADOR`), `compost`, `animaPlant`, `farmingCape`,
+ * `magicSecateurs`, `bottomlessBucket`, `resurrectCrops`, `kandarinDiary`
+ * (`NONE` through `ELITE`), `kourendEasy`, `kourendHard`, `faladorMedium`
+ * and `colosseumGlory`. The prices file is a CSV of `itemId,price`. Fields
+ * can't contain commas; there's no quoting.
+ * <p>
+ * Output is one CSV row per profile per herb, to the output file if given or
+ * stdout otherwise.
+ */
+public final class HerbFarmCalculatorCli {
+
+    private static final String OUTPUT_HEADER =
+            "profile,herb,expectedYield,expectedXp,profit,runLossChance,profitP5,profitP95";
+
+    private HerbFarmCalculatorCli() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: HerbFarmCalculatorCli <profiles.csv> <prices.csv> [output.csv]");
+            System.exit(2);
+        }
+        Path profilesPath = Paths.get(args[0]);
+        PriceFile prices = PriceFile.read(Paths.get(args[1]));
+
+        long start = System.nanoTime();
+        int profiles;
+        try (Writer writer = args.length == 3
+                ? Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            profiles = run(profilesPath, prices, writer);
+        }
+        System.err.printf("Calculated %d profiles in %d ms%n", profiles, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Calculate every profile in a file, writing results as we go
+     *
+     * @return Number of profiles calculated
+     */
+    private static int run(Path profilesPath, PriceFile prices, Writer writer) throws IOException {
+        // One calculator for everything, so consecutive profiles that share
+        // inputs (e.g. the same patches) reuse each other's work
+        HerbFarmCalculator calculator = new HerbFarmCalculator();
+        writer.write(OUTPUT_HEADER);
+        writer.write('\n');
+
+        int profiles = 0;
+        try (BufferedReader reader = Files.newBufferedReader(profilesPath, StandardCharsets.UTF_8)) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                return 0;
+            }
+            String[] header = headerLine.split(",", -1);
+
+            String line;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                Profile profile;
+                try {
+                    profile = new Profile(parseRow(header, line));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(String.format("%s:%d: %s", profilesPath, lineNumber, e.getMessage()), e);
+                }
+
+                CalculatorInputs inputs = CalculatorInputs.capture(profile, profile, prices);
+                writeResult(writer, profile, calculator.calculate(inputs));
+                profiles++;
+            }
+        }
+        return profiles;
+    }
+
+    private static Map<String, String> parseRow(String[] header, String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != header.length) {
+            throw new IllegalArgumentException(
+                    String.format("Expected %d fields but got %d", header.length, fields.length));
+        }
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            row.put(header[i].trim(), fields[i]);
+        }
+        return row;
+    }
+
+    private static void writeResult(Writer writer, Profile profile, HerbCalculatorResult result)
+            throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (HerbResult herb : result.getHerbs()) {
+            RunDistribution run = herb.getRunDistribution();
+            builder.setLength(0);
+            builder.append(profile.getName()).append(',')
+                    .append(herb.getHerb().name()).append(',')
+                    .append(String.format("%.3f", herb.getExpectedYield())).append(',')
+                    .append(String.format("%.1f", herb.getExpectedXp())).append(',')
+                    .append(String.format("%.0f", herb.getProfit())).append(',')
+                    .append(String.format("%.4f", run.getProbabilityOfLoss())).append(',')
+                    .append(String.format("%.0f", run.getProfitPercentile(0.05))).append(',')
+                    .append(String.format("%.0f", run.getProfitPercentile(0.95))).append('\n');
+            writer.write(builder.toString());
+        }
+    }
+}
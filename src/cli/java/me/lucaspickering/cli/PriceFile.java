@@ -0,0 +1,56 @@
+package me.lucaspickering.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import me.lucaspickering.PriceSource;
+
+/**
+ * Item prices loaded from a CSV file with the columns `itemId,price`. Items
+ * that aren't in the file are priced at 0, same as untradeable items in game.
+ */
+class PriceFile implements PriceSource {
+
+    private final Map<Integer, Integer> prices;
+
+    private PriceFile(Map<Integer, Integer> prices) {
+        this.prices = prices;
+    }
+
+    static PriceFile read(Path path) throws IOException {
+        Map<Integer, Integer> prices = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String[] fields = line.split(",");
+                // Skip blank lines and the header
+                if (line.trim().isEmpty() || (lineNumber == 1 && "itemId".equals(fields[0].trim()))) {
+                    continue;
+                }
+                if (fields.length != 2) {
+                    throw new IOException(String.format("%s:%d: expected itemId,price but got: %s", path,
+                            lineNumber, line));
+                }
+                try {
+                    prices.put(Integer.parseInt(fields[0].trim()), Integer.parseInt(fields[1].trim()));
+                } catch (NumberFormatException e) {
+                    throw new IOException(String.format("%s:%d: expected itemId,price but got: %s", path,
+                            lineNumber, line), e);
+                }
+            }
+        }
+        return new PriceFile(prices);
+    }
+
+    @Override
+    public int getItemPrice(int itemId) {
+        return this.prices.getOrDefault(itemId, 0);
+    }
+}
@@ -0,0 +1,195 @@
+package me.lucaspickering.cli;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import me.lucaspickering.HerbFarmCalculatorConfig;
+import me.lucaspickering.PlayerState;
+import me.lucaspickering.utils.AnimaPlant;
+import me.lucaspickering.utils.Compost;
+import me.lucaspickering.utils.HerbPatch;
+import net.runelite.api.Experience;
+import net.runelite.api.Varbits;
+
+/**
+ * A single player profile from a profiles file. This stands in for both the
+ * game client and the plugin config, since offline there's no difference.
+ * <p>
+ * Any column that's missing or blank falls back to the config default (or 0
+ * for stats/diaries).
+ */
+class Profile implements PlayerState, HerbFarmCalculatorConfig {
+
+    /**
+     * Kandarin diary tiers, in order
+     */
+    private static final String[] KANDARIN_TIERS = {"NONE", "EASY", "MEDIUM", "HARD", "ELITE"};
+
+    private final String name;
+    private final int farmingLevel;
+    private final int farmingXp;
+    private final int magicLevel;
+    private final Set<HerbPatch> patches;
+    private final Compost compost;
+    private final AnimaPlant animaPlant;
+    private final boolean useFarmingCape;
+    private final boolean useMagicSecateurs;
+    private final boolean useBottomlessBucket;
+    private final boolean useResurrectCrops;
+    /**
+     * Highest Kandarin diary tier completed, as an index into
+     * {@link #KANDARIN_TIERS}
+     */
+    private final int kandarinDiary;
+    private final boolean kourendEasy;
+    private final boolean kourendHard;
+    private final boolean faladorMedium;
+    private final int colosseumGlory;
+
+    /**
+     * @param row One row of the profiles file, keyed by column name
+     */
+    Profile(Map<String, String> row) {
+        this.name = get(row, "name", "");
+        this.farmingLevel = Integer.parseInt(get(row, "farmingLevel", "0"));
+        // Without an exact XP, assume the start of the level
+        this.farmingXp = Integer.parseInt(get(row, "farmingXp",
+                String.valueOf(this.farmingLevel > 0 ? Experience.getXpForLevel(this.farmingLevel) : 0)));
+        this.magicLevel = Integer.parseInt(get(row, "magicLevel", "0"));
+        this.patches = EnumSet.noneOf(HerbPatch.class);
+        for (String patch : get(row, "patches", "").split(";")) {
+            if (!patch.trim().isEmpty()) {
+                this.patches.add(HerbPatch.valueOf(patch.trim()));
+            }
+        }
+        this.compost = Compost.valueOf(get(row, "compost", Compost.NONE.name()));
+        this.animaPlant = AnimaPlant.valueOf(get(row, "animaPlant", AnimaPlant.NONE.name()));
+        this.useFarmingCape = Boolean.parseBoolean(get(row, "farmingCape", "false"));
+        this.useMagicSecateurs = Boolean.parseBoolean(get(row, "magicSecateurs", "false"));
+        this.useBottomlessBucket = Boolean.parseBoolean(get(row, "bottomlessBucket", "false"));
+        this.useResurrectCrops = Boolean.parseBoolean(get(row, "resurrectCrops", "false"));
+        this.kandarinDiary = parseKandarinTier(get(row, "kandarinDiary", "NONE"));
+        this.kourendEasy = Boolean.parseBoolean(get(row, "kourendEasy", "false"));
+        this.kourendHard = Boolean.parseBoolean(get(row, "kourendHard", "false"));
+        this.faladorMedium = Boolean.parseBoolean(get(row, "faladorMedium", "false"));
+        this.colosseumGlory = Integer.parseInt(get(row, "colosseumGlory", "0"));
+    }
+
+    String getName() {
+        return this.name;
+    }
+
+    @Override
+    public boolean isLoggedIn() {
+        // Treat every profile as a real player, so stats and diaries count
+        return true;
+    }
+
+    @Override
+    public int getFarmingLevel() {
+        return this.farmingLevel;
+    }
+
+    @Override
+    public int getFarmingXp() {
+        return this.farmingXp;
+    }
+
+    @Override
+    public int getMagicLevel() {
+        return this.magicLevel;
+    }
+
+    @Override
+    public int getVarbitValue(int varbit) {
+        switch (varbit) {
+            case Varbits.DIARY_KANDARIN_MEDIUM:
+                return this.hasKandarinTier("MEDIUM") ? 1 : 0;
+            case Varbits.DIARY_KANDARIN_HARD:
+                return this.hasKandarinTier("HARD") ? 1 : 0;
+            case Varbits.DIARY_KANDARIN_ELITE:
+                return this.hasKandarinTier("ELITE") ? 1 : 0;
+            case Varbits.DIARY_KOUREND_EASY:
+                return this.kourendEasy ? 1 : 0;
+            case Varbits.DIARY_KOUREND_HARD:
+                return this.kourendHard ? 1 : 0;
+            case Varbits.DIARY_FALADOR_MEDIUM:
+                return this.faladorMedium ? 1 : 0;
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    public int getVarpValue(int varp) {
+        return varp == HerbPatch.VARP_COLOSSEUM_GLORY ? this.colosseumGlory : 0;
+    }
+
+    @Override
+    public Set<HerbPatch> patches() {
+        return this.patches;
+    }
+
+    @Override
+    public void patches(Set<HerbPatch> patches) {
+        throw new UnsupportedOperationException("Profiles are read-only");
+    }
+
+    @Override
+    public boolean useFarmingCape() {
+        return this.useFarmingCape;
+    }
+
+    @Override
+    public boolean useMagicSecateurs() {
+        return this.useMagicSecateurs;
+    }
+
+    @Override
+    public boolean useBottomlessBucket() {
+        return this.useBottomlessBucket;
+    }
+
+    @Override
+    public boolean useResurrectCrops() {
+        return this.useResurrectCrops;
+    }
+
+    @Override
+    public Compost compost() {
+        return this.compost;
+    }
+
+    @Override
+    public AnimaPlant animaPlant() {
+        return this.animaPlant;
+    }
+
+    /**
+     * Has the player completed the given Kandarin diary tier (or higher)?
+     */
+    private boolean hasKandarinTier(String tier) {
+        return this.kandarinDiary >= parseKandarinTier(tier);
+    }
+
+    /**
+     * Parse a Kandarin diary tier up front, so a typo is reported along with
+     * the line it's on
+     *
+     * @return Index of the tier in {@link #KANDARIN_TIERS}
+     */
+    private static int parseKandarinTier(String tier) {
+        for (int i = 0; i < KANDARIN_TIERS.length; i++) {
+            if (KANDARIN_TIERS[i].equals(tier)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown Kandarin diary tier: %s", tier));
+    }
+
+    private static String get(Map<String, String> row, String column, String defaultValue) {
+        String value = row.get(column);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+}
@@ -0,0 +1,193 @@
+package me.lucaspickering;
+
+import java.lang.reflect.Proxy;
+import java.util.EnumSet;
+import java.util.Set;
+
+import me.lucaspickering.utils.AnimaPlant;
+import me.lucaspickering.utils.Compost;
+import me.lucaspickering.utils.HerbPatch;
+import me.lucaspickering.utils.SortingCriteria;
+import net.runelite.api.Client;
+import net.runelite.api.Experience;
+import net.runelite.client.game.ItemManager;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stand-ins for the RuneLite objects the calculator needs, so it can be run
+ * outside the client. These describe a maxed-out player with every diary
+ * done, farming every patch with every buff.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * A client where every skill is 99, every varbit is 1 and every varp is
+     * big enough to pass any check the calculator makes
+     */
+    static Client client() {
+        return (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class<?>[]{Client.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getRealSkillLevel":
+                            return 99;
+                        case "getVarbitValue":
+                            return 1;
+                        case "getVarpValue":
+                            return 20000;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    /**
+     * An item manager that prices every item at a fixed amount derived from
+     * its ID. ItemManager is a concrete class with injected dependencies, so
+     * we stub it rather than construct it.
+     */
+    static ItemManager itemManager() {
+        ItemManager itemManager = mock(ItemManager.class);
+        when(itemManager.getItemPrice(anyInt())).thenAnswer(invocation -> {
+            int itemId = invocation.getArgument(0);
+            return 100 + (itemId % 1000) * 10;
+        });
+        return itemManager;
+    }
+
+    /**
+     * A config using every patch and every buff
+     */
+    static HerbFarmCalculatorConfig config() {
+        return new HerbFarmCalculatorConfig() {
+            @Override
+            public Set<HerbPatch> patches() {
+                return EnumSet.allOf(HerbPatch.class);
+            }
+
+            @Override
+            public void patches(Set<HerbPatch> patches) {
+            }
+
+            @Override
+            public boolean useFarmingCape() {
+                return true;
+            }
+
+            @Override
+            public boolean useMagicSecateurs() {
+                return true;
+            }
+
+            @Override
+            public boolean useBottomlessBucket() {
+                return true;
+            }
+
+            @Override
+            public boolean useResurrectCrops() {
+                return true;
+            }
+
+            @Override
+            public Compost compost() {
+                return Compost.ULTRACOMPOST;
+            }
+
+            @Override
+            public AnimaPlant animaPlant() {
+                return AnimaPlant.ATTAS;
+            }
+
+            @Override
+            public SortingCriteria criteria() {
+                return SortingCriteria.Profit;
+            }
+
+            @Override
+            public boolean descending() {
+                return true;
+            }
+
+            @Override
+            public int targetLevel() {
+                return Experience.MAX_REAL_LEVEL;
+            }
+        };
+    }
+
+    /**
+     * A player who has only just unlocked herbs, with everything else the
+     * same as {@link #client()}. Used to project all the way to 99.
+     */
+    static PlayerState newPlayer() {
+        return new PlayerState() {
+            @Override
+            public boolean isLoggedIn() {
+                return true;
+            }
+
+            @Override
+            public int getFarmingLevel() {
+                return 9;
+            }
+
+            @Override
+            public int getFarmingXp() {
+                return Experience.getXpForLevel(9);
+            }
+
+            @Override
+            public int getMagicLevel() {
+                return 99;
+            }
+
+            @Override
+            public int getVarbitValue(int varbit) {
+                return 1;
+            }
+
+            @Override
+            public int getVarpValue(int varp) {
+                return 20000;
+            }
+        };
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == float.class) {
+            return 0.0f;
+        }
+        if (type == double.class) {
+            return 0.0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,187 @@
+package me.lucaspickering;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import me.lucaspickering.utils.Herb;
+import me.lucaspickering.utils.HerbCalculatorResult;
+import me.lucaspickering.utils.HerbPatch;
+import me.lucaspickering.utils.HerbPatchBuffs;
+import me.lucaspickering.utils.HerbPatchResult;
+import me.lucaspickering.utils.HerbProjection;
+import me.lucaspickering.utils.HerbResult;
+import me.lucaspickering.utils.LoadoutResult;
+import me.lucaspickering.utils.PatchAssignment;
+import me.lucaspickering.utils.PatchModel;
+import me.lucaspickering.utils.PriceSnapshot;
+import me.lucaspickering.utils.SortingCriteria;
+import me.lucaspickering.utils.SurvivalChance;
+import me.lucaspickering.utils.YieldDistribution;
+import net.runelite.api.Client;
+import net.runelite.client.game.ItemManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for the calculator's hot paths, with every herb and every patch
+ * selected. Run with the GC profiler (the default for `./gradlew jmh`) to get
+ * allocation rates alongside timings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HerbFarmCalculatorBenchmark {
+
+    private Client client;
+    private HerbFarmCalculatorConfig config;
+    private ItemManager itemManager;
+    private CalculatorInputs inputs;
+    private HerbFarmCalculator calculator;
+    private LoadoutSweep loadoutSweep;
+    private HerbPatchOptimizer optimizer;
+    private LevelProjection levelProjection;
+    /**
+     * Inputs for a level 9 player, to project every level up to 99
+     */
+    private CalculatorInputs newPlayerInputs;
+    private HerbCalculatorResult result;
+    private List<HerbPatchBuffs> patches;
+    private List<PatchModel> models;
+    /**
+     * Per-patch results for each herb, used to benchmark aggregation+sorting
+     * in isolation from the math
+     */
+    private List<List<HerbPatchResult>> patchResults;
+    private Comparator<HerbResult> comparator;
+
+    @Setup
+    public void setUp() {
+        this.client = BenchmarkFixtures.client();
+        this.config = BenchmarkFixtures.config();
+        this.itemManager = BenchmarkFixtures.itemManager();
+        this.inputs = CalculatorInputs.capture(new ClientPlayerState(this.client), this.config,
+                this.itemManager::getItemPrice);
+        this.calculator = new HerbFarmCalculator();
+        this.loadoutSweep = new LoadoutSweep(this.calculator);
+        this.optimizer = new HerbPatchOptimizer();
+        this.levelProjection = new LevelProjection(this.calculator);
+        this.newPlayerInputs = CalculatorInputs.capture(BenchmarkFixtures.newPlayer(), this.config,
+                this.itemManager::getItemPrice);
+        this.result = this.calculator.calculate(this.inputs);
+        this.patches = this.calculator.calcPatchBuffs(this.inputs);
+        this.models = new ArrayList<>();
+        for (Herb herb : Herb.values()) {
+            for (HerbPatchBuffs patch : this.patches) {
+                this.models.add(this.calculator.buildPatchModel(this.inputs, herb, patch));
+            }
+        }
+
+        this.patchResults = new ArrayList<>();
+        for (Herb herb : Herb.values()) {
+            List<HerbPatchResult> results = new ArrayList<>();
+            for (HerbPatch patch : HerbPatch.values()) {
+                double seed = herb.ordinal() * 31 + patch.ordinal();
+                results.add(new HerbPatchResult(herb, patch, 0.9, 8.0 + seed / 100.0, 300.0 + seed,
+                        5000.0 + seed, 20000.0 - seed, null, 0.1));
+            }
+            this.patchResults.add(results);
+        }
+        this.comparator = SortingCriteria.Profit.getComparator().reversed();
+    }
+
+    @Benchmark
+    public CalculatorInputs captureInputs() {
+        return CalculatorInputs.capture(new ClientPlayerState(this.client), this.config,
+                this.itemManager::getItemPrice);
+    }
+
+    @Benchmark
+    public HerbCalculatorResult calculate() {
+        // Use a fresh calculator every time, so we measure the full
+        // calculation instead of the cached results
+        return new HerbFarmCalculator().calculate(this.inputs);
+    }
+
+    @Benchmark
+    public HerbCalculatorResult calculateCached() {
+        return this.calculator.calculate(this.inputs);
+    }
+
+    @Benchmark
+    public Map<SortingCriteria, LoadoutResult> sweepLoadouts() {
+        return this.loadoutSweep.sweep(this.inputs);
+    }
+
+    @Benchmark
+    public PatchAssignment optimizePatches() {
+        return this.optimizer.optimize(this.inputs, this.result);
+    }
+
+    @Benchmark
+    public List<HerbProjection> projectToMaxLevel() {
+        return this.levelProjection.project(this.newPlayerInputs);
+    }
+
+    @Benchmark
+    public PriceSnapshot fetchPrices() {
+        return PriceSnapshot.fetch(this.itemManager::getItemPrice);
+    }
+
+    @Benchmark
+    public void calcChanceToSave(Blackhole blackhole) {
+        for (Herb herb : Herb.values()) {
+            for (HerbPatchBuffs patch : this.patches) {
+                blackhole.consume(this.calculator.calcChanceToSave(this.inputs, herb, patch));
+            }
+        }
+    }
+
+    @Benchmark
+    public void calcSurvivalChance(Blackhole blackhole) {
+        for (PatchModel model : this.models) {
+            SurvivalChance survivalChance = this.calculator.calcSurvivalChance(model);
+            blackhole.consume(survivalChance);
+        }
+    }
+
+    @Benchmark
+    public void yieldDistributions(Blackhole blackhole) {
+        for (PatchModel model : this.models) {
+            blackhole.consume(YieldDistribution.forPatch(model, 0.9));
+        }
+    }
+
+    @Benchmark
+    public List<HerbResult> aggregateAndSort() {
+        return this.patchResults.stream()
+                .map(results -> new HerbResult(results.get(0).getHerb(), results))
+                .sorted(this.comparator)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public void renderAggregates(Blackhole blackhole) {
+        // Roughly what the panel reads for each herb after sorting
+        for (HerbResult result : this.aggregateAndSort()) {
+            blackhole.consume(result.getProfit());
+            blackhole.consume(result.getExpectedYield());
+            blackhole.consume(result.getExpectedXp());
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package me.lucaspickering;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import lombok.Getter;
+import me.lucaspickering.utils.AnimaPlant;
+import me.lucaspickering.utils.Compost;
+import me.lucaspickering.utils.HerbPatch;
+import me.lucaspickering.utils.Loadout;
+import me.lucaspickering.utils.OptimizerObjective;
+import me.lucaspickering.utils.PriceSnapshot;
+import me.lucaspickering.utils.SortingCriteria;
+import net.runelite.api.Varbits;
+
+/**
+ * An immutable snapshot of everything the calculator reads from the game and
+ * the config. Capturing this is the only part of a calculation that has to
+ * happen on the client thread; the calculator itself can then run anywhere.
+ * Nothing here depends on the client itself, so the calculator can also be run
+ * outside RuneLite with any {@link PlayerState} and {@link PriceSource}.
+ * <p>
+ * Config values are exposed under the same names as in
+ * {@link HerbFarmCalculatorConfig}.
+ */
+public class CalculatorInputs {
+
+    /**
+     * Every varbit the calculator reads
+     */
+    static final int[] VARBITS = {
+            Varbits.DIARY_KANDARIN_MEDIUM,
+            Varbits.DIARY_KANDARIN_HARD,
+            Varbits.DIARY_KANDARIN_ELITE,
+            Varbits.DIARY_KOUREND_EASY,
+            Varbits.DIARY_KOUREND_HARD,
+            Varbits.DIARY_FALADOR_MEDIUM,
+    };
+    /**
+     * Every varp the calculator reads
+     */
+    static final int[] VARPS = {
+            HerbPatch.VARP_COLOSSEUM_GLORY,
+    };
+    /**
+     * {@link #VARBITS} and {@link #VARPS} as bitsets, so the plugin can throw
+     * away the vast majority of var changes with a single bit test
+     */
+    private static final BitSet VARBIT_SET = toBitSet(VARBITS);
+    private static final BitSet VARP_SET = toBitSet(VARPS);
+
+    @Getter
+    private final boolean loggedIn;
+    /**
+     * Player's farming level, or 0 if not logged in
+     */
+    @Getter
+    private final int farmingLevel;
+    /**
+     * Player's total farming XP, or 0 if not logged in
+     */
+    @Getter
+    private final int farmingXp;
+    @Getter
+    private final int magicLevel;
+    /**
+     * Values of {@link #VARBITS}, in the same order
+     */
+    private final int[] varbitValues;
+    /**
+     * Values of {@link #VARPS}, in the same order
+     */
+    private final int[] varpValues;
+    @Getter
+    private final PriceSnapshot prices;
+
+    private final Set<HerbPatch> patches;
+    private final Compost compost;
+    private final AnimaPlant animaPlant;
+    private final boolean useFarmingCape;
+    private final boolean useMagicSecateurs;
+    private final boolean useBottomlessBucket;
+    private final boolean useResurrectCrops;
+    private final SortingCriteria criteria;
+    private final boolean descending;
+    private final boolean showBestLoadouts;
+    private final boolean optimizePatches;
+    private final OptimizerObjective optimizerObjective;
+    private final int gpPerXp;
+    private final int seedBudget;
+    private final int targetLevel;
+    private final boolean simulate;
+    private final double simulationPrecision;
+
+    private CalculatorInputs(boolean loggedIn, int farmingLevel, int farmingXp, int magicLevel, int[] varbitValues,
+            int[] varpValues, PriceSnapshot prices, HerbFarmCalculatorConfig config) {
+        this.loggedIn = loggedIn;
+        this.farmingLevel = farmingLevel;
+        this.farmingXp = farmingXp;
+        this.magicLevel = magicLevel;
+        this.varbitValues = varbitValues;
+        this.varpValues = varpValues;
+        this.prices = prices;
+
+        Set<HerbPatch> patches = config.patches();
+        this.patches = Collections.unmodifiableSet(
+                patches.isEmpty() ? EnumSet.noneOf(HerbPatch.class) : EnumSet.copyOf(patches));
+        this.compost = config.compost();
+        this.animaPlant = config.animaPlant();
+        this.useFarmingCape = config.useFarmingCape();
+        this.useMagicSecateurs = config.useMagicSecateurs();
+        this.useBottomlessBucket = config.useBottomlessBucket();
+        this.useResurrectCrops = config.useResurrectCrops();
+        this.criteria = config.criteria();
+        this.descending = config.descending();
+        this.showBestLoadouts = config.showBestLoadouts();
+        this.optimizePatches = config.optimizePatches();
+        this.optimizerObjective = config.optimizerObjective();
+        this.gpPerXp = config.gpPerXp();
+        this.seedBudget = config.seedBudget();
+        this.targetLevel = config.targetLevel();
+        this.simulate = config.simulate();
+        this.simulationPrecision = config.simulationPrecision();
+    }
+
+    /**
+     * Copy another snapshot, with the farming level and/or all the loadout
+     * options swapped out
+     *
+     * @param loadout New loadout, or null to keep the other snapshot's
+     */
+    private CalculatorInputs(CalculatorInputs other, int farmingLevel, Loadout loadout) {
+        this.loggedIn = other.loggedIn;
+        this.farmingLevel = farmingLevel;
+        this.farmingXp = other.farmingXp;
+        this.magicLevel = other.magicLevel;
+        this.varbitValues = other.varbitValues;
+        this.varpValues = other.varpValues;
+        this.prices = other.prices;
+
+        this.patches = other.patches;
+        this.compost = loadout == null ? other.compost : loadout.getCompost();
+        this.animaPlant = loadout == null ? other.animaPlant : loadout.getAnimaPlant();
+        this.useFarmingCape = loadout == null ? other.useFarmingCape : loadout.isUseFarmingCape();
+        this.useMagicSecateurs = loadout == null ? other.useMagicSecateurs : loadout.isUseMagicSecateurs();
+        this.useBottomlessBucket = loadout == null ? other.useBottomlessBucket : loadout.isUseBottomlessBucket();
+        this.useResurrectCrops = loadout == null ? other.useResurrectCrops : loadout.isUseResurrectCrops();
+        this.criteria = other.criteria;
+        this.descending = other.descending;
+        this.showBestLoadouts = other.showBestLoadouts;
+        this.optimizePatches = other.optimizePatches;
+        this.optimizerObjective = other.optimizerObjective;
+        this.gpPerXp = other.gpPerXp;
+        this.seedBudget = other.seedBudget;
+        this.targetLevel = other.targetLevel;
+        this.simulate = other.simulate;
+        this.simulationPrecision = other.simulationPrecision;
+    }
+
+    /**
+     * Capture the current player state, prices and config. Everything is
+     * copied, so the sources can change freely afterwards. In game, this must
+     * be called on the client thread.
+     */
+    public static CalculatorInputs capture(PlayerState player, HerbFarmCalculatorConfig config,
+            PriceSource priceSource) {
+        return capture(player, config, PriceSnapshot.fetch(priceSource));
+    }
+
+    /**
+     * Capture the current player state and config, with prices that were
+     * already fetched
+     */
+    public static CalculatorInputs capture(PlayerState player, HerbFarmCalculatorConfig config,
+            PriceSnapshot prices) {
+        int[] varbitValues = new int[VARBITS.length];
+        for (int i = 0; i < VARBITS.length; i++) {
+            varbitValues[i] = player.getVarbitValue(VARBITS[i]);
+        }
+        int[] varpValues = new int[VARPS.length];
+        for (int i = 0; i < VARPS.length; i++) {
+            varpValues[i] = player.getVarpValue(VARPS[i]);
+        }
+        return new CalculatorInputs(
+                player.isLoggedIn(),
+                player.getFarmingLevel(),
+                player.getFarmingXp(),
+                player.getMagicLevel(),
+                varbitValues,
+                varpValues,
+                prices,
+                config);
+    }
+
+    /**
+     * Get a copy of these inputs, as if the player had configured a different
+     * loadout. Game state and prices are shared with this snapshot.
+     */
+    public CalculatorInputs withLoadout(Loadout loadout) {
+        return new CalculatorInputs(this, this.farmingLevel, loadout);
+    }
+
+    /**
+     * Get a copy of these inputs, as if the player had a different farming
+     * level. Everything else is shared with this snapshot.
+     */
+    public CalculatorInputs withFarmingLevel(int farmingLevel) {
+        return new CalculatorInputs(this, farmingLevel, null);
+    }
+
+    /**
+     * Get a key made of every input that affects the calculator's results
+     */
+    InputFingerprint fingerprint() {
+        return new InputFingerprint(this, this.varbitValues, this.varpValues);
+    }
+
+    /**
+     * Check whether the calculator reads a varbit, i.e. whether a change to
+     * it could change the results
+     */
+    static boolean readsVarbit(int varbit) {
+        // Varp-only changes have a varbit ID of -1
+        return varbit >= 0 && VARBIT_SET.get(varbit);
+    }
+
+    /**
+     * Check whether the calculator reads a varp
+     */
+    static boolean readsVarp(int varp) {
+        return varp >= 0 && VARP_SET.get(varp);
+    }
+
+    private static BitSet toBitSet(int[] ids) {
+        BitSet set = new BitSet();
+        for (int id : ids) {
+            set.set(id);
+        }
+        return set;
+    }
+
+    /**
+     * Get the captured value of a varbit. Only varbits in {@link #VARBITS}
+     * are captured.
+     */
+    public int getVarbitValue(int varbit) {
+        return lookup(VARBITS, this.varbitValues, varbit, "varbit");
+    }
+
+    /**
+     * Get the captured value of a varp. Only varps in {@link #VARPS} are
+     * captured.
+     */
+    public int getVarpValue(int varp) {
+        return lookup(VARPS, this.varpValues, varp, "varp");
+    }
+
+    public Set<HerbPatch> patches() {
+        return this.patches;
+    }
+
+    public Compost compost() {
+        return this.compost;
+    }
+
+    public AnimaPlant animaPlant() {
+        return this.animaPlant;
+    }
+
+    public boolean useFarmingCape() {
+        return this.useFarmingCape;
+    }
+
+    public boolean useMagicSecateurs() {
+        return this.useMagicSecateurs;
+    }
+
+    public boolean useBottomlessBucket() {
+        return this.useBottomlessBucket;
+    }
+
+    public boolean useResurrectCrops() {
+        return this.useResurrectCrops;
+    }
+
+    public SortingCriteria criteria() {
+        return this.criteria;
+    }
+
+    public boolean descending() {
+        return this.descending;
+    }
+
+    public boolean showBestLoadouts() {
+        return this.showBestLoadouts;
+    }
+
+    public boolean optimizePatches() {
+        return this.optimizePatches;
+    }
+
+    public OptimizerObjective optimizerObjective() {
+        return this.optimizerObjective;
+    }
+
+    public int gpPerXp() {
+        return this.gpPerXp;
+    }
+
+    public int seedBudget() {
+        return this.seedBudget;
+    }
+
+    public int targetLevel() {
+        return this.targetLevel;
+    }
+
+    public boolean simulate() {
+        return this.simulate;
+    }
+
+    public double simulationPrecision() {
+        return this.simulationPrecision;
+    }
+
+    private static int lookup(int[] ids, int[] values, int id, String kind) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return values[i];
+            }
+        }
+        throw new IllegalArgumentException(String.format("%s %d was not captured", kind, id));
+    }
+}
@@ -0,0 +1,48 @@
+package me.lucaspickering;
+
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.Skill;
+
+/**
+ * Player state read straight from the game client. Every call goes to the
+ * client, so this must only be used on the client thread.
+ */
+class ClientPlayerState implements PlayerState {
+
+    private final Client client;
+
+    ClientPlayerState(Client client) {
+        this.client = client;
+    }
+
+    @Override
+    public boolean isLoggedIn() {
+        return this.client.getGameState() == GameState.LOGGED_IN;
+    }
+
+    @Override
+    public int getFarmingLevel() {
+        return this.client.getRealSkillLevel(Skill.FARMING);
+    }
+
+    @Override
+    public int getFarmingXp() {
+        return this.client.getSkillExperience(Skill.FARMING);
+    }
+
+    @Override
+    public int getMagicLevel() {
+        return this.client.getRealSkillLevel(Skill.MAGIC);
+    }
+
+    @Override
+    public int getVarbitValue(int varbit) {
+        return this.client.getVarbitValue(varbit);
+    }
+
+    @Override
+    public int getVarpValue(int varp) {
+        return this.client.getVarpValue(varp);
+    }
+}
@@ -1,117 +1,418 @@
 package me.lucaspickering;
 
 import lombok.extern.slf4j.Slf4j;
+import me.lucaspickering.utils.AnimaPlant;
+import me.lucaspickering.utils.ChanceToSaveTable;
+import me.lucaspickering.utils.Compost;
+import me.lucaspickering.utils.GrowthModel;
 import me.lucaspickering.utils.Herb;
 import me.lucaspickering.utils.HerbCalculatorResult;
 import me.lucaspickering.utils.HerbPatchResult;
+import me.lucaspickering.simulation.HerbFarmSimulator;
 import me.lucaspickering.utils.HerbResult;
+import me.lucaspickering.utils.PatchModel;
+import me.lucaspickering.utils.PriceSnapshot;
+import me.lucaspickering.utils.RunDistribution;
 import me.lucaspickering.utils.SurvivalChance;
+import me.lucaspickering.utils.TrackedInputs;
+import me.lucaspickering.utils.YieldDistribution;
 import me.lucaspickering.utils.Utils;
 import me.lucaspickering.utils.HerbPatch;
 import me.lucaspickering.utils.HerbPatchBuffs;
 import me.lucaspickering.utils.SortingCriteria;
-import net.runelite.api.Client;
-import net.runelite.api.ItemID;
-import net.runelite.api.Skill;
 import net.runelite.api.Varbits;
-import net.runelite.client.game.ItemManager;
-import net.runelite.client.plugins.skillcalculator.skills.MagicAction;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class HerbFarmCalculator {
 
-    private final Client client;
-    private final HerbFarmCalculatorConfig config;
-    private final ItemManager itemManager;
+    /**
+     * Survival chance for all disease-free patches
+     */
+    private static final SurvivalChance DISEASE_FREE_SURVIVAL = new SurvivalChance(1.0, 0.0);
+    /**
+     * Magic level required to cast Resurrect Crops
+     */
+    private static final int RESURRECT_CROPS_LEVEL = 78;
+    /**
+     * Number of recent results to keep. This only needs to cover flipping
+     * back and forth between a few configs.
+     */
+    private static final int RESULT_CACHE_SIZE = 16;
 
-    public HerbFarmCalculator(Client client, HerbFarmCalculatorConfig config, ItemManager itemManager) {
-        this.client = client;
-        this.config = config;
-        this.itemManager = itemManager;
-    }
+    /**
+     * Recent results, least recently used first
+     */
+    private final Map<InputFingerprint, HerbCalculatorResult> resultCache =
+            new LinkedHashMap<InputFingerprint, HerbCalculatorResult>(RESULT_CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<InputFingerprint, HerbCalculatorResult> eldest) {
+                    return this.size() > RESULT_CACHE_SIZE;
+                }
+            };
 
+    // ===== Intermediate values from the previous calculation =====
+    // Each of these is reused until one of the inputs it was derived from
+    // changes, so a refresh only redoes the math that's actually affected.
+    /**
+     * Patches from the previous calculation, or null before the first one.
+     * Starting at null (rather than empty) makes sure the first calculation
+     * always allocates {@link #patchResults}, even with no patches selected.
+     */
+    private List<HerbPatchBuffs> patches = null;
+    /**
+     * Inputs to the yield math: chance to save, harvest lives, and XP
+     */
+    private final TrackedInputs yieldInputs = new TrackedInputs();
+    /**
+     * Inputs to disease and resurrection math. Only applies to patches that
+     * aren't disease-free.
+     */
+    private final TrackedInputs survivalInputs = new TrackedInputs();
+    private SurvivalChance survivalChance;
     /**
-     * Run the calculator for every herb and return all the results in a nice list.
+     * Inputs that only affect cost and revenue
+     */
+    private final TrackedInputs costInputs = new TrackedInputs();
+    /**
+     * Results for every herb+patch, indexed by [herb ordinal][index in
+     * {@link #patches}]
+     */
+    private HerbPatchResult[][] patchResults;
+    /**
+     * Whole-run distribution for each herb, indexed by herb ordinal
+     */
+    private final RunDistribution[] runDistributions = new RunDistribution[Herb.values().length];
+
+    /**
+     * Run the calculator for every herb and return all the results in a nice
+     * list. The last few results are cached by their inputs, so repeating a
+     * recent calculation is free. Otherwise, intermediate values are kept
+     * between calls, and only the ones whose inputs changed since the last
+     * call are recalculated.
+     * <p>
+     * This doesn't touch the client, so it can (and should) be run off the
+     * client thread.
      *
+     * @param inputs Snapshot of the player's state and config
      * @return The results, in a nice list
      */
-    public HerbCalculatorResult calculate() {
+    public synchronized HerbCalculatorResult calculate(CalculatorInputs inputs) {
+        InputFingerprint fingerprint = inputs.fingerprint();
+        HerbCalculatorResult cached = this.resultCache.get(fingerprint);
+        if (cached != null) {
+            log.debug("Using cached herb calculator result");
+            return cached;
+        }
         log.debug("Running herb calculator");
 
-        // For each patch, figure out its patch-specific buffs. We do this up
-        // front so we can render the buffs to the user clearly, separate from
-        // the herb outputs
-        List<HerbPatchBuffs> patches = this.config.patches().stream()
-                .map(patch -> new HerbPatchBuffs(patch, patch.isDiseaseFree(this.client),
-                        this.getDiaryChanceToSaveBonus(patch), this.getXpBonus(patch)))
+        int farmingLevel = inputs.getFarmingLevel();
+        Compost compost = inputs.compost();
+        AnimaPlant animaPlant = inputs.animaPlant();
+        boolean useResurrectCrops = inputs.useResurrectCrops();
+        double resurrectionChance = useResurrectCrops ? this.getResurrectionChance(inputs) : 0.0;
+
+        // Figure out which intermediate values are out of date
+        List<HerbPatchBuffs> patches = this.calcPatchBuffs(inputs);
+        boolean patchesDirty = !patches.equals(this.patches);
+        boolean yieldDirty = this.yieldInputs.update(farmingLevel, compost, animaPlant,
+                inputs.useMagicSecateurs(), inputs.useFarmingCape());
+        boolean survivalDirty = this.survivalInputs.update(compost, animaPlant, useResurrectCrops,
+                resurrectionChance);
+        PriceSnapshot prices = inputs.getPrices();
+        boolean costDirty = this.costInputs.update(prices, compost, inputs.useBottomlessBucket());
+
+        if (patchesDirty) {
+            this.patches = patches;
+            this.patchResults = new HerbPatchResult[Herb.values().length][patches.size()];
+        }
+        if (survivalDirty) {
+            this.survivalChance = this.calcSurvivalChance(this.calcDiseaseChance(inputs), useResurrectCrops,
+                    resurrectionChance);
+        }
+
+        // Patches with identical buffs get identical yield distributions, so
+        // share them. This also lets the whole-run convolution group them.
+        Map<List<Object>, YieldDistribution> yieldDistributions = new HashMap<>();
+        int recalculated = 0;
+        int repriced = 0;
+        for (Herb herb : Herb.values()) {
+            HerbPatchResult[] row = this.patchResults[herb.ordinal()];
+            boolean rowRecalculated = patchesDirty;
+            boolean rowRepriced = false;
+            for (int i = 0; i < patches.size(); i++) {
+                HerbPatchBuffs patch = patches.get(i);
+                SurvivalChance survivalChance = this.getSurvivalChance(patch);
+                // Disease-free patches don't depend on any of the survival inputs
+                if (patchesDirty || yieldDirty || (survivalDirty && !patch.isDiseaseFree())) {
+                    row[i] = this.calculatePatch(this.buildPatchModel(inputs, herb, patch), survivalChance,
+                            yieldDistributions);
+                    rowRecalculated = true;
+                    recalculated++;
+                } else if (costDirty) {
+                    row[i] = this.repricePatch(row[i], this.buildPatchModel(inputs, herb, patch), survivalChance);
+                    rowRepriced = true;
+                    repriced++;
+                }
+            }
+
+            if (rowRecalculated) {
+                this.runDistributions[herb.ordinal()] = this.calcRunDistribution(inputs, herb, patches, row);
+            } else if (rowRepriced) {
+                this.runDistributions[herb.ordinal()] = this.runDistributions[herb.ordinal()]
+                        .withPrices(prices.getGrimyHerbPrice(herb), sumCost(row));
+            }
+        }
+        log.debug("Recalculated {} and repriced {} herb+patch combos", recalculated, repriced);
+
+        // Copy each row, since the cached arrays get overwritten by later calls
+        List<HerbResult> herbs = Arrays.stream(Herb.values())
+                .map(herb -> new HerbResult(herb, Arrays.asList(this.patchResults[herb.ordinal()].clone()),
+                        this.runDistributions[herb.ordinal()]))
+                .sorted(this.getComparator(inputs))
+                .collect(Collectors.toList());
+        HerbCalculatorResult result = new HerbCalculatorResult(farmingLevel, patches, herbs);
+        this.resultCache.put(fingerprint, result);
+        return result;
+    }
+
+    /**
+     * Run a Monte Carlo simulation for every herb, using the exact same
+     * inputs as {@link #calculate(CalculatorInputs)}. The output has the same shape as the
+     * calculator's, so the two can be compared side-by-side to check the
+     * analytic math.
+     *
+     * @param inputs    Snapshot of the player's state and config
+     * @param simulator Simulation engine to run the trials on
+     * @param trials    Number of trials to run for each herb+patch combo
+     * @return Simulated results, in a nice list
+     */
+    public HerbCalculatorResult simulate(CalculatorInputs inputs, HerbFarmSimulator simulator, long trials) {
+        log.debug("Running herb simulation with {} trials", trials);
+
+        List<HerbPatchBuffs> patches = this.calcPatchBuffs(inputs);
+        // Simulate every herb+patch combo in one batch, so the simulator can
+        // spread all of them across cores at once
+        List<HerbPatchResult> patchResults = simulator.simulate(this.buildPatchModels(inputs, patches), trials);
+        return this.toSimulatedResult(inputs, patches, patchResults);
+    }
+
+    /**
+     * Run a Monte Carlo simulation for every herb until the results are
+     * within a tolerance, rather than for a fixed number of trials. See
+     * {@link HerbFarmSimulator#simulate(List, double, long, HerbFarmSimulator.ProgressListener)}.
+     *
+     * @param inputs    Snapshot of the player's state and config
+     * @param simulator Simulation engine to run the trials on
+     * @param tolerance Precision to stop at, e.g. 0.01 for 1%
+     * @param maxTrials Most trials to run for any one herb+patch combo
+     * @param listener  Called with interim results and the total trials run
+     *                  so far, each time the estimates tighten. Return false
+     *                  to stop early.
+     * @return Final simulated results
+     */
+    public HerbCalculatorResult simulate(CalculatorInputs inputs, HerbFarmSimulator simulator, double tolerance,
+            long maxTrials, BiPredicate<HerbCalculatorResult, Long> listener) {
+        log.debug("Running herb simulation to within {}", tolerance);
+
+        List<HerbPatchBuffs> patches = this.calcPatchBuffs(inputs);
+        List<HerbPatchResult> patchResults = simulator.simulate(this.buildPatchModels(inputs, patches), tolerance,
+                maxTrials, (results, totalTrials, pending) -> listener.test(
+                        this.toSimulatedResult(inputs, patches, results), totalTrials));
+        return this.toSimulatedResult(inputs, patches, patchResults);
+    }
+
+    /**
+     * Build the model for every herb+patch combo, grouped by herb
+     */
+    private List<PatchModel> buildPatchModels(CalculatorInputs inputs, List<HerbPatchBuffs> patches) {
+        return Arrays.stream(Herb.values())
+                .flatMap(herb -> patches.stream().map(patch -> this.buildPatchModel(inputs, herb, patch)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Group simulated herb+patch results back into the calculator's output
+     * shape
+     */
+    private HerbCalculatorResult toSimulatedResult(CalculatorInputs inputs, List<HerbPatchBuffs> patches,
+            List<HerbPatchResult> patchResults) {
+        Map<Herb, List<HerbPatchResult>> byHerb = patchResults.stream()
+                .collect(Collectors.groupingBy(HerbPatchResult::getHerb));
+        List<HerbResult> herbs = Arrays.stream(Herb.values())
+                .map(herb -> {
+                    HerbPatchResult[] row = byHerb.getOrDefault(herb, Collections.emptyList())
+                            .toArray(new HerbPatchResult[0]);
+                    return new HerbResult(herb, Arrays.asList(row),
+                            this.calcRunDistribution(inputs, herb, patches, row));
+                })
+                .sorted(this.getComparator(inputs))
+                .collect(Collectors.toList());
+        return new HerbCalculatorResult(inputs.getFarmingLevel(), patches, herbs);
+    }
+
+    /**
+     * For each patch, figure out its patch-specific buffs. We do this up
+     * front so we can render the buffs to the user clearly, separate from
+     * the herb outputs
+     */
+    List<HerbPatchBuffs> calcPatchBuffs(CalculatorInputs inputs) {
+        return inputs.patches().stream()
+                .map(patch -> new HerbPatchBuffs(patch, patch.isDiseaseFree(inputs),
+                        this.getDiaryChanceToSaveBonus(inputs, patch), this.getXpBonus(inputs, patch)))
                 // Sort alphabetically, for easier reading on the UI
                 .sorted(Comparator.comparing(patch -> patch.getPatch().getName()))
                 .collect(Collectors.toList());
+    }
 
+    /**
+     * Get the comparator used to order herbs in the output
+     */
+    private Comparator<HerbResult> getComparator(CalculatorInputs inputs) {
         // Sort according to criteria specified in the config
-        Comparator<HerbResult> criteria = this.config.criteria().getComparator();
+        Comparator<HerbResult> criteria = inputs.criteria().getComparator();
 
         // Sort in descending/Z->A order if enabled in the config
-        if (this.config.descending()){
+        if (inputs.descending()) {
             criteria = criteria.reversed();
         }
-
-        List<HerbResult> herbs = Arrays.stream(Herb.values()).map(herb -> this.calculateHerb(herb, patches))
-                .sorted(criteria)
-                .collect(Collectors.toList());
-        return new HerbCalculatorResult(this.getFarmingLevel(), patches, herbs);
+        return criteria;
     }
 
     /**
-     * Run the calculator for a single herb
+     * Gather all the inputs for a single herb+patch combo
      */
-    private HerbResult calculateHerb(Herb herb, List<HerbPatchBuffs> patches) {
-        List<HerbPatchResult> patchResults = patches.stream()
-                .map(patch -> this.calculatePatch(herb, patch))
-                .collect(Collectors.toList());
-        HerbResult rv = new HerbResult(herb, patchResults);
-        log.debug("{}", rv);
-        return rv;
+    PatchModel buildPatchModel(CalculatorInputs inputs, Herb herb, HerbPatchBuffs patch) {
+        PriceSnapshot prices = inputs.getPrices();
+        boolean useResurrectCrops = inputs.useResurrectCrops();
+        return new PatchModel(
+                herb,
+                patch.getPatch(),
+                inputs.compost().getHarvestLives(),
+                this.calcChanceToSave(inputs, herb, patch),
+                patch.isDiseaseFree() ? 0.0 : this.calcDiseaseChance(inputs),
+                useResurrectCrops,
+                useResurrectCrops ? this.getResurrectionChance(inputs) : 0.0,
+                patch.getXpBonus(),
+                inputs.compost().getXp(),
+                getCompostCost(prices, inputs.compost(), inputs.useBottomlessBucket()),
+                prices.getSeedPrice(herb),
+                prices.getResurrectRuneCost(),
+                prices.getGrimyHerbPrice(herb));
     }
 
     /**
      * Run the calculator for a single herb+patch combo
      */
-    private HerbPatchResult calculatePatch(Herb herb, HerbPatchBuffs patch) {
-        SurvivalChance survivalChance = this.calcSurvivalChance(patch);
+    private HerbPatchResult calculatePatch(PatchModel model, SurvivalChance survivalChance,
+            Map<List<Object>, YieldDistribution> yieldDistributions) {
+        Herb herb = model.getHerb();
 
         // Multiply by survival chance to account for dead plants
-        double expectedYield = this.calcExpectedYield(herb, patch) * survivalChance.getSurvivalChance();
+        double expectedYield = this.calcExpectedYield(model) * survivalChance.getSurvivalChance();
+
+        double expectedXp = calcExpectedXp(herb, model.getCompostXp(), model.getXpBonus(),
+                survivalChance.getSurvivalChance(), expectedYield);
+
+        double cost = this.calcCost(model, survivalChance);
+        YieldDistribution yieldDistribution = yieldDistributions.computeIfAbsent(
+                Arrays.asList(herb, model.getChanceToSaveNumerator(), model.getHarvestLives(),
+                        survivalChance.getSurvivalChance()),
+                key -> YieldDistribution.forPatch(model, survivalChance.getSurvivalChance()));
+        return new HerbPatchResult(herb, model.getPatch(), survivalChance.getSurvivalChance(), expectedYield,
+                expectedXp, cost, model.getHerbPrice() * expectedYield, yieldDistribution,
+                yieldDistribution.getProbabilityOfLoss(model.getHerbPrice(), cost));
+    }
 
-        double baseXp = this.config.compost().getXp()
-                // "Plant" XP isn't granted until harvesting the final herb, which
-                // means plants that die don't grant *any* XP beyond the compost
-                // (and yes I checked that compost XP is granted at the beginning)
-                + herb.getPlantXp() * survivalChance.getSurvivalChance()
-                + herb.getHarvestXp() * expectedYield;
-        double expectedXp = baseXp * (1.0 + patch.getXpBonus());
+    /**
+     * Update cost and revenue of a previous result with new prices. Yield and
+     * XP (and their distributions) don't depend on prices, so they're carried
+     * over as-is.
+     */
+    private HerbPatchResult repricePatch(HerbPatchResult previous, PatchModel model,
+            SurvivalChance survivalChance) {
+        double cost = this.calcCost(model, survivalChance);
+        YieldDistribution yieldDistribution = previous.getYieldDistribution();
+        return new HerbPatchResult(previous.getHerb(), previous.getPatch(), previous.getSurvivalChance(),
+                previous.getExpectedYield(), previous.getExpectedXp(), cost,
+                model.getHerbPrice() * previous.getExpectedYield(), yieldDistribution,
+                yieldDistribution.getProbabilityOfLoss(model.getHerbPrice(), cost));
+    }
 
-        // Calculate cost
-        // Bottomless bucket doubles compost, so it halves the cost
-        double compostCost = this.config.compost().getPrice(this.itemManager)
-                * (this.config.useBottomlessBucket() ? 0.5 : 1.0);
-        double seedCost = this.itemManager.getItemPrice(herb.getSeedItem());
+    /**
+     * Calculate the expected cost of planting a single herb+patch combo
+     */
+    private double calcCost(PatchModel model, SurvivalChance survivalChance) {
+        return calcCost(model.getCompostCost(), model.getSeedCost(), model.getResurrectRuneCost(),
+                survivalChance.getResurrectionCastChance());
+    }
+
+    static double calcCost(double compostCost, double seedCost, double resurrectRuneCost,
+            double resurrectionCastChance) {
         // The cost of runes for the Resurrect Crops *only*. We intentionally
         // ignore teleport costs, because it's extremely variable by
         // player/patch, and almost always insignificant.
-        double runeCost = this.getResurrectRuneCost() * survivalChance.getResurrectionCastChance();
-        double cost = compostCost + seedCost + runeCost;
+        double runeCost = resurrectRuneCost * resurrectionCastChance;
+        return compostCost + seedCost + runeCost;
+    }
 
-        // Calculate revenue
-        double revenue = this.itemManager.getItemPrice(herb.getGrimyHerbItem()) * expectedYield;
+    /**
+     * Get the cost of the compost for a single patch
+     */
+    static double getCompostCost(PriceSnapshot prices, Compost compost, boolean useBottomlessBucket) {
+        // Bottomless bucket doubles compost, so it halves the cost
+        return prices.getCompostPrice(compost) * (useBottomlessBucket ? 0.5 : 1.0);
+    }
 
-        return new HerbPatchResult(herb, patch.getPatch(), survivalChance.getSurvivalChance(), expectedYield,
-                expectedXp, cost, revenue);
+    /**
+     * Calculate the expected XP from a single herb+patch combo
+     *
+     * @param survivalChance Chance of the patch growing to adulthood
+     * @param expectedYield  Expected herbs, *including* survival chance
+     */
+    static double calcExpectedXp(Herb herb, double compostXp, double xpBonus, double survivalChance,
+            double expectedYield) {
+        double baseXp = compostXp
+                // "Plant" XP isn't granted until harvesting the final herb, which
+                // means plants that die don't grant *any* XP beyond the compost
+                // (and yes I checked that compost XP is granted at the beginning)
+                + herb.getPlantXp() * survivalChance
+                + herb.getHarvestXp() * expectedYield;
+        return baseXp * (1.0 + xpBonus);
+    }
+
+    /**
+     * Combine the results of every patch for an herb into the distribution
+     * for a whole run
+     */
+    private RunDistribution calcRunDistribution(CalculatorInputs inputs, Herb herb, List<HerbPatchBuffs> patches,
+            HerbPatchResult[] row) {
+        List<YieldDistribution> yields = new ArrayList<>(row.length);
+        double[] xpBonuses = new double[row.length];
+        for (int i = 0; i < row.length; i++) {
+            yields.add(row[i].getYieldDistribution());
+            xpBonuses[i] = patches.get(i).getXpBonus();
+        }
+        return RunDistribution.forPatches(herb, inputs.compost().getXp(), yields, xpBonuses,
+                inputs.getPrices().getGrimyHerbPrice(herb), sumCost(row));
+    }
+
+    private static double sumCost(HerbPatchResult[] row) {
+        double cost = 0.0;
+        for (HerbPatchResult result : row) {
+            cost += result.getCost();
+        }
+        return cost;
     }
 
     /**
@@ -121,50 +422,33 @@ public class HerbFarmCalculator {
      *
      * @return Expected number of herbs yielded on average
      */
-    private double calcExpectedYield(Herb herb, HerbPatchBuffs patch) {
-        // We're looking for the expected value of "number of trials until k failures",
-        // where k is the number of harvest lives, and prob of failure (Pf) is
-        // 1-chance to save. The odds of a single failure is 1/Pf, so k
-        // failures is just k/Pf
-        // https://math.stackexchange.com/questions/3378034/expected-number-of-coin-flips-to-see-3-heads
-        return this.config.compost().getHarvestLives() / (1.0 - this.calcChanceToSave(herb, patch));
+    private double calcExpectedYield(PatchModel model) {
+        return ChanceToSaveTable.getExpectedHarvests(model.getHarvestLives(), model.getChanceToSaveNumerator());
     }
 
     /**
      * Calculate the chance to "save a life" when picking an herb. This is
      * variable based on the herb, player's farming level, and applicable yield
-     * bonuses.
+     * bonuses. The formula is evaluated ahead of time for every possible
+     * input, so this is just a table lookup.
      *
-     * @see <a href="https://oldschool.runescape.wiki/w/Farming#Variable_crop_yield">Wiki Reference</a>
+     * @see ChanceToSaveTable
      * @param patch The patch being harvested
-     * @return Odds of saving a live on each individual harvest, out of 1
-     */
-    private double calcChanceToSave(Herb herb, HerbPatchBuffs patch) {
-        int farmingLevel = this.getFarmingLevel();
-        double itemBonus = this.getItemChanceToSaveBonus();
-        double attasBonus = this.config.animaPlant().getChanceToSaveBonus();
-
-        // Yes, these chances really are supposed to be this big, they're really
-        // out of 98, not 1
-        double chance1 = herb.getMinChanceToSave(); // Min chance varies by herb
-        double chance99 = 80.0; // Max chance is 80, for all herbs
-
-        // This comes straight from the wiki, it's a lot easier to read in
-        // their formatting (link above). The formatted formula doesn't mention
-        // anything about the `floor`s though, but it's in the calculator source
-        // https://oldschool.runescape.wiki/w/Calculator:Template/Farming/Herbs2?action=edit
-        return Math.floor(
-                Math.floor(
-                        Math.floor((chance1 * (99.0 - farmingLevel) / 98.0) + (chance99 * (farmingLevel - 1.0) / 98.0))
-                                * (1.0 + itemBonus)
-                                // https://twitter.com/JagexAsh/status/956892754096869376
-                                * (1.0 + patch.getYieldBonus())
-                                // https://twitter.com/JagexAsh/status/1245644766328446976
-                                // Note: This conflicts with how the wiki calculator does it,
-                                // but I'm going off of Ash's tweets instead
-                                * (1.0 + attasBonus)
-                                + 1.0))
-                / 256.0;
+     * @return Odds of saving a live on each individual harvest, out of 256
+     */
+    int calcChanceToSave(CalculatorInputs inputs, Herb herb, HerbPatchBuffs patch) {
+        return this.calcChanceToSave(inputs, inputs.getFarmingLevel(), herb, patch);
+    }
+
+    /**
+     * Calculate the chance to save at a different farming level than the
+     * player's current one
+     *
+     * @see #calcChanceToSave(CalculatorInputs, Herb, HerbPatchBuffs)
+     */
+    int calcChanceToSave(CalculatorInputs inputs, int farmingLevel, Herb herb, HerbPatchBuffs patch) {
+        return ChanceToSaveTable.getNumerator(herb, farmingLevel, inputs.useMagicSecateurs(),
+                inputs.useFarmingCape(), patch.getYieldBonus(), inputs.animaPlant());
     }
 
     /**
@@ -175,91 +459,54 @@ public class HerbFarmCalculator {
      *
      * @return Container holding the chance of survival, as well as change
      */
-    private SurvivalChance calcSurvivalChance(HerbPatchBuffs patch) {
-        if (patch.isDiseaseFree()) {
-            return new SurvivalChance(1.0, 0.0);
+    SurvivalChance calcSurvivalChance(PatchModel model) {
+        if (model.getDiseaseChance() == 0.0) {
+            return DISEASE_FREE_SURVIVAL;
         }
+        return this.calcSurvivalChance(model.getDiseaseChance(), model.isUseResurrectCrops(),
+                model.getResurrectionChance());
+    }
 
-        // Here's some useful theorycrafting I did to understand this problem.
-        // Each patch has 3 meaningful growth stages (really it's 4, but it's
-        // impossible for the patch to die on the first cycle because it takes
-        // two cycles to go alive->diseased->dead), and 4 possible outcomes on
-        // each stage.
-        // S = survived
-        // D = died w/o resurrection attempted
-        // R = resurrect successfully
-        // F = resurrection attempted and failed
-        //
-        // We can assign a probability to each of these, using `s`, `d`, `r`,
-        // and `f`. We know `s == 1-d` and `r == 1-f` which is useful.
-        //
-        // First, the possible outcomes *without* resurrection:
-        // Good: SSS
-        // Bad: SSD, SD, D
-        // Here, the chance of survival is just `s^3`.
-        //
-        // Now when we factor in resurrection, it gets more complicated (keep in
-        // mind that resurrection can only be attemped once per crop, and
-        // resurrection does *not* progress the growth):
-        // Good: SSS, SSRS, SRSS, RSSS
-        // Bad: SSF, SF, F, SRSD, RSSD, RSD, RD
-        // So the chance of survival is `s^3 + 3s^3r`, where the first term is
-        // survival au naturale and the second is the chance of modern medicine
-        // saving our herb and allowing it to live a fully and happy life.
-        //
+    /**
+     * Get the survival chance for a patch from the previous calculation
+     */
+    private SurvivalChance getSurvivalChance(HerbPatchBuffs patch) {
+        return patch.isDiseaseFree() ? DISEASE_FREE_SURVIVAL : this.survivalChance;
+    }
+
+    /**
+     * Calculate the chance of a patch that *can* be diseased growing to
+     * adulthood. This solves the herb growth model (see {@link GrowthModel}),
+     * which is cached, so repeat calls with the same inputs are cheap.
+     *
+     * @param diseaseChancePerCycle Chance of disease on each growth cycle
+     * @param useResurrectCrops     Does the player cast Resurrect Crops?
+     * @param resurrectionChance    Chance of Resurrect Crops succeeding
+     */
+    SurvivalChance calcSurvivalChance(double diseaseChancePerCycle, boolean useResurrectCrops,
+            double resurrectionChance) {
         // Something worth noting is that if a player resurrects a plant, they
         // likely won't be harvesting it on that same run, so *technically* we
         // should roll it over into the subsequent run, but in reality that
         // gives the same result as just harvesting it immediately, so not worth
         // trying to model that.
-        //
-        // To be entirely honest, I'm not 100% sure about all this math because
-        // the Wiki isn't clear exactly how growth, disease, and resurrection
-        // work, so this is a best guess. This needs to be confirmed
-        // experimentally, but the numbers are definitely close enough to be
-        // useful for now.
-
-        // https://oldschool.runescape.wiki/w/Disease_(Farming)#Reducing_disease_risk
-        // Disease chance is always out of 128 and rounded *down* to the nearest
-        // 1/128, with a minimum chance of 1/128
-        double baseChance = this.config.compost().getBaseDiseaseChance();
-        double modifier = this.config.animaPlant().getDiseaseChanceModifier();
-        double numerator = Math.max(Math.floor(baseChance * modifier), 1.0);
-        double diseaseChancePerCycle = numerator / 128.0;
-        double survivalChancePerCycle = 1.0 - diseaseChancePerCycle;
-
-        // The chance of the plant surviving to adulthood on its own
-        double naturalSurvivalChance = Math.pow(survivalChancePerCycle, 3.0);
-
-        if (this.config.useResurrectCrops()) {
-            // The chance that the patch (1) gets diseased, (2) is successfully
-            // resurrected, and (3) successfully grows to adulthood. See the
-            // essay above for why this makes sense.
-            double resurrectToAdulthoodChance = 3.0 * Math.pow(survivalChancePerCycle, 3.0) * diseaseChancePerCycle
-                    * this.getResurrectionChance();
-
-            // Odds of having to cast Resurrect is just the inverse of the odds
-            // surviving on its own
-            double resurrectCastChance = 1.0 - naturalSurvivalChance;
-            return new SurvivalChance(naturalSurvivalChance + resurrectToAdulthoodChance, resurrectCastChance);
-        } else {
-            return new SurvivalChance(naturalSurvivalChance, 0.0);
-        }
+        return GrowthModel.HERB.getSurvivalChance(diseaseChancePerCycle, useResurrectCrops, resurrectionChance);
     }
 
     /**
-     * Get the cost of casting Resurrect Crops (assuming no staffs, since the
-     * benefit of those is negligible).
+     * Calculate the chance of a (non disease-free) patch becoming diseased on
+     * each growth cycle.
      *
-     * @see <a href="https://oldschool.runescape.wiki/w/Resurrect_Crops">Wiki Reference</a>
-     * @return Cost of all runes to cast Resurrect Crops
-     */
-    private int getResurrectRuneCost() {
-        // 8 souls, 12 nats, 8 bloods, 25 earths
-        return this.itemManager.getItemPrice(ItemID.SOUL_RUNE) * 8 +
-                this.itemManager.getItemPrice(ItemID.NATURE_RUNE) * 12 +
-                this.itemManager.getItemPrice(ItemID.BLOOD_RUNE) * 8 +
-                this.itemManager.getItemPrice(ItemID.EARTH_RUNE) * 25;
+     * @see <a href="https://oldschool.runescape.wiki/w/Disease_(Farming)#Reducing_disease_risk">Wiki Reference</a>
+     * @return Disease chance per cycle, out of 1
+     */
+    double calcDiseaseChance(CalculatorInputs inputs) {
+        // Disease chance is always out of 128 and rounded *down* to the nearest
+        // 1/128, with a minimum chance of 1/128
+        double baseChance = inputs.compost().getBaseDiseaseChance();
+        double modifier = inputs.animaPlant().getDiseaseChanceModifier();
+        double numerator = Math.max(Math.floor(baseChance * modifier), 1.0);
+        return numerator / 128.0;
     }
 
     /**
@@ -269,9 +516,9 @@ public class HerbFarmCalculator {
      * @see <a href="https://oldschool.runescape.wiki/w/Resurrect_Crops">Wiki Reference</a>
      * @return Chance of resurrection succeeding, out of 1
      */
-    private double getResurrectionChance() {
-        int magicLevel = this.client.getRealSkillLevel(Skill.MAGIC);
-        int minLevel = MagicAction.RESURRECT_CROPS.getLevel();
+    double getResurrectionChance(CalculatorInputs inputs) {
+        int magicLevel = inputs.getMagicLevel();
+        int minLevel = RESURRECT_CROPS_LEVEL;
 
         if (magicLevel < minLevel) {
             // Get outta here kid
@@ -282,34 +529,6 @@ public class HerbFarmCalculator {
         return Utils.mapToRange(magicLevel, minLevel, 99, 0.5, 0.75);
     }
 
-    /**
-     * Get the player's farming level
-     *
-     * @return Farming level, or 0 if not logged in
-     */
-    private int getFarmingLevel() {
-        return this.client.getRealSkillLevel(Skill.FARMING);
-    }
-
-    /**
-     * Get the "chance to save" bonus due to equipped items.
-     *
-     * @see <a href="https://oldschool.runescape.wiki/w/Farming#Variable_crop_yield">Wiki Reference</a>
-     * @return Chance to save bonus, out of 1
-     */
-    private double getItemChanceToSaveBonus() {
-        double bonus = 0.0;
-        if (this.config.useMagicSecateurs()) {
-            // https://oldschool.runescape.wiki/w/Magic_secateurs
-            bonus += 0.1;
-        }
-        if (this.config.useFarmingCape()) {
-            // https://oldschool.runescape.wiki/w/Farming_cape
-            bonus += 0.05;
-        }
-        return bonus;
-    }
-
     /**
      * Get the "chance to save" bonus due to achievement diary bonuses. These
      * bonuses are patch-specific.
@@ -317,18 +536,18 @@ public class HerbFarmCalculator {
      * @see <a href="https://oldschool.runescape.wiki/w/Farming#Variable_crop_yield">Wiki Reference</a>
      * @return Chance to save bonus, out of 1
      */
-    private double getDiaryChanceToSaveBonus(HerbPatch patch) {
+    private double getDiaryChanceToSaveBonus(CalculatorInputs inputs, HerbPatch patch) {
         switch (patch) {
             case CATHERBY:
                 // +5% from medium, +10% from hard, +15% from elite
                 // https://oldschool.runescape.wiki/w/Kandarin_Diary
-                if (this.client.getVarbitValue(Varbits.DIARY_KANDARIN_ELITE) > 0) {
+                if (inputs.getVarbitValue(Varbits.DIARY_KANDARIN_ELITE) > 0) {
                     return 0.15;
                 }
-                if (this.client.getVarbitValue(Varbits.DIARY_KANDARIN_HARD) > 0) {
+                if (inputs.getVarbitValue(Varbits.DIARY_KANDARIN_HARD) > 0) {
                     return 0.10;
                 }
-                if (this.client.getVarbitValue(Varbits.DIARY_KANDARIN_MEDIUM) > 0) {
+                if (inputs.getVarbitValue(Varbits.DIARY_KANDARIN_MEDIUM) > 0) {
                     return 0.05;
                 }
                 return 0.0;
@@ -336,7 +555,7 @@ public class HerbFarmCalculator {
             // https://oldschool.runescape.wiki/w/Kourend_%26_Kebos_Diary#Rewards_3
             case FARMING_GUILD:
             case HOSIDIUS:
-                if (this.client.getVarbitValue(Varbits.DIARY_KOUREND_HARD) > 0) {
+                if (inputs.getVarbitValue(Varbits.DIARY_KOUREND_HARD) > 0) {
                     return 0.05;
                 }
                 return 0.0;
@@ -353,11 +572,11 @@ public class HerbFarmCalculator {
      * @param patch Herb patch being farmed
      * @return 0 for no bonus, positive number for a bonus
      */
-    private double getXpBonus(HerbPatch patch) {
+    private double getXpBonus(CalculatorInputs inputs, HerbPatch patch) {
         switch (patch) {
             case FALADOR:
                 // +10% from medium
-                if (this.client.getVarbitValue(Varbits.DIARY_FALADOR_MEDIUM) > 0) {
+                if (inputs.getVarbitValue(Varbits.DIARY_FALADOR_MEDIUM) > 0) {
                     return 0.10;
                 }
                 return 0.0;
@@ -3,18 +3,22 @@ package me.lucaspickering;
 import java.util.HashSet;
 import java.util.Set;
 
+import me.lucaspickering.export.ExportScope;
 import me.lucaspickering.utils.AnimaPlant;
 import me.lucaspickering.utils.Compost;
 import me.lucaspickering.utils.HerbPatch;
+import me.lucaspickering.utils.OptimizerObjective;
 import me.lucaspickering.utils.SortingCriteria;
 import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
 import net.runelite.client.config.ConfigSection;
 
-@ConfigGroup("herbFarmCalculator")
+@ConfigGroup(HerbFarmCalculatorConfig.GROUP)
 public interface HerbFarmCalculatorConfig extends Config {
 
+  String GROUP = "herbFarmCalculator";
+
   @ConfigItem(keyName = "patches", name = "Patches", description = "Which patches do you farm? Ctrl+click to select multiple")
   default Set<HerbPatch> patches() {
     return new HashSet<>();
@@ -64,4 +68,80 @@ public interface HerbFarmCalculatorConfig extends Config {
   @ConfigItem(keyName = "descending", name = "Descending", description = "Sort in descending order? (Highest first/ Z->A)", section = sortingSection)
   default boolean descending() {return false; }
 
+  @ConfigSection(name = "Loadouts", description = "Compare every combination of compost, anima plant and gear.", position = 9)
+  String loadoutsSection = "Loadouts";
+
+  @ConfigItem(keyName = "showBestLoadouts", name = "Show best loadouts", description = "Show the best loadout for profit, yield and XP?", section = loadoutsSection)
+  default boolean showBestLoadouts() {
+    return false;
+  }
+
+  @ConfigSection(name = "Optimizer", description = "Pick the best herb for each patch individually.", position = 10)
+  String optimizerSection = "Optimizer";
+
+  @ConfigItem(keyName = "optimizePatches", name = "Optimize patches", description = "Show the best herb to plant in each patch?", section = optimizerSection)
+  default boolean optimizePatches() {
+    return false;
+  }
+
+  @ConfigItem(keyName = "optimizerObjective", name = "Objective", description = "What should the optimizer maximise?", section = optimizerSection)
+  default OptimizerObjective optimizerObjective() {
+    return OptimizerObjective.PROFIT;
+  }
+
+  @ConfigItem(keyName = "gpPerXp", name = "GP per XP", description = "How much is 1 XP worth to you? Only used for the Weighted objective", section = optimizerSection)
+  default int gpPerXp() {
+    return 0;
+  }
+
+  @ConfigItem(keyName = "seedBudget", name = "Seed budget", description = "Most you're willing to spend on seeds per run (0 for no limit)", section = optimizerSection)
+  default int seedBudget() {
+    return 0;
+  }
+
+  @ConfigSection(name = "Prices", description = "Configure how item prices are used.", position = 11)
+  String pricesSection = "Prices";
+
+  @ConfigItem(keyName = "priceSmoothingHours", name = "Smoothing (hours)", description = "Average prices over this many hours of recorded history, up to a week (0 to use current prices)", section = pricesSection)
+  default int priceSmoothingHours() {
+    return 0;
+  }
+
+  @ConfigSection(name = "Simulation", description = "Simulate herb runs instead of calculating them exactly.", position = 12)
+  String simulationSection = "Simulation";
+
+  @ConfigItem(keyName = "simulate", name = "Simulate", description = "Show simulated results, refined until they're within the precision below", section = simulationSection)
+  default boolean simulate() {
+    return false;
+  }
+
+  @ConfigItem(keyName = "simulationPrecision", name = "Precision (%)", description = "Stop simulating once every average is within this many percent (95% confidence)", section = simulationSection)
+  default double simulationPrecision() {
+    return 0.5;
+  }
+
+  @ConfigSection(name = "Projection", description = "Project the cost of training to a target level.", position = 13)
+  String projectionSection = "Projection";
+
+  @ConfigItem(keyName = "targetLevel", name = "Target level", description = "Show how many runs each herb takes to reach this Farming level (0 to hide)", section = projectionSection)
+  default int targetLevel() {
+    return 0;
+  }
+
+  @ConfigSection(name = "Export", description = "Configure what the Export button writes out.", position = 14)
+  String exportSection = "Export";
+
+  @ConfigItem(keyName = "exportScope", name = "Scope", description = "Export just the current result, or sweep over every level and/or loadout", section = exportSection)
+  default ExportScope exportScope() {
+    return ExportScope.CURRENT;
+  }
+
+  @ConfigSection(name = "Debug", description = "Troubleshooting tools.", position = 15, closedByDefault = true)
+  String debugSection = "Debug";
+
+  @ConfigItem(keyName = "showDebugMetrics", name = "Show timings", description = "Show how long each part of refreshing the panel takes", section = debugSection)
+  default boolean showDebugMetrics() {
+    return false;
+  }
+
 }
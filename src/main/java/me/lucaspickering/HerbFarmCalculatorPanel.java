@@ -1,23 +1,53 @@
 package me.lucaspickering;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.StringJoiner;
+import java.util.stream.Collectors;
 import javax.swing.BoxLayout;
 import java.awt.GridLayout;
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
 
 import lombok.extern.slf4j.Slf4j;
+import me.lucaspickering.export.ExportFormat;
+import me.lucaspickering.export.ExportScope;
+import me.lucaspickering.export.ResultExporter;
+import me.lucaspickering.history.HarvestLog;
+import me.lucaspickering.history.HarvestSummary;
+import me.lucaspickering.history.PriceHistory;
+import me.lucaspickering.metrics.PanelMetrics;
+import me.lucaspickering.simulation.HerbFarmSimulator;
+import me.lucaspickering.utils.Herb;
 import me.lucaspickering.utils.HerbResult;
 import me.lucaspickering.utils.HerbCalculatorResult;
 import me.lucaspickering.utils.HerbPatchBuffs;
+import me.lucaspickering.utils.HerbPatchResult;
+import me.lucaspickering.utils.HerbProjection;
+import me.lucaspickering.utils.LoadoutResult;
+import me.lucaspickering.utils.PatchAssignment;
+import me.lucaspickering.utils.SortingCriteria;
 
 import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
 import java.text.DecimalFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import net.runelite.api.Client;
-import net.runelite.api.GameState;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.ui.ColorScheme;
@@ -28,126 +58,743 @@ import net.runelite.client.ui.PluginPanel;
 public class HerbFarmCalculatorPanel extends PluginPanel {
 
   private static final DecimalFormat PCT_FORMAT = new DecimalFormat("+0%");
+  private static final DecimalFormat GP_FORMAT = new DecimalFormat("+#,###;-#,###");
+  /**
+   * Most trials to simulate for any one herb+patch combo, so a tiny
+   * precision can't tie up the executor forever
+   */
+  private static final long MAX_SIMULATION_TRIALS = 1L << 22;
+  /**
+   * Rows between updates of the export progress label
+   */
+  private static final long EXPORT_PROGRESS_ROWS = 10_000;
 
   private final Client client;
   private final ClientThread clientThread;
+  /**
+   * Dedicated to calculations, which can block for a while on the loadout
+   * sweep, optimizer or simulation. Owned by the plugin.
+   */
+  private final ExecutorService executor;
   private final ItemManager itemManager;
+  private final HerbFarmCalculatorConfig config;
   private final HerbFarmCalculator calculator;
-  private JPanel uiPanel;
+  /**
+   * Null if price history isn't available
+   */
+  private PriceHistory priceHistory;
+  /**
+   * Null if harvests aren't being tracked
+   */
+  private HarvestLog harvestLog;
+  /**
+   * Where to save the inputs of the last logged-in calculation, or null to
+   * not save them
+   */
+  private final Path savedInputsPath;
+  /**
+   * Inputs of the last logged-in calculation, shown while logged out. Null
+   * until loaded, or if there aren't any.
+   */
+  private volatile SavedInputs savedInputs;
+  private final LoadoutSweep loadoutSweep;
+  private final HerbPatchOptimizer optimizer = new HerbPatchOptimizer();
+  private final LevelProjection levelProjection;
+  private final PanelMetrics metrics = new PanelMetrics();
+  private final HerbFarmSimulator simulator;
+  private final RefreshScheduler refreshScheduler = new RefreshScheduler(this::refresh);
+
+  // All of these components are built once and reused for every render
+  private final JPanel uiPanel;
+  private final JPanel infoPanel;
+  private final JLabel notLoggedInWarning;
+  private final JLabel farmingLevelLabel;
+  private final JLabel simulationLabel;
+  private final List<JLabel> patchLabels = new ArrayList<>();
+  private final JPanel loadoutPanel;
+  private final Map<SortingCriteria, JLabel[]> loadoutLabels = new EnumMap<>(SortingCriteria.class);
+  private final JPanel optimizerPanel;
+  private final JPanel projectionPanel;
+  private final JPanel resultsPanel;
+  private final JButton exportButton;
+  private final JLabel exportLabel;
+  private final JPanel debugPanel;
+  private final List<JLabel> debugLabels = new ArrayList<>();
+  private final Map<Herb, UIHerbSlot> slots = new EnumMap<>(Herb.class);
+  // What's currently on screen, so we can skip layout when nothing changed
+  private List<String> patchTexts = Collections.emptyList();
+  private List<Herb> slotOrder = Collections.emptyList();
+  private List<String> optimizerTexts = Collections.emptyList();
+  private List<String> projectionTexts = Collections.emptyList();
+  /**
+   * Inputs of the result on screen, so exports match what the player sees.
+   * Only touched on the AWT thread.
+   */
+  private CalculatorInputs shownInputs;
 
   public HerbFarmCalculatorPanel(Client client, ClientThread clientThread,
+      ExecutorService executor,
+      ForkJoinPool pool,
       ItemManager itemManager,
       HerbFarmCalculatorConfig config,
-      HerbFarmCalculator calculator) {
+      HerbFarmCalculator calculator,
+      Path savedInputsPath) {
     super();
     this.client = client;
     this.clientThread = clientThread;
+    this.executor = executor;
     this.itemManager = itemManager;
+    this.config = config;
     this.calculator = calculator;
+    this.savedInputsPath = savedInputsPath;
+    this.loadoutSweep = new LoadoutSweep(calculator, pool);
+    this.simulator = new HerbFarmSimulator(pool, System.nanoTime());
+    this.levelProjection = new LevelProjection(calculator);
 
     setBorder(new EmptyBorder(10, 10, 10, 10));
     setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+
+    // Hidden until we have the first result to show
+    this.uiPanel = new JPanel();
+    this.uiPanel.setLayout(new BoxLayout(this.uiPanel, BoxLayout.Y_AXIS));
+    this.uiPanel.setVisible(false);
+    this.add(this.uiPanel);
+
+    // ===== Summary panel =====
+    this.infoPanel = new JPanel();
+    this.infoPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+    this.infoPanel.setLayout(new GridLayout(0, 1));
+    this.infoPanel.setBorder(new EmptyBorder(5, 5, 5, 5));
+    this.uiPanel.add(this.infoPanel);
+
+    // Only added to the info panel while logged out
+    this.notLoggedInWarning = new JLabel();
+    this.notLoggedInWarning.setForeground(ColorScheme.PROGRESS_ERROR_COLOR);
+
+    this.farmingLevelLabel = new JLabel();
+    this.farmingLevelLabel.setForeground(Color.WHITE);
+    this.infoPanel.add(this.farmingLevelLabel);
+
+    // Only added to the info panel while showing simulated results
+    this.simulationLabel = new JLabel();
+    this.simulationLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+    this.simulationLabel.setFont(FontManager.getRunescapeSmallFont());
+
+    // ===== Best loadouts =====
+    // Only shown when enabled in the config
+    this.loadoutPanel = new JPanel();
+    this.loadoutPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+    this.loadoutPanel.setLayout(new GridLayout(0, 1));
+    this.loadoutPanel.setBorder(new EmptyBorder(5, 5, 5, 5));
+    this.loadoutPanel.setVisible(false);
+    this.uiPanel.add(this.loadoutPanel);
+    for (SortingCriteria criteria : new SortingCriteria[] {
+        SortingCriteria.Profit, SortingCriteria.Yield, SortingCriteria.XP}) {
+      JLabel titleLabel = new JLabel();
+      titleLabel.setForeground(Color.WHITE);
+      JLabel loadoutLabel = new JLabel();
+      loadoutLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+      loadoutLabel.setFont(FontManager.getRunescapeSmallFont());
+      this.loadoutPanel.add(titleLabel);
+      this.loadoutPanel.add(loadoutLabel);
+      this.loadoutLabels.put(criteria, new JLabel[] {titleLabel, loadoutLabel});
+    }
+
+    // ===== Optimal herb per patch =====
+    // Only shown when enabled in the config
+    this.optimizerPanel = new JPanel();
+    this.optimizerPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+    this.optimizerPanel.setLayout(new GridLayout(0, 1));
+    this.optimizerPanel.setBorder(new EmptyBorder(5, 5, 5, 5));
+    this.optimizerPanel.setVisible(false);
+    this.uiPanel.add(this.optimizerPanel);
+
+    // ===== Projection to target level =====
+    // Only shown when a target level is set
+    this.projectionPanel = new JPanel();
+    this.projectionPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+    this.projectionPanel.setLayout(new GridLayout(0, 1));
+    this.projectionPanel.setBorder(new EmptyBorder(5, 5, 5, 5));
+    this.projectionPanel.setVisible(false);
+    this.uiPanel.add(this.projectionPanel);
+
+    // ===== Calculator results =====
+    this.resultsPanel = new JPanel();
+    this.resultsPanel.setLayout(new BoxLayout(this.resultsPanel, BoxLayout.Y_AXIS));
+    this.uiPanel.add(this.resultsPanel);
+
+    // ===== Export =====
+    JPanel exportPanel = new JPanel();
+    exportPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+    exportPanel.setLayout(new GridLayout(0, 1));
+    exportPanel.setBorder(new EmptyBorder(5, 5, 5, 5));
+    this.uiPanel.add(exportPanel);
+    this.exportButton = new JButton("Export results");
+    this.exportButton.addActionListener(e -> this.export());
+    exportPanel.add(this.exportButton);
+    this.exportLabel = new JLabel();
+    this.exportLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+    this.exportLabel.setFont(FontManager.getRunescapeSmallFont());
+    exportPanel.add(this.exportLabel);
+
+    // ===== Debug timings =====
+    // Only shown when enabled in the config
+    this.debugPanel = new JPanel();
+    this.debugPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+    this.debugPanel.setLayout(new GridLayout(0, 1));
+    this.debugPanel.setBorder(new EmptyBorder(5, 5, 5, 5));
+    this.debugPanel.setVisible(false);
+    this.uiPanel.add(this.debugPanel);
+    for (PanelMetrics.Stage stage : PanelMetrics.Stage.values()) {
+      JLabel label = new JLabel();
+      label.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+      label.setFont(FontManager.getRunescapeSmallFont());
+      this.debugPanel.add(label);
+      this.debugLabels.add(label);
+    }
+    JButton dumpButton = new JButton("Write timings to log");
+    dumpButton.addActionListener(e -> this.metrics.dump());
+    this.debugPanel.add(dumpButton);
   }
 
   @Override
   public void onActivate() {
     super.onActivate();
-    // Run the calculator whenever the panel is revealed
-    this.refreshPanel();
+    // Run the calculator whenever the panel is revealed, in case prices
+    // have moved
+    this.refreshScheduler.request();
+    this.refreshScheduler.setVisible(true);
+  }
+
+  @Override
+  public void onDeactivate() {
+    super.onDeactivate();
+    this.refreshScheduler.setVisible(false);
   }
 
   /**
-   * Run the calculator and update the panel to show the results. Called on
-   * startup, and login.
+   * Ask for the calculator to be re-run and the panel updated. Bursts of
+   * requests are coalesced, and nothing runs while the panel is hidden; see
+   * {@link RefreshScheduler}. Can be called from any thread.
    */
   public void refreshPanel() {
-    // Defer running the calculator onto the client thread
+    this.refreshScheduler.request();
+  }
+
+  /**
+   * Hand over the price history and harvest log once they're open, and load
+   * the inputs saved from the last logged-in calculation. Nothing is
+   * calculated until this is called. This reads a file, so it should be run
+   * off the client thread and the AWT thread.
+   *
+   * @param priceHistory Price history, null if not available
+   * @param harvestLog   Harvest log, null if harvests aren't tracked
+   */
+  public void initialize(PriceHistory priceHistory, HarvestLog harvestLog) {
+    // Only refreshes read these, and they're held back until now
+    this.priceHistory = priceHistory;
+    this.harvestLog = harvestLog;
+    if (this.savedInputsPath != null) {
+      try {
+        this.savedInputs = SavedInputs.read(this.savedInputsPath);
+      } catch (IOException e) {
+        log.warn("Failed to read saved inputs from {}", this.savedInputsPath, e);
+      }
+    }
+    this.refreshScheduler.setReady();
+  }
+
+  /**
+   * Run the calculator and update the panel to show the results. Only the
+   * scheduler calls this.
+   */
+  private void refresh(RefreshScheduler.Refresh refresh) {
+    // Only grab the game state on the client thread, then run the calculator
+    // in the background so it doesn't hold up the game
+    long requested = System.nanoTime();
     clientThread.invokeLater(() -> {
-      HerbCalculatorResult result = this.calculator.calculate();
+      this.metrics.recordSince(PanelMetrics.Stage.CLIENT_THREAD_WAIT, requested);
+      CalculatorInputs inputs;
+      boolean stale;
+      try {
+        PanelMetrics.Sample capture = this.metrics.start(PanelMetrics.Stage.CAPTURE);
+        PlayerState player = new ClientPlayerState(this.client);
+        SavedInputs saved = this.savedInputs;
+        // While logged out, the last session's state is much closer to the
+        // truth than a level 0 player with no diaries
+        stale = !player.isLoggedIn() && saved != null;
+        inputs = stale
+            ? CalculatorInputs.capture(saved, this.config, saved.getPrices())
+            : CalculatorInputs.capture(player, this.config, this.getPriceSource());
+        capture.stop();
+      } catch (RuntimeException e) {
+        refresh.finish();
+        throw e;
+      }
 
-      // Move UI updating onto the AWT thread
-      SwingUtilities.invokeLater(() -> {
-        this.renderResult(result);
-      });
+      try {
+        this.executor.execute(() -> {
+          try {
+            this.calculateAndRender(refresh, inputs, stale);
+          } finally {
+            refresh.finish();
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        // The plugin is shutting down
+        refresh.finish();
+      }
+    });
+  }
+
+  /**
+   * Run the calculator and everything else the panel shows, then render it.
+   * Results are dropped if another refresh was requested in the meantime,
+   * since that one will be along shortly.
+   *
+   * @param stale True if the inputs were saved from a previous session
+   */
+  private void calculateAndRender(RefreshScheduler.Refresh refresh, CalculatorInputs inputs, boolean stale) {
+    PanelMetrics.Sample calculate = this.metrics.start(PanelMetrics.Stage.CALCULATE);
+    HerbCalculatorResult result = this.calculator.calculate(inputs);
+    calculate.stop();
+    if (!stale && inputs.isLoggedIn()) {
+      this.saveInputs(inputs);
+    }
+
+    PanelMetrics.Sample extras = this.metrics.start(PanelMetrics.Stage.EXTRAS);
+    Map<SortingCriteria, LoadoutResult> bestLoadouts = inputs.showBestLoadouts()
+        ? this.loadoutSweep.sweep(inputs) : Collections.emptyMap();
+    PatchAssignment assignment = inputs.optimizePatches()
+        ? this.optimizer.optimize(inputs, result) : null;
+    List<HerbProjection> projections = this.levelProjection.project(inputs);
+    HarvestSummary harvests = this.harvestLog == null ? null : this.harvestLog.getSummary();
+    extras.stop();
+
+    if (!refresh.isCurrent()) {
+      log.debug("Dropping stale calculator result");
+      return;
+    }
+    if (!inputs.simulate()) {
+      this.render(inputs, result, bestLoadouts, assignment, projections, harvests, null, stale);
+      return;
+    }
+
+    // Show each estimate as it tightens, until it's precise enough or
+    // another refresh comes along
+    double tolerance = inputs.simulationPrecision() / 100.0;
+    HerbCalculatorResult simulated = this.calculator.simulate(inputs, this.simulator, tolerance,
+        MAX_SIMULATION_TRIALS, (interim, trials) -> {
+          if (!refresh.isCurrent()) {
+            return false;
+          }
+          this.render(inputs, interim, bestLoadouts, assignment, projections, harvests,
+              String.format("Simulating... %,d trials", trials), stale);
+          return true;
+        });
+    if (refresh.isCurrent()) {
+      this.render(inputs, simulated, bestLoadouts, assignment, projections, harvests,
+          String.format("Simulated to within %s%%", inputs.simulationPrecision()), stale);
+    }
+  }
+
+  /**
+   * Save the player state and prices behind a logged-in result, so they can
+   * be shown after a restart. Skipped if nothing changed since the last save.
+   */
+  private void saveInputs(CalculatorInputs inputs) {
+    SavedInputs saved = this.savedInputs;
+    if (this.savedInputsPath == null || (saved != null && saved.matches(inputs))) {
+      return;
+    }
+    saved = SavedInputs.of(inputs, System.currentTimeMillis());
+    try {
+      saved.write(this.savedInputsPath);
+    } catch (IOException e) {
+      log.warn("Failed to save inputs to {}", this.savedInputsPath, e);
+    }
+    this.savedInputs = saved;
+  }
+
+  /**
+   * Move UI updating onto the AWT thread, and time it
+   *
+   * @param simulationStatus Shown in the summary when the results are
+   *                         simulated, otherwise null
+   * @param stale            True if the inputs were saved from a previous
+   *                         session
+   */
+  private void render(CalculatorInputs inputs, HerbCalculatorResult result,
+      Map<SortingCriteria, LoadoutResult> bestLoadouts, PatchAssignment assignment,
+      List<HerbProjection> projections, HarvestSummary harvests, String simulationStatus, boolean stale) {
+    SwingUtilities.invokeLater(() -> {
+      PanelMetrics.Sample render = this.metrics.start(PanelMetrics.Stage.RENDER);
+      this.renderResult(inputs, result, bestLoadouts, assignment, projections, harvests, simulationStatus,
+          stale);
+      render.stop();
+      this.renderMetrics();
     });
   }
 
+  /**
+   * Get the prices to calculate with. These are current prices, unless
+   * smoothing is enabled and we have history to smooth with.
+   */
+  private PriceSource getPriceSource() {
+    PriceSource currentPrices = this.itemManager::getItemPrice;
+    int smoothingHours = Math.min(this.config.priceSmoothingHours(), (int) TimeUnit.DAYS.toHours(7));
+    if (this.priceHistory == null || smoothingHours <= 0) {
+      return currentPrices;
+    }
+    return this.priceHistory.smoothed(TimeUnit.HOURS.toMillis(smoothingHours), System.currentTimeMillis(),
+        currentPrices);
+  }
+
   /**
    * Draw new results into the UI. This should be called *after* running the
-   * calculator, in the AWT thread.
+   * calculator, in the AWT thread. Components are reused between renders, so
+   * this only updates text and colors, and only touches the layout if
+   * something structural (patches, sort order) changed.
    *
+   * @param inputs       Inputs the result was calculated from
    * @param result
+   * @param bestLoadouts Best loadout for each criteria, empty if disabled
+   * @param assignment   Best herb for each patch, null if disabled
+   * @param projections  Projection to the target level for each herb, empty
+   *                     if disabled
+   * @param harvests     Tracked harvests, null if not available
+   * @param simulationStatus Progress of the simulation, null if the results
+   *                         aren't simulated
+   * @param stale        True if the inputs were saved from a previous
+   *                     session
    */
-  private void renderResult(HerbCalculatorResult result) {
+  private void renderResult(CalculatorInputs inputs, HerbCalculatorResult result,
+      Map<SortingCriteria, LoadoutResult> bestLoadouts, PatchAssignment assignment,
+      List<HerbProjection> projections, HarvestSummary harvests, String simulationStatus, boolean stale) {
     log.debug("Rendering calculator result");
-
-    // Clear previous info
-    if (this.uiPanel != null) {
-      this.remove(this.uiPanel);
-    }
-    this.uiPanel = new JPanel();
-    this.uiPanel.setLayout(new BoxLayout(this.uiPanel, BoxLayout.Y_AXIS));
-    this.add(uiPanel);
+    this.shownInputs = inputs;
+    boolean layoutChanged = false;
 
     // ===== Render summary panel =====
-    JPanel infoPanel = new JPanel();
-    infoPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
-    infoPanel.setLayout(new GridLayout(0, 1));
-    infoPanel.setBorder(new EmptyBorder(5, 5, 5, 5));
-    this.uiPanel.add(infoPanel);
-
     // If player isn't logged in, show a warning so they know that results won't
-    // be accurate
-    if (this.client.getGameState() != GameState.LOGGED_IN) {
-      JLabel notLoggedInWarning = new JLabel("Log in for more accurate results");
-      notLoggedInWarning.setForeground(ColorScheme.PROGRESS_ERROR_COLOR);
-      infoPanel.add(notLoggedInWarning);
+    // be accurate, or might be out of date
+    boolean showWarning = !inputs.isLoggedIn() || stale;
+    this.notLoggedInWarning.setText(stale
+        ? "Last session's results, log in to update" : "Log in for more accurate results");
+    if (showWarning != (this.notLoggedInWarning.getParent() != null)) {
+      if (showWarning) {
+        this.infoPanel.add(this.notLoggedInWarning, 0);
+      } else {
+        this.infoPanel.remove(this.notLoggedInWarning);
+      }
+      layoutChanged = true;
     }
 
     // Farming level
-    JLabel farmingLevelLabel = new JLabel(String.format("Farming level: %d", result.getFarmingLevel()));
-    farmingLevelLabel.setForeground(Color.WHITE);
-    infoPanel.add(farmingLevelLabel);
+    this.farmingLevelLabel.setText(String.format("Farming level: %d", result.getFarmingLevel()));
 
-    // Add a label for each patch in use
-    for (HerbPatchBuffs patch : result.getPatches()) {
-      // Generate a label for the patch that includes name, yield buff, xp buff
-      StringBuilder text = new StringBuilder(patch.getPatch().getName());
-      StringJoiner buffLabels = new StringJoiner(", ");
-      if (patch.isDiseaseFree()) {
-        buffLabels.add("disease-free");
+    // Simulation progress, right under the farming level
+    boolean showSimulation = simulationStatus != null;
+    if (showSimulation != (this.simulationLabel.getParent() != null)) {
+      if (showSimulation) {
+        this.infoPanel.add(this.simulationLabel, this.infoPanel.getComponentZOrder(this.farmingLevelLabel) + 1);
+      } else {
+        this.infoPanel.remove(this.simulationLabel);
       }
-      if (patch.getYieldBonus() != 0.0) {
-        buffLabels.add(PCT_FORMAT.format(patch.getYieldBonus()) + " yield");
+      layoutChanged = true;
+    }
+    this.simulationLabel.setText(showSimulation ? simulationStatus : "");
+
+    // Add a label for each patch in use. Patches rarely change, so only
+    // touch the labels if they did.
+    List<String> patchTexts = result.getPatches().stream()
+        .map(HerbFarmCalculatorPanel::getPatchText)
+        .collect(Collectors.toList());
+    if (!patchTexts.equals(this.patchTexts)) {
+      for (JLabel patchLabel : this.patchLabels) {
+        this.infoPanel.remove(patchLabel);
       }
-      if (patch.getXpBonus() != 0.0) {
-        buffLabels.add(PCT_FORMAT.format(patch.getXpBonus()) + " XP");
+      this.patchLabels.clear();
+      for (String text : patchTexts) {
+        JLabel patchLabel = new JLabel(text);
+        patchLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+        patchLabel.setFont(FontManager.getRunescapeSmallFont());
+        this.infoPanel.add(patchLabel);
+        this.patchLabels.add(patchLabel);
       }
+      this.patchTexts = patchTexts;
+      layoutChanged = true;
+    }
+
+    // ===== Render best loadouts =====
+    boolean showLoadouts = !bestLoadouts.isEmpty();
+    if (showLoadouts != this.loadoutPanel.isVisible()) {
+      this.loadoutPanel.setVisible(showLoadouts);
+      layoutChanged = true;
+    }
+    for (Map.Entry<SortingCriteria, LoadoutResult> entry : bestLoadouts.entrySet()) {
+      JLabel[] labels = this.loadoutLabels.get(entry.getKey());
+      labels[0].setText(getLoadoutTitle(entry.getKey(), entry.getValue()));
+      labels[1].setText(entry.getValue().getLoadout().getDescription());
+    }
 
-      if (buffLabels.length() > 0) {
-        text.append(" (");
-        text.append(buffLabels);
-        text.append(")");
+    // ===== Render optimal herb per patch =====
+    List<String> optimizerTexts = assignment == null
+        ? Collections.emptyList()
+        : getOptimizerTexts(inputs, result, assignment);
+    if (!optimizerTexts.equals(this.optimizerTexts)) {
+      this.optimizerPanel.removeAll();
+      for (int i = 0; i < optimizerTexts.size(); i++) {
+        JLabel label = new JLabel(optimizerTexts.get(i));
+        // First line is the summary, the rest are patches
+        if (i == 0) {
+          label.setForeground(Color.WHITE);
+        } else {
+          label.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+          label.setFont(FontManager.getRunescapeSmallFont());
+        }
+        this.optimizerPanel.add(label);
       }
+      this.optimizerPanel.setVisible(!optimizerTexts.isEmpty());
+      this.optimizerTexts = optimizerTexts;
+      layoutChanged = true;
+    }
 
-      JLabel patchLabel = new JLabel(text.toString());
-      patchLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
-      patchLabel.setFont(FontManager.getRunescapeSmallFont());
-      infoPanel.add(patchLabel);
+    // ===== Render projection to target level =====
+    List<String> projectionTexts = projections.isEmpty()
+        ? Collections.emptyList()
+        : getProjectionTexts(inputs, projections);
+    if (!projectionTexts.equals(this.projectionTexts)) {
+      this.projectionPanel.removeAll();
+      for (int i = 0; i < projectionTexts.size(); i++) {
+        JLabel label = new JLabel(projectionTexts.get(i));
+        // First line is the title, the rest are herbs
+        if (i == 0) {
+          label.setForeground(Color.WHITE);
+        } else {
+          label.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+          label.setFont(FontManager.getRunescapeSmallFont());
+        }
+        this.projectionPanel.add(label);
+      }
+      this.projectionPanel.setVisible(!projectionTexts.isEmpty());
+      this.projectionTexts = projectionTexts;
+      layoutChanged = true;
     }
 
     // ===== Render calculator results =====
-    JPanel resultsPanel = new JPanel();
-    resultsPanel.setLayout(new BoxLayout(resultsPanel, BoxLayout.Y_AXIS));
-    this.uiPanel.add(resultsPanel);
-
-    // Add each patch
+    List<Herb> order = new ArrayList<>();
     for (HerbResult herbResult : result.getHerbs()) {
-      UIHerbSlot slot = new UIHerbSlot(result.getFarmingLevel(), this.itemManager, herbResult);
-      resultsPanel.add(slot);
+      UIHerbSlot slot = this.getSlot(herbResult.getHerb());
+      slot.update(result.getFarmingLevel(), herbResult);
+      slot.setYieldTooltip(harvests == null ? null : getObservedYieldText(inputs, herbResult, harvests));
+      order.add(herbResult.getHerb());
     }
 
-    this.revalidate();
-    this.repaint();
+    // Only shuffle the slots around if the order actually changed
+    if (!order.equals(this.slotOrder)) {
+      this.resultsPanel.removeAll();
+      for (Herb herb : order) {
+        this.resultsPanel.add(this.slots.get(herb));
+      }
+      this.slotOrder = order;
+      layoutChanged = true;
+    }
+
+    if (!this.uiPanel.isVisible()) {
+      this.uiPanel.setVisible(true);
+      layoutChanged = true;
+    }
+    if (layoutChanged) {
+      this.revalidate();
+      this.repaint();
+    }
+  }
+
+  /**
+   * Ask where to save, then export results on a background thread. Big
+   * sweeps can take a while, so the button is disabled until it's done.
+   * Called on the AWT thread.
+   */
+  private void export() {
+    CalculatorInputs inputs = this.shownInputs;
+    if (inputs == null) {
+      return;
+    }
+    ExportScope scope = this.config.exportScope();
+    JFileChooser chooser = new JFileChooser();
+    chooser.setSelectedFile(new File("herb-farming." + ExportFormat.CSV.getExtension()));
+    for (ExportFormat format : ExportFormat.values()) {
+      chooser.addChoosableFileFilter(new FileNameExtensionFilter(format.name(), format.getExtension()));
+    }
+    if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+      return;
+    }
+    File file = chooser.getSelectedFile();
+    ExportFormat format = ExportFormat.forFileName(file.getName());
+
+    this.exportButton.setEnabled(false);
+    this.exportLabel.setText("Exporting...");
+    Thread thread = new Thread(() -> {
+      String status;
+      // Only update the label every so often, so a big sweep doesn't flood
+      // the AWT thread
+      long[] reported = {0};
+      try {
+        long rows = new ResultExporter().export(inputs, scope, format, file.toPath(), written -> {
+          if (written - reported[0] >= EXPORT_PROGRESS_ROWS) {
+            reported[0] = written;
+            SwingUtilities.invokeLater(
+                () -> this.exportLabel.setText(String.format("Exporting... %,d rows", written)));
+          }
+        });
+        status = String.format("Exported %,d rows to %s", rows, file.getName());
+      } catch (InterruptedIOException e) {
+        status = "Export cancelled";
+      } catch (IOException e) {
+        log.warn("Failed to export results to {}", file, e);
+        status = "Export failed: " + e.getMessage();
+      }
+      String finalStatus = status;
+      SwingUtilities.invokeLater(() -> {
+        this.exportLabel.setText(finalStatus);
+        this.exportButton.setEnabled(true);
+      });
+    }, "herb-farm-calculator-export");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Update the debug section with the latest timings, if it's enabled. This
+   * runs after the render is timed, so it doesn't count itself.
+   */
+  private void renderMetrics() {
+    boolean show = this.config.showDebugMetrics();
+    if (show) {
+      List<String> lines = this.metrics.getSummary();
+      for (int i = 0; i < lines.size(); i++) {
+        this.debugLabels.get(i).setText(lines.get(i));
+      }
+    }
+    if (show != this.debugPanel.isVisible()) {
+      this.debugPanel.setVisible(show);
+      this.revalidate();
+      this.repaint();
+    }
+  }
+
+  /**
+   * Get the slot for an herb, creating it the first time it's needed. The
+   * slot (and its icon) is kept for the lifetime of the panel.
+   */
+  private UIHerbSlot getSlot(Herb herb) {
+    return this.slots.computeIfAbsent(herb,
+        h -> new UIHerbSlot(h, this.itemManager.getImage(h.getGrimyHerbItem())));
+  }
+
+  /**
+   * Generate the headline for the best loadout for a criteria, e.g. "Best
+   * profit: Ranarr (+12,345 gp)"
+   */
+  private static String getLoadoutTitle(SortingCriteria criteria, LoadoutResult result) {
+    String value;
+    switch (criteria) {
+      case Yield:
+        value = String.format("%.1f herbs", result.getExpectedYield());
+        break;
+      case XP:
+        value = String.format("%.1f XP", result.getExpectedXp());
+        break;
+      default:
+        value = GP_FORMAT.format(result.getProfit()) + " gp";
+        break;
+    }
+    return String.format("Best %s: %s (%s)", criteria.getName(), result.getHerb().getName(),
+        value);
+  }
+
+  /**
+   * Generate the lines for the optimizer section: a summary, then one line
+   * per patch with the herb to plant there
+   */
+  private static List<String> getOptimizerTexts(CalculatorInputs inputs, HerbCalculatorResult result,
+      PatchAssignment assignment) {
+    List<String> texts = new ArrayList<>();
+    texts.add(String.format("Best per patch (%s): %s gp, %.0f XP",
+        inputs.optimizerObjective().getName(), GP_FORMAT.format(assignment.getProfit()),
+        assignment.getExpectedXp()));
+    for (HerbPatchBuffs patch : result.getPatches()) {
+      HerbPatchResult patchResult = assignment.getPatches().get(patch.getPatch());
+      texts.add(String.format("%s: %s", patch.getPatch().getName(),
+          patchResult == null ? "leave empty" : patchResult.getHerb().getName()));
+    }
+    return texts;
+  }
+
+  /**
+   * Generate the lines for the projection section: a title, then one line
+   * per herb, e.g. "Ranarr: 412 runs, +1,234,567 gp, 22.9 days"
+   */
+  private static List<String> getProjectionTexts(CalculatorInputs inputs, List<HerbProjection> projections) {
+    List<String> texts = new ArrayList<>();
+    texts.add(String.format("Runs to level %d", inputs.targetLevel()));
+    for (HerbProjection projection : projections) {
+      texts.add(String.format("%s: %,d runs, %s gp, %.1f days", projection.getHerb().getName(),
+          projection.getRuns(), GP_FORMAT.format(projection.getProfit()),
+          projection.getGrowthMinutes() / (double) TimeUnit.DAYS.toMinutes(1)));
+    }
+    return texts;
+  }
+
+  /**
+   * Generate a comparison of tracked harvests against the expected yield
+   * for an herb, e.g. "Observed 7.9 herbs per patch over 120 runs (expected
+   * 8.1)". Only runs in the currently selected patches with the currently
+   * selected compost count. The expected yield is weighted by how many runs
+   * were in each patch, since patches can have different buffs.
+   *
+   * @return The comparison, or null if there are no matching runs
+   */
+  private static String getObservedYieldText(CalculatorInputs inputs, HerbResult herbResult,
+      HarvestSummary harvests) {
+    int runs = 0;
+    long herbs = 0;
+    double expected = 0.0;
+    for (HerbPatchResult patchResult : herbResult.getPatches()) {
+      int patchRuns = harvests.getRuns(herbResult.getHerb(), patchResult.getPatch(), inputs.compost());
+      runs += patchRuns;
+      herbs += harvests.getHerbs(herbResult.getHerb(), patchResult.getPatch(), inputs.compost());
+      expected += patchRuns * patchResult.getExpectedYield();
+    }
+    if (runs == 0) {
+      return null;
+    }
+    return String.format("Observed %.1f herbs per patch over %d runs (expected %.1f)",
+        (double) herbs / runs, runs, expected / runs);
+  }
+
+  /**
+   * Generate a label for the patch that includes name, yield buff, xp buff
+   */
+  private static String getPatchText(HerbPatchBuffs patch) {
+    StringBuilder text = new StringBuilder(patch.getPatch().getName());
+    StringJoiner buffLabels = new StringJoiner(", ");
+    if (patch.isDiseaseFree()) {
+      buffLabels.add("disease-free");
+    }
+    if (patch.getYieldBonus() != 0.0) {
+      buffLabels.add(PCT_FORMAT.format(patch.getYieldBonus()) + " yield");
+    }
+    if (patch.getXpBonus() != 0.0) {
+      buffLabels.add(PCT_FORMAT.format(patch.getXpBonus()) + " XP");
+    }
+
+    if (buffLabels.length() > 0) {
+      text.append(" (");
+      text.append(buffLabels);
+      text.append(")");
+    }
+    return text.toString();
   }
 }
@@ -1,13 +1,25 @@
 package me.lucaspickering;
 
 import com.google.inject.Provides;
+import lombok.extern.slf4j.Slf4j;
+import me.lucaspickering.history.HarvestLog;
+import me.lucaspickering.history.HarvestTracker;
+import me.lucaspickering.history.PriceHistory;
+import me.lucaspickering.utils.PriceSnapshot;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
+import net.runelite.api.Skill;
+import net.runelite.api.events.ChatMessage;
 import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.StatChanged;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.client.RuneLite;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
@@ -16,8 +28,21 @@ import net.runelite.client.ui.NavigationButton;
 import net.runelite.client.util.ImageUtil;
 
 import javax.inject.Inject;
+import javax.swing.SwingUtilities;
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 
+@Slf4j
 @PluginDescriptor(name = "Herb Farming Calculator", tags = {"panel", "herb", "farming",
         "calculator"})
 public class HerbFarmCalculatorPlugin extends Plugin {
@@ -32,24 +57,85 @@ public class HerbFarmCalculatorPlugin extends Plugin {
     private ItemManager itemManager;
     @Inject
     private ClientToolbar clientToolbar;
+    @Inject
+    private ConfigManager configManager;
+    @Inject
+    private ScheduledExecutorService executor;
+    /**
+     * Runs calculations. With the loadout sweep, optimizer or simulation
+     * turned on these can block for a while, which would hold up every other
+     * plugin (and our own harvest log writes) on RuneLite's shared executor.
+     */
+    private ExecutorService calculationExecutor;
+    /**
+     * Runs the parallel parts of a calculation (the loadout sweep and the
+     * simulation), so they don't compete with the client for the common
+     * fork-join pool, and so they can be stopped when the plugin shuts down
+     */
+    private ForkJoinPool calculationPool;
+    private HerbFarmCalculatorShell uiShell;
     private NavigationButton uiNavigationButton;
-    private HerbFarmCalculatorPanel uiPanel;
+    /**
+     * Opening the history files on the calculation thread, the first step of
+     * {@link #initialize()}. Null until the panel is first shown or the
+     * player logs in, whichever comes first.
+     */
+    private Future<?> initialization;
+    /**
+     * Null until initialized, or if the history file couldn't be opened
+     */
+    private volatile PriceHistory priceHistory;
+    /**
+     * Null until initialized, or if the harvest log couldn't be opened, in
+     * which case harvests aren't tracked
+     */
+    private volatile HarvestLog harvestLog;
+    private volatile HarvestTracker harvestTracker;
+    /**
+     * Null until initialized. Refreshes requested before then are dropped,
+     * which is fine since the panel refreshes whenever it's first shown.
+     */
+    private volatile HerbFarmCalculatorPanel uiPanel;
     private boolean refreshCalculator = false;
+    /**
+     * Last seen real levels (and Farming XP), or -1 if we haven't seen one
+     * since login. StatChanged also fires for XP drops and boosts, which
+     * don't affect anything unless the level projection is on.
+     */
+    private int farmingLevel = -1;
+    private int farmingXp = -1;
+    private int magicLevel = -1;
 
+    /**
+     * Only loads the icon and puts up the navigation button, with a
+     * placeholder panel behind it. The calculator, the real panel and
+     * everything else wait for {@link #initialize()}, so a player who never
+     * opens the panel pays next to nothing for the plugin at client startup.
+     * Lookup tables are built the first time the calculator runs.
+     */
     @Override
     protected void startUp() throws Exception {
         final BufferedImage icon = ImageUtil.loadImageResource(getClass(), "herb.png");
-        final HerbFarmCalculator calculator = new HerbFarmCalculator(this.client, this.config, itemManager);
-        this.uiPanel = new HerbFarmCalculatorPanel(this.client, this.clientThread,
-                this.itemManager,
-                this.config,
-                calculator);
+        // The thread isn't started until the first calculation
+        this.calculationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "herb-farm-calculator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Leave a core for the client. Workers are only started once needed.
+        this.calculationPool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("herb-farm-calculator-worker-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false);
+        this.uiShell = new HerbFarmCalculatorShell(this::initialize);
 
         this.uiNavigationButton = NavigationButton.builder()
                 .tooltip("Herb Farming Calculator")
                 .icon(icon)
                 .priority(9)
-                .panel(this.uiPanel)
+                .panel(this.uiShell)
                 .build();
 
         clientToolbar.addNavigation(uiNavigationButton);
@@ -58,6 +144,38 @@ public class HerbFarmCalculatorPlugin extends Plugin {
     @Override
     protected void shutDown() throws Exception {
         this.clientToolbar.removeNavigation(this.uiNavigationButton);
+        synchronized (this) {
+            // Let initialization finish if it's already started, so we don't
+            // leave any files open behind us. This has to happen before the
+            // executor is shut down, which would drop it without cancelling it.
+            // It's always the first task on the executor, so there's never a
+            // calculation to wait for ahead of it.
+            if (this.initialization != null && !this.initialization.cancel(false)) {
+                try {
+                    this.initialization.get();
+                } catch (ExecutionException e) {
+                    log.warn("Initialization failed", e.getCause());
+                }
+            }
+            this.initialization = null;
+        }
+        // Drop queued calculations. One that's already running is left to
+        // finish on its daemon thread, since it doesn't hold any resources.
+        this.calculationExecutor.shutdownNow();
+        this.calculationPool.shutdownNow();
+        if (this.priceHistory != null) {
+            this.priceHistory.close();
+            this.priceHistory = null;
+        }
+        if (this.harvestLog != null) {
+            // Write out harvests that are still in progress
+            this.harvestTracker.flush();
+            this.harvestLog.close();
+            this.harvestLog = null;
+            this.harvestTracker = null;
+        }
+        this.uiPanel = null;
+        this.uiShell = null;
     }
 
     @Subscribe
@@ -68,18 +186,189 @@ public class HerbFarmCalculatorPlugin extends Plugin {
             // game tick after login though, otherwise we don't actually get
             // full access to stats/diaries/etc.
             refreshCalculator = true;
+            this.initialize();
+        } else {
+            // Inventory and stats will be re-sent on the next login, possibly
+            // for a different account
+            if (this.harvestTracker != null) {
+                this.harvestTracker.reset();
+            }
+            this.farmingLevel = -1;
+            this.farmingXp = -1;
+            this.magicLevel = -1;
+        }
+    }
+
+    @Subscribe
+    public void onItemContainerChanged(ItemContainerChanged event) {
+        if (this.harvestTracker != null) {
+            this.harvestTracker.onItemContainerChanged(event);
+        }
+    }
+
+    @Subscribe
+    public void onChatMessage(ChatMessage event) {
+        if (this.harvestTracker != null) {
+            this.harvestTracker.onChatMessage(event);
+        }
+    }
+
+    @Subscribe
+    public void onStatChanged(StatChanged event) {
+        if (this.harvestTracker != null) {
+            this.harvestTracker.onStatChanged(event);
+        }
+        boolean changed = false;
+        if (event.getSkill() == Skill.FARMING) {
+            changed = event.getLevel() != this.farmingLevel
+                    || (this.config.targetLevel() > 0 && event.getXp() != this.farmingXp);
+            this.farmingLevel = event.getLevel();
+            this.farmingXp = event.getXp();
+        } else if (event.getSkill() == Skill.MAGIC) {
+            changed = event.getLevel() != this.magicLevel;
+            this.magicLevel = event.getLevel();
+        }
+        if (changed) {
+            this.refreshPanel();
+        }
+    }
+
+    @Subscribe
+    public void onVarbitChanged(VarbitChanged event) {
+        // Diaries and Colosseum glory affect patch buffs
+        if (CalculatorInputs.readsVarbit(event.getVarbitId()) || CalculatorInputs.readsVarp(event.getVarpId())) {
+            this.refreshPanel();
+        }
+    }
+
+    @Subscribe
+    public void onConfigChanged(ConfigChanged event) {
+        // The export scope is only read when exporting
+        if (HerbFarmCalculatorConfig.GROUP.equals(event.getGroup()) && !"exportScope".equals(event.getKey())) {
+            this.refreshPanel();
         }
     }
 
     @Subscribe
     public void onGameTick(GameTick event) {
+        // Keep the price history up to date. This is a no-op unless enough
+        // time has passed since the last observation.
+        if (this.priceHistory != null) {
+            this.priceHistory.record(this.itemManager::getItemPrice, System.currentTimeMillis());
+        }
+
         // Run the calculator on first game tick after login
         if (refreshCalculator) {
             refreshCalculator = false;
-            this.uiPanel.refreshPanel();
+            this.refreshPanel();
         }
     }
 
+    /**
+     * Ask the panel to refresh, if it's been built yet
+     */
+    private void refreshPanel() {
+        HerbFarmCalculatorPanel panel = this.uiPanel;
+        if (panel != null) {
+            panel.refreshPanel();
+        }
+    }
+
+    /**
+     * Finish starting up: open the price history and harvest log on the
+     * calculation thread, then build the calculator and real panel on the
+     * AWT thread and swap it in for the placeholder. The panel loads its
+     * saved inputs back on the calculation thread before it starts
+     * calculating. Only the first call does anything. Can be called from any
+     * thread.
+     */
+    private synchronized void initialize() {
+        if (this.initialization != null) {
+            return;
+        }
+        final HerbFarmCalculatorShell shell = this.uiShell;
+        final Path savedInputsPath = this.getSavedInputsPath();
+        this.initialization = this.calculationExecutor.submit(() -> {
+            long start = System.nanoTime();
+            PriceHistory priceHistory = openPriceHistory();
+            HarvestLog harvestLog = openHarvestLog(this.executor);
+            if (harvestLog != null) {
+                this.harvestTracker = new HarvestTracker(this.client, this.config, harvestLog);
+            }
+            this.priceHistory = priceHistory;
+            this.harvestLog = harvestLog;
+            log.debug("Opened history files in {} ms", (System.nanoTime() - start) / 1_000_000);
+            SwingUtilities.invokeLater(() -> this.attachPanel(shell, savedInputsPath, priceHistory, harvestLog));
+        });
+    }
+
+    /**
+     * Build the real panel and show it in place of the placeholder. Must be
+     * called on the AWT thread.
+     */
+    private void attachPanel(HerbFarmCalculatorShell shell, Path savedInputsPath, PriceHistory priceHistory,
+            HarvestLog harvestLog) {
+        if (this.uiShell != shell) {
+            // Shut down while the files were being opened
+            return;
+        }
+        HerbFarmCalculatorPanel panel = new HerbFarmCalculatorPanel(this.client, this.clientThread,
+                this.calculationExecutor,
+                this.calculationPool,
+                this.itemManager,
+                this.config,
+                new HerbFarmCalculator(),
+                savedInputsPath);
+        this.uiPanel = panel;
+        shell.setContent(panel);
+        try {
+            // Reads a file, so keep it off the AWT thread. The executor runs
+            // tasks in order, so this finishes before any calculation.
+            this.calculationExecutor.execute(() -> panel.initialize(priceHistory, harvestLog));
+        } catch (RejectedExecutionException e) {
+            // Shutting down, so there's nothing left to calculate
+        }
+    }
+
+    /**
+     * Open the price history file, or return null if it can't be opened. The
+     * calculator works fine without history, it just can't smooth prices.
+     */
+    private static PriceHistory openPriceHistory() {
+        File file = new File(new File(RuneLite.RUNELITE_DIR, "herb-farm-calculator"), "prices.dat");
+        try {
+            return PriceHistory.open(file.toPath(), PriceSnapshot.getItemIds(),
+                    PriceHistory.DEFAULT_SLOTS_PER_ITEM);
+        } catch (IOException e) {
+            log.warn("Failed to open price history at {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Open the harvest log, or return null if it can't be opened
+     */
+    private static HarvestLog openHarvestLog(ScheduledExecutorService executor) {
+        File file = new File(new File(RuneLite.RUNELITE_DIR, "herb-farm-calculator"), "harvests.log");
+        try {
+            return HarvestLog.open(file.toPath(), executor);
+        } catch (IOException e) {
+            log.warn("Failed to open harvest log at {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Get where to save the last calculation's inputs. Each RuneLite profile
+     * gets its own file, since they're usually for different accounts.
+     */
+    private Path getSavedInputsPath() {
+        long profileId = this.configManager.getProfile().getId();
+        File file = new File(new File(RuneLite.RUNELITE_DIR, "herb-farm-calculator"),
+                String.format("last-inputs-%d.dat", profileId));
+        return file.toPath();
+    }
+
     @Provides
     HerbFarmCalculatorConfig provideConfig(ConfigManager configManager) {
         return configManager.getConfig(HerbFarmCalculatorConfig.class);
@@ -0,0 +1,77 @@
+package me.lucaspickering;
+
+import java.awt.BorderLayout;
+import javax.swing.JLabel;
+import javax.swing.SwingConstants;
+import javax.swing.border.EmptyBorder;
+
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.PluginPanel;
+
+/**
+ * What the navigation button opens. It's cheap enough to build at startup,
+ * and just shows a placeholder until the plugin has finished starting up in
+ * the background and hands over the real {@link HerbFarmCalculatorPanel}.
+ * <p>
+ * All methods must be called on the AWT thread.
+ */
+public class HerbFarmCalculatorShell extends PluginPanel {
+
+  /**
+   * Called whenever the panel is shown, so the plugin can finish starting up
+   * the first time
+   */
+  private final Runnable initializer;
+  private final JLabel loadingLabel;
+  /**
+   * Null until the plugin has finished starting up
+   */
+  private HerbFarmCalculatorPanel content;
+  private boolean active = false;
+
+  public HerbFarmCalculatorShell(Runnable initializer) {
+    // The real panel brings its own scroll pane
+    super(false);
+    this.initializer = initializer;
+
+    setLayout(new BorderLayout());
+    this.loadingLabel = new JLabel("Loading...", SwingConstants.CENTER);
+    this.loadingLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+    this.loadingLabel.setBorder(new EmptyBorder(10, 10, 10, 10));
+    this.add(this.loadingLabel, BorderLayout.NORTH);
+  }
+
+  @Override
+  public void onActivate() {
+    super.onActivate();
+    this.active = true;
+    this.initializer.run();
+    if (this.content != null) {
+      this.content.onActivate();
+    }
+  }
+
+  @Override
+  public void onDeactivate() {
+    super.onDeactivate();
+    this.active = false;
+    if (this.content != null) {
+      this.content.onDeactivate();
+    }
+  }
+
+  /**
+   * Swap the placeholder out for the real panel. If the shell is already on
+   * screen, the panel is activated straight away.
+   */
+  public void setContent(HerbFarmCalculatorPanel content) {
+    this.content = content;
+    this.remove(this.loadingLabel);
+    this.add(content.getWrappedPanel(), BorderLayout.CENTER);
+    this.revalidate();
+    this.repaint();
+    if (this.active) {
+      content.onActivate();
+    }
+  }
+}
@@ -0,0 +1,288 @@
+package me.lucaspickering;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+import me.lucaspickering.utils.HerbCalculatorResult;
+import me.lucaspickering.utils.HerbPatch;
+import me.lucaspickering.utils.HerbPatchResult;
+import me.lucaspickering.utils.HerbResult;
+import me.lucaspickering.utils.OptimizerObjective;
+import me.lucaspickering.utils.PatchAssignment;
+import me.lucaspickering.utils.PriceSnapshot;
+
+/**
+ * Picks the best herb for each patch individually, rather than assuming the
+ * same herb goes in every patch. Patch buffs can make a different herb the
+ * best choice in different patches, especially when there's a limited budget
+ * for seeds.
+ * <p>
+ * This is a multiple-choice knapsack problem (one herb per patch, total seed
+ * cost under the budget), which we solve exactly with branch-and-bound over
+ * the calculator's per-patch results. There are only ever a handful of
+ * patches, so this takes microseconds.
+ */
+@Slf4j
+public class HerbPatchOptimizer {
+
+    /**
+     * Find the best herb to plant in each patch
+     *
+     * @param inputs Inputs the result was calculated from. The optimizer
+     *               options are read from here.
+     * @param result Output of the calculator for the same inputs
+     * @return Best assignment of herbs to patches
+     */
+    public PatchAssignment optimize(CalculatorInputs inputs, HerbCalculatorResult result) {
+        long start = System.nanoTime();
+        OptimizerObjective objective = inputs.optimizerObjective();
+        double gpPerXp = inputs.gpPerXp();
+        // Non-positive budget means no budget
+        double budget = inputs.seedBudget() > 0 ? inputs.seedBudget() : Double.POSITIVE_INFINITY;
+
+        int patchCount = result.getPatches().size();
+        List<List<Candidate>> candidates = new ArrayList<>(patchCount);
+        for (int i = 0; i < patchCount; i++) {
+            candidates.add(this.getCandidates(inputs, result, i, objective, gpPerXp));
+        }
+        // Patches with the same buffs have the same options. Put them next to
+        // each other so the search can skip reorderings of the same answer.
+        candidates.sort(Comparator.comparingDouble((List<Candidate> patch) -> patch.get(0).score)
+                .thenComparingInt(List::size));
+
+        Search search = new Search(candidates);
+        search.run(0, 0.0, budget);
+
+        Map<HerbPatch, HerbPatchResult> patches = new EnumMap<>(HerbPatch.class);
+        double profit = 0.0;
+        double xp = 0.0;
+        double seedCost = 0.0;
+        for (Candidate candidate : search.bestChoices) {
+            if (candidate.result != null) {
+                patches.put(candidate.result.getPatch(), candidate.result);
+                profit += candidate.result.getProfit();
+                xp += candidate.result.getExpectedXp();
+                seedCost += candidate.seedCost;
+            }
+        }
+        log.debug("Optimized {} patches in {} us ({} nodes)", patchCount, (System.nanoTime() - start) / 1_000,
+                search.nodes);
+        return new PatchAssignment(patches, profit, xp, seedCost, search.bestScore);
+    }
+
+    /**
+     * Get the herbs worth considering for a single patch, best first. Herbs
+     * that are both worse and at least as expensive as another option can
+     * never be part of the best answer, so they're dropped up front. Leaving
+     * the patch empty is always an option.
+     *
+     * @param patchIndex Index of the patch in {@link HerbCalculatorResult#getPatches()}
+     */
+    private List<Candidate> getCandidates(CalculatorInputs inputs, HerbCalculatorResult result, int patchIndex,
+            OptimizerObjective objective, double gpPerXp) {
+        PriceSnapshot prices = inputs.getPrices();
+        List<Candidate> all = new ArrayList<>();
+        all.add(new Candidate(null, 0.0, 0.0));
+        for (HerbResult herbResult : result.getHerbs()) {
+            // Can't plant what you don't have the level for
+            if (inputs.isLoggedIn() && herbResult.getHerb().getLevel() > result.getFarmingLevel()) {
+                continue;
+            }
+            HerbPatchResult patchResult = herbResult.getPatches().get(patchIndex);
+            all.add(new Candidate(patchResult, objective.getScore(patchResult, gpPerXp),
+                    prices.getSeedPrice(herbResult.getHerb())));
+        }
+
+        // Best first, and cheapest first among equals
+        all.sort(Comparator.comparingDouble((Candidate candidate) -> -candidate.score)
+                .thenComparingDouble(candidate -> candidate.seedCost));
+        List<Candidate> candidates = new ArrayList<>();
+        double cheapest = Double.POSITIVE_INFINITY;
+        for (Candidate candidate : all) {
+            if (candidate.seedCost < cheapest) {
+                candidates.add(candidate);
+                cheapest = candidate.seedCost;
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * One option for a patch: plant a particular herb, or nothing if
+     * {@link #result} is null
+     */
+    private static class Candidate {
+        private final HerbPatchResult result;
+        private final double score;
+        private final double seedCost;
+
+        private Candidate(HerbPatchResult result, double score, double seedCost) {
+            this.result = result;
+            this.score = score;
+            this.seedCost = seedCost;
+        }
+    }
+
+    /**
+     * Depth-first search over patches, trying each candidate for a patch in
+     * order. A branch is abandoned when the remaining patches couldn't beat
+     * the best answer so far, even if we were allowed to plant fractions of
+     * herbs (the LP relaxation of the problem).
+     */
+    private static class Search {
+        private final List<List<Candidate>> candidates;
+        private final Candidate[] choices;
+        /**
+         * Index of the chosen candidate in each patch
+         */
+        private final int[] choiceIndexes;
+        /**
+         * Whether each patch has exactly the same candidates as the one
+         * before it
+         */
+        private final boolean[] sameAsPrevious;
+        /**
+         * For each patch index, the score of the cheapest candidate in every
+         * patch from there on
+         */
+        private final double[] baseScores;
+        /**
+         * For each patch index, every upgrade from one candidate to the next
+         * on the upper convex hull of (cost, score), for every patch from
+         * there on, as {cost, score} pairs sorted by score per gp
+         */
+        private final double[][][] upgrades;
+        private Candidate[] bestChoices;
+        private double bestScore = Double.NEGATIVE_INFINITY;
+        private long nodes = 0;
+
+        private Search(List<List<Candidate>> candidates) {
+            int patches = candidates.size();
+            this.candidates = candidates;
+            this.choices = new Candidate[patches];
+            this.choiceIndexes = new int[patches];
+            this.bestChoices = new Candidate[0];
+            this.sameAsPrevious = new boolean[patches];
+            for (int i = 1; i < patches; i++) {
+                this.sameAsPrevious[i] = isSame(candidates.get(i - 1), candidates.get(i));
+            }
+
+            this.baseScores = new double[patches + 1];
+            this.upgrades = new double[patches + 1][][];
+            this.upgrades[patches] = new double[0][];
+            List<double[]> upgrades = new ArrayList<>();
+            for (int i = patches - 1; i >= 0; i--) {
+                List<Candidate> patchCandidates = candidates.get(i);
+                // Candidates are sorted best first, so the cheapest is last
+                Candidate cheapest = patchCandidates.get(patchCandidates.size() - 1);
+                this.baseScores[i] = this.baseScores[i + 1] + cheapest.score;
+                upgrades.addAll(getHullUpgrades(patchCandidates));
+                upgrades.sort(Comparator.comparingDouble((double[] upgrade) -> -upgrade[1] / upgrade[0]));
+                this.upgrades[i] = upgrades.toArray(new double[0][]);
+            }
+        }
+
+        private void run(int patch, double score, double budgetLeft) {
+            this.nodes++;
+            if (patch == this.choices.length) {
+                if (score > this.bestScore) {
+                    this.bestScore = score;
+                    this.bestChoices = this.choices.clone();
+                }
+                return;
+            }
+            if (score + this.getBound(patch, budgetLeft) <= this.bestScore) {
+                return;
+            }
+
+            // For identical patches, only try one ordering of each set of
+            // choices, i.e. never pick a better candidate than the previous
+            // patch did
+            List<Candidate> patchCandidates = this.candidates.get(patch);
+            int first = this.sameAsPrevious[patch] ? this.choiceIndexes[patch - 1] : 0;
+            for (int c = first; c < patchCandidates.size(); c++) {
+                Candidate candidate = patchCandidates.get(c);
+                if (candidate.seedCost <= budgetLeft) {
+                    this.choices[patch] = candidate;
+                    this.choiceIndexes[patch] = c;
+                    this.run(patch + 1, score + candidate.score, budgetLeft - candidate.seedCost);
+                }
+            }
+        }
+
+        /**
+         * Upper bound on the score the remaining patches can add. Start with
+         * the cheapest candidate in each patch, then buy upgrades in order of
+         * score per gp until the budget runs out, taking a fraction of the
+         * last one. No real assignment can beat this.
+         */
+        private double getBound(int fromPatch, double budgetLeft) {
+            double bound = this.baseScores[fromPatch];
+            double budget = budgetLeft - this.getBaseCost(fromPatch);
+            for (double[] upgrade : this.upgrades[fromPatch]) {
+                if (upgrade[0] <= budget) {
+                    bound += upgrade[1];
+                    budget -= upgrade[0];
+                } else {
+                    bound += upgrade[1] * budget / upgrade[0];
+                    break;
+                }
+            }
+            return bound;
+        }
+
+        private double getBaseCost(int fromPatch) {
+            double cost = 0.0;
+            for (int i = fromPatch; i < this.choices.length; i++) {
+                List<Candidate> patchCandidates = this.candidates.get(i);
+                cost += patchCandidates.get(patchCandidates.size() - 1).seedCost;
+            }
+            return cost;
+        }
+
+        /**
+         * Get the steps along the upper convex hull of a patch's candidates,
+         * from cheapest to most expensive, as {cost, score} increments. Each
+         * step is worth less per gp than the one before it.
+         */
+        private static List<double[]> getHullUpgrades(List<Candidate> candidates) {
+            List<Candidate> hull = new ArrayList<>();
+            // Walk from cheapest to most expensive
+            for (int i = candidates.size() - 1; i >= 0; i--) {
+                Candidate candidate = candidates.get(i);
+                while (hull.size() >= 2 && getSlope(hull.get(hull.size() - 2), hull.get(hull.size() - 1))
+                        <= getSlope(hull.get(hull.size() - 1), candidate)) {
+                    hull.remove(hull.size() - 1);
+                }
+                hull.add(candidate);
+            }
+
+            List<double[]> upgrades = new ArrayList<>();
+            for (int i = 1; i < hull.size(); i++) {
+                upgrades.add(new double[] {hull.get(i).seedCost - hull.get(i - 1).seedCost,
+                        hull.get(i).score - hull.get(i - 1).score});
+            }
+            return upgrades;
+        }
+
+        private static boolean isSame(List<Candidate> a, List<Candidate> b) {
+            if (a.size() != b.size()) {
+                return false;
+            }
+            for (int i = 0; i < a.size(); i++) {
+                if (a.get(i).score != b.get(i).score || a.get(i).seedCost != b.get(i).seedCost) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static double getSlope(Candidate from, Candidate to) {
+            return (to.score - from.score) / (to.seedCost - from.seedCost);
+        }
+    }
+}
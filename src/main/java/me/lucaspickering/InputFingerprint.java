@@ -0,0 +1,69 @@
+package me.lucaspickering;
+
+import lombok.EqualsAndHashCode;
+import me.lucaspickering.utils.HerbPatch;
+import me.lucaspickering.utils.PriceSnapshot;
+
+/**
+ * A compact, hashable key made of every input that can change the output of
+ * {@link HerbFarmCalculator#calculate}. Two snapshots with equal fingerprints
+ * produce identical results, so a result can be looked up by fingerprint
+ * instead of being recalculated.
+ * <p>
+ * Config values that only affect other features (the optimizer, simulation,
+ * projection, etc.) are deliberately left out, so changing them doesn't miss
+ * the cache.
+ */
+@EqualsAndHashCode(cacheStrategy = EqualsAndHashCode.CacheStrategy.LAZY)
+final class InputFingerprint {
+    private static final int FARMING_CAPE = 1;
+    private static final int MAGIC_SECATEURS = 1 << 1;
+    private static final int BOTTOMLESS_BUCKET = 1 << 2;
+    private static final int RESURRECT_CROPS = 1 << 3;
+    private static final int DESCENDING = 1 << 4;
+    private static final int LOGGED_IN = 1 << 5;
+
+    /**
+     * One bit per {@link HerbPatch}, by ordinal
+     */
+    private final long patches;
+    private final int compost;
+    private final int animaPlant;
+    private final int criteria;
+    /**
+     * All the boolean inputs, packed together
+     */
+    private final int flags;
+    private final int farmingLevel;
+    private final int magicLevel;
+    private final int[] varbitValues;
+    private final int[] varpValues;
+    /**
+     * Prices are compared by value. Every capture fetches a fresh snapshot,
+     * so comparing by identity would never hit.
+     */
+    private final PriceSnapshot prices;
+
+    InputFingerprint(CalculatorInputs inputs, int[] varbitValues, int[] varpValues) {
+        long patches = 0;
+        for (HerbPatch patch : inputs.patches()) {
+            patches |= 1L << patch.ordinal();
+        }
+        this.patches = patches;
+        this.compost = inputs.compost().ordinal();
+        this.animaPlant = inputs.animaPlant().ordinal();
+        this.criteria = inputs.criteria().ordinal();
+        this.flags = (inputs.useFarmingCape() ? FARMING_CAPE : 0)
+                | (inputs.useMagicSecateurs() ? MAGIC_SECATEURS : 0)
+                | (inputs.useBottomlessBucket() ? BOTTOMLESS_BUCKET : 0)
+                | (inputs.useResurrectCrops() ? RESURRECT_CROPS : 0)
+                | (inputs.descending() ? DESCENDING : 0)
+                | (inputs.isLoggedIn() ? LOGGED_IN : 0);
+        this.farmingLevel = inputs.getFarmingLevel();
+        this.magicLevel = inputs.getMagicLevel();
+        // Both arrays are never modified after capture, so they can be shared
+        this.varbitValues = varbitValues;
+        this.varpValues = varpValues;
+        this.prices = inputs.getPrices();
+    }
+}
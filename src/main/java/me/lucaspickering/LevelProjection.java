@@ -0,0 +1,138 @@
+package me.lucaspickering;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import lombok.extern.slf4j.Slf4j;
+import me.lucaspickering.utils.ChanceToSaveTable;
+import me.lucaspickering.utils.Herb;
+import me.lucaspickering.utils.HerbPatchBuffs;
+import me.lucaspickering.utils.HerbProjection;
+import me.lucaspickering.utils.PriceSnapshot;
+import me.lucaspickering.utils.SurvivalChance;
+import net.runelite.api.Experience;
+
+/**
+ * Projects how many runs it takes to train Farming from the player's current
+ * XP to a target level, for each herb. Chance to save goes up with level, so
+ * every run isn't worth the same; this builds a table of XP and profit per
+ * run for every level along the way, then steps through it. Runs at the same
+ * level are all identical, so stepping a whole level at a time gives the same
+ * answer as stepping run by run. The last run of a level usually overshoots
+ * into the next one, which is carried over.
+ * <p>
+ * Magic level (and so resurrection chance), prices and loadout are assumed to
+ * stay the same the whole way.
+ */
+@Slf4j
+public class LevelProjection {
+
+    /**
+     * Every herb takes 4 growth cycles of 20 minutes
+     */
+    static final int HERB_GROWTH_MINUTES = 80;
+
+    private final HerbFarmCalculator calculator;
+
+    public LevelProjection(HerbFarmCalculator calculator) {
+        this.calculator = calculator;
+    }
+
+    /**
+     * Project every herb the player can already plant up to the target
+     * level. Like {@link HerbFarmCalculator#calculate}, this doesn't touch
+     * the client, so it should be run off the client thread.
+     *
+     * @param inputs Snapshot of the player's state and config, including the
+     *               target level
+     * @return Projection for each herb, fewest runs first. Empty if the
+     *         player isn't logged in, has no patches selected, or is already
+     *         at the target.
+     */
+    public List<HerbProjection> project(CalculatorInputs inputs) {
+        long start = System.nanoTime();
+        List<HerbProjection> projections = new ArrayList<>();
+        int targetLevel = Math.min(inputs.targetLevel(), Experience.MAX_REAL_LEVEL);
+        int currentLevel = inputs.getFarmingLevel();
+        List<HerbPatchBuffs> patches = this.calculator.calcPatchBuffs(inputs);
+        if (!inputs.isLoggedIn() || patches.isEmpty() || currentLevel >= targetLevel) {
+            return projections;
+        }
+        int targetXp = Experience.getXpForLevel(targetLevel);
+
+        // Everything that's the same at every level
+        PriceSnapshot prices = inputs.getPrices();
+        int harvestLives = inputs.compost().getHarvestLives();
+        double compostXp = inputs.compost().getXp();
+        double compostCost = HerbFarmCalculator.getCompostCost(prices, inputs.compost(),
+                inputs.useBottomlessBucket());
+        double resurrectRuneCost = prices.getResurrectRuneCost();
+        SurvivalChance diseasableSurvival = this.calculator.calcSurvivalChance(
+                this.calculator.calcDiseaseChance(inputs), inputs.useResurrectCrops(),
+                inputs.useResurrectCrops() ? this.calculator.getResurrectionChance(inputs) : 0.0);
+
+        // XP and profit per run at each level, indexed by level
+        double[] xpPerRun = new double[targetLevel];
+        double[] profitPerRun = new double[targetLevel];
+        for (Herb herb : Herb.values()) {
+            if (herb.getLevel() > currentLevel) {
+                continue;
+            }
+            double seedCost = prices.getSeedPrice(herb);
+            double herbPrice = prices.getGrimyHerbPrice(herb);
+            for (int level = currentLevel; level < targetLevel; level++) {
+                double xp = 0.0;
+                double profit = 0.0;
+                for (HerbPatchBuffs patch : patches) {
+                    double survivalChance = patch.isDiseaseFree() ? 1.0 : diseasableSurvival.getSurvivalChance();
+                    double castChance = patch.isDiseaseFree() ? 0.0 : diseasableSurvival.getResurrectionCastChance();
+                    double patchYield = ChanceToSaveTable.getExpectedHarvests(harvestLives,
+                            this.calculator.calcChanceToSave(inputs, level, herb, patch)) * survivalChance;
+                    xp += HerbFarmCalculator.calcExpectedXp(herb, compostXp, patch.getXpBonus(), survivalChance,
+                            patchYield);
+                    profit += herbPrice * patchYield
+                            - HerbFarmCalculator.calcCost(compostCost, seedCost, resurrectRuneCost, castChance);
+                }
+                xpPerRun[level] = xp;
+                profitPerRun[level] = profit;
+            }
+            // A herb that gives no XP (e.g. certain to die with no compost)
+            // would never get there
+            if (xpPerRun[currentLevel] <= 0.0) {
+                continue;
+            }
+            projections.add(step(herb, inputs.getFarmingXp(), currentLevel, targetXp, xpPerRun, profitPerRun));
+        }
+
+        projections.sort(Comparator.comparingInt(HerbProjection::getRuns)
+                .thenComparing(Comparator.comparingDouble(HerbProjection::getProfit).reversed()));
+        log.debug("Projected {} herbs to level {} in {} us", projections.size(), targetLevel,
+                (System.nanoTime() - start) / 1_000);
+        return projections;
+    }
+
+    /**
+     * Step through the per-level tables from the current XP to the target
+     */
+    private static HerbProjection step(Herb herb, int startXp, int startLevel, int targetXp, double[] xpPerRun,
+            double[] profitPerRun) {
+        double xp = startXp;
+        int level = startLevel;
+        int runs = 0;
+        double profit = 0.0;
+        while (xp < targetXp) {
+            // Run until we level up (or hit the target), whichever is first
+            double levelUpXp = Math.min(Experience.getXpForLevel(level + 1), targetXp);
+            int levelRuns = (int) Math.ceil((levelUpXp - xp) / xpPerRun[level]);
+            xp += levelRuns * xpPerRun[level];
+            runs += levelRuns;
+            profit += levelRuns * profitPerRun[level];
+            // The last run might have skipped a level or two
+            while (level + 1 < xpPerRun.length && xp >= Experience.getXpForLevel(level + 1)) {
+                level++;
+            }
+        }
+        return new HerbProjection(herb, runs, profit, (long) runs * HERB_GROWTH_MINUTES);
+    }
+}
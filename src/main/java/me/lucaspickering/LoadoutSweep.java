@@ -0,0 +1,237 @@
+package me.lucaspickering;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import lombok.extern.slf4j.Slf4j;
+import me.lucaspickering.utils.ChanceToSaveTable;
+import me.lucaspickering.utils.Herb;
+import me.lucaspickering.utils.HerbPatchBuffs;
+import me.lucaspickering.utils.Loadout;
+import me.lucaspickering.utils.LoadoutResult;
+import me.lucaspickering.utils.PriceSnapshot;
+import me.lucaspickering.utils.SortingCriteria;
+import me.lucaspickering.utils.SurvivalChance;
+
+/**
+ * Evaluates every {@link Loadout} at once, to find which combination of
+ * compost, anima plant and gear is best for the player's patches. This uses
+ * the same math as {@link HerbFarmCalculator}, but only keeps running totals
+ * rather than building full results, so the whole sweep allocates next to
+ * nothing per herb+patch.
+ * <p>
+ * Loadouts are split into batches across a fork-join pool.
+ */
+@Slf4j
+public class LoadoutSweep {
+
+    /**
+     * Criteria that a loadout can be "best" for. Sorting alphabetically or by
+     * level doesn't depend on the loadout at all.
+     */
+    private static final SortingCriteria[] CRITERIA = {
+            SortingCriteria.Profit,
+            SortingCriteria.Yield,
+            SortingCriteria.XP,
+    };
+
+    private final HerbFarmCalculator calculator;
+    private final ForkJoinPool pool;
+
+    public LoadoutSweep(HerbFarmCalculator calculator) {
+        this(calculator, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param calculator Calculator to borrow the math from
+     * @param pool       Pool to run batches on
+     */
+    public LoadoutSweep(HerbFarmCalculator calculator, ForkJoinPool pool) {
+        this.calculator = calculator;
+        this.pool = pool;
+    }
+
+    /**
+     * Evaluate every herb under every loadout, and find the best loadout+herb
+     * pair for each criteria. Only herbs the player has the level to plant
+     * are considered (unless logged out, in which case everything is).
+     * <p>
+     * Like {@link HerbFarmCalculator#calculate}, this doesn't touch the
+     * client, so it should be run off the client thread.
+     *
+     * @param inputs Snapshot of the player's state and config. The loadout
+     *               options in here are ignored.
+     * @return The best result for {@link SortingCriteria#Profit},
+     * {@link SortingCriteria#Yield} and {@link SortingCriteria#XP}. Empty if
+     * no patches are selected.
+     */
+    public Map<SortingCriteria, LoadoutResult> sweep(CalculatorInputs inputs) {
+        long start = System.nanoTime();
+        Map<SortingCriteria, LoadoutResult> results = new EnumMap<>(SortingCriteria.class);
+
+        // Patch buffs only come from diaries, so they're the same for every
+        // loadout
+        List<HerbPatchBuffs> patches = this.calculator.calcPatchBuffs(inputs);
+        if (patches.isEmpty()) {
+            return results;
+        }
+        List<Loadout> loadouts = Loadout.all();
+        Best best = this.pool.invoke(new SweepTask(inputs, patches, loadouts, 0, loadouts.size()));
+
+        for (int c = 0; c < CRITERIA.length; c++) {
+            if (best.loadouts[c] >= 0) {
+                results.put(CRITERIA[c], new LoadoutResult(loadouts.get(best.loadouts[c]),
+                        Herb.values()[best.herbs[c]], best.yields[c], best.xps[c], best.profits[c]));
+            }
+        }
+        log.debug("Swept {} loadouts in {} us", loadouts.size(), (System.nanoTime() - start) / 1_000);
+        return results;
+    }
+
+    /**
+     * Evaluate a single loadout for every herb, and record any herb that
+     * beats the current best
+     */
+    private void evaluate(CalculatorInputs baseInputs, List<HerbPatchBuffs> patches, Loadout loadout,
+            int loadoutIndex, Best best) {
+        CalculatorInputs inputs = baseInputs.withLoadout(loadout);
+        PriceSnapshot prices = inputs.getPrices();
+        boolean checkLevel = inputs.isLoggedIn();
+
+        // Everything that's the same for every herb
+        int harvestLives = loadout.getCompost().getHarvestLives();
+        double compostXp = loadout.getCompost().getXp();
+        double compostCost = HerbFarmCalculator.getCompostCost(prices, loadout.getCompost(),
+                loadout.isUseBottomlessBucket());
+        double resurrectRuneCost = prices.getResurrectRuneCost();
+        SurvivalChance diseasableSurvival = this.calculator.calcSurvivalChance(
+                this.calculator.calcDiseaseChance(inputs), loadout.isUseResurrectCrops(),
+                loadout.isUseResurrectCrops() ? this.calculator.getResurrectionChance(inputs) : 0.0);
+
+        for (Herb herb : Herb.values()) {
+            if (checkLevel && herb.getLevel() > inputs.getFarmingLevel()) {
+                continue;
+            }
+            double seedCost = prices.getSeedPrice(herb);
+            double herbPrice = prices.getGrimyHerbPrice(herb);
+
+            double yield = 0.0;
+            double xp = 0.0;
+            double profit = 0.0;
+            for (HerbPatchBuffs patch : patches) {
+                double survivalChance = patch.isDiseaseFree() ? 1.0 : diseasableSurvival.getSurvivalChance();
+                double castChance = patch.isDiseaseFree() ? 0.0 : diseasableSurvival.getResurrectionCastChance();
+                double patchYield = ChanceToSaveTable.getExpectedHarvests(harvestLives,
+                        this.calculator.calcChanceToSave(inputs, herb, patch)) * survivalChance;
+                yield += patchYield;
+                xp += HerbFarmCalculator.calcExpectedXp(herb, compostXp, patch.getXpBonus(), survivalChance,
+                        patchYield);
+                profit += herbPrice * patchYield
+                        - HerbFarmCalculator.calcCost(compostCost, seedCost, resurrectRuneCost, castChance);
+            }
+
+            best.offer(0, profit, loadoutIndex, herb, yield, xp, profit);
+            best.offer(1, yield, loadoutIndex, herb, yield, xp, profit);
+            best.offer(2, xp, loadoutIndex, herb, yield, xp, profit);
+        }
+    }
+
+    /**
+     * The best loadout+herb found so far for each of {@link #CRITERIA}. Kept
+     * as flat arrays so batches don't allocate per candidate.
+     */
+    private static class Best {
+        private final double[] scores = new double[CRITERIA.length];
+        /**
+         * Index into {@link Loadout#all()}, or -1 if nothing's been found yet
+         */
+        private final int[] loadouts = new int[CRITERIA.length];
+        private final int[] herbs = new int[CRITERIA.length];
+        private final double[] yields = new double[CRITERIA.length];
+        private final double[] xps = new double[CRITERIA.length];
+        private final double[] profits = new double[CRITERIA.length];
+
+        private Best() {
+            for (int c = 0; c < CRITERIA.length; c++) {
+                this.scores[c] = Double.NEGATIVE_INFINITY;
+                this.loadouts[c] = -1;
+            }
+        }
+
+        /**
+         * Replace the best for a criteria if this candidate is strictly
+         * better. Ties go to the earlier loadout, since those are simpler.
+         */
+        private void offer(int criteria, double score, int loadout, Herb herb, double yield, double xp,
+                double profit) {
+            boolean better = score > this.scores[criteria]
+                    || (score == this.scores[criteria] && loadout < this.loadouts[criteria]);
+            if (this.loadouts[criteria] < 0 || better) {
+                this.scores[criteria] = score;
+                this.loadouts[criteria] = loadout;
+                this.herbs[criteria] = herb.ordinal();
+                this.yields[criteria] = yield;
+                this.xps[criteria] = xp;
+                this.profits[criteria] = profit;
+            }
+        }
+
+        private Best merge(Best other) {
+            for (int c = 0; c < CRITERIA.length; c++) {
+                if (other.loadouts[c] >= 0) {
+                    this.offer(c, other.scores[c], other.loadouts[c], Herb.values()[other.herbs[c]],
+                            other.yields[c], other.xps[c], other.profits[c]);
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * A fork-join task that evaluates a range of loadouts. Large ranges are
+     * split in half recursively.
+     */
+    private class SweepTask extends RecursiveTask<Best> {
+
+        /**
+         * Below this many loadouts, a task runs everything itself instead of
+         * splitting further
+         */
+        private static final int LOADOUTS_PER_TASK = 16;
+
+        private final CalculatorInputs inputs;
+        private final List<HerbPatchBuffs> patches;
+        private final List<Loadout> loadouts;
+        private final int from;
+        private final int to;
+
+        private SweepTask(CalculatorInputs inputs, List<HerbPatchBuffs> patches, List<Loadout> loadouts,
+                int from, int to) {
+            this.inputs = inputs;
+            this.patches = patches;
+            this.loadouts = loadouts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Best compute() {
+            if (this.to - this.from <= LOADOUTS_PER_TASK) {
+                Best best = new Best();
+                for (int i = this.from; i < this.to; i++) {
+                    LoadoutSweep.this.evaluate(this.inputs, this.patches, this.loadouts.get(i), i, best);
+                }
+                return best;
+            }
+
+            int mid = (this.from + this.to) >>> 1;
+            SweepTask left = new SweepTask(this.inputs, this.patches, this.loadouts, this.from, mid);
+            SweepTask right = new SweepTask(this.inputs, this.patches, this.loadouts, mid, this.to);
+            left.fork();
+            return right.compute().merge(left.join());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package me.lucaspickering;
+
+/**
+ * Everything the calculator needs to know about the player. In game this is
+ * read from the client, but it can come from anywhere, so the calculator can
+ * be run without RuneLite.
+ */
+public interface PlayerState {
+
+    boolean isLoggedIn();
+
+    /**
+     * Get the player's real (unboosted) Farming level
+     */
+    int getFarmingLevel();
+
+    /**
+     * Get the player's total Farming XP
+     */
+    int getFarmingXp();
+
+    /**
+     * Get the player's real (unboosted) Magic level
+     */
+    int getMagicLevel();
+
+    int getVarbitValue(int varbit);
+
+    int getVarpValue(int varp);
+}
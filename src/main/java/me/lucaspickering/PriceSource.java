@@ -0,0 +1,17 @@
+package me.lucaspickering;
+
+/**
+ * Somewhere to look up item prices. In game this is the item manager, but
+ * it can be backed by anything, e.g. a price file.
+ */
+@FunctionalInterface
+public interface PriceSource {
+
+    /**
+     * Get the price of a single item
+     *
+     * @param itemId ID of the item, from {@link net.runelite.api.ItemID}
+     * @return Price in gp
+     */
+    int getItemPrice(int itemId);
+}
@@ -0,0 +1,154 @@
+package me.lucaspickering;
+
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decides when the panel actually recalculates. Refreshes can be requested
+ * from anywhere (config changes, stat changes, login, showing the panel), but
+ * they're coalesced so at most one refresh runs at a time, with at most one
+ * more queued behind it. Any number of requests while a refresh is running
+ * collapse into that one queued refresh, which picks up all of them at once.
+ * <p>
+ * While the panel is hidden, or before the plugin has finished starting up,
+ * requests are only remembered, and the refresh runs once it's shown and
+ * ready.
+ * <p>
+ * All methods are thread-safe.
+ */
+@Slf4j
+public class RefreshScheduler {
+
+    /**
+     * Does the actual refresh. It may hand off to other threads, but must
+     * call {@link Refresh#finish()} exactly once when it's completely done.
+     */
+    private final Consumer<Refresh> task;
+
+    private boolean visible = false;
+    private boolean ready = false;
+    private boolean running = false;
+    /**
+     * Whether anything has been requested since the running refresh started
+     */
+    private boolean dirty = false;
+    /**
+     * Bumped on every request, so a refresh can tell if it's been superseded
+     */
+    private long requests = 0;
+    private long coalesced = 0;
+
+    public RefreshScheduler(Consumer<Refresh> task) {
+        this.task = task;
+    }
+
+    /**
+     * Ask for a refresh. If one is already running, another will run after
+     * it, and the running one is marked stale.
+     */
+    public void request() {
+        Refresh refresh;
+        synchronized (this) {
+            this.requests++;
+            if (this.dirty || this.running) {
+                this.coalesced++;
+            }
+            this.dirty = true;
+            refresh = this.startIfReady();
+        }
+        this.run(refresh);
+    }
+
+    /**
+     * Tell the scheduler whether the panel is on screen. Showing it runs any
+     * refresh requested while it was hidden.
+     */
+    public void setVisible(boolean visible) {
+        Refresh refresh;
+        synchronized (this) {
+            this.visible = visible;
+            refresh = this.startIfReady();
+        }
+        this.run(refresh);
+    }
+
+    /**
+     * Tell the scheduler that everything a refresh needs is set up. Until
+     * this is called, nothing runs.
+     */
+    public void setReady() {
+        Refresh refresh;
+        synchronized (this) {
+            this.ready = true;
+            refresh = this.startIfReady();
+        }
+        this.run(refresh);
+    }
+
+    /**
+     * Start a refresh if there's something to do and nothing in the way.
+     * Must be called while holding the lock; the returned refresh should be
+     * run after releasing it.
+     *
+     * @return The refresh to run, or null if there's nothing to run
+     */
+    private Refresh startIfReady() {
+        if (!this.visible || !this.ready || this.running || !this.dirty) {
+            return null;
+        }
+        this.running = true;
+        this.dirty = false;
+        if (this.coalesced > 0) {
+            log.debug("Starting refresh, coalesced {} requests", this.coalesced);
+            this.coalesced = 0;
+        }
+        return new Refresh(this.requests);
+    }
+
+    private void run(Refresh refresh) {
+        if (refresh != null) {
+            this.task.accept(refresh);
+        }
+    }
+
+    /**
+     * One run of the refresh task
+     */
+    public class Refresh {
+        private final long request;
+        private boolean finished = false;
+
+        private Refresh(long request) {
+            this.request = request;
+        }
+
+        /**
+         * Check whether anything has been requested since this refresh
+         * started. If so, its results are already out of date and another
+         * refresh will follow, so there's no point showing them.
+         */
+        public boolean isCurrent() {
+            synchronized (RefreshScheduler.this) {
+                return RefreshScheduler.this.requests == this.request;
+            }
+        }
+
+        /**
+         * Mark this refresh as done, and start the next one if anything was
+         * requested in the meantime
+         */
+        public void finish() {
+            Refresh next;
+            synchronized (RefreshScheduler.this) {
+                if (this.finished) {
+                    return;
+                }
+                this.finished = true;
+                RefreshScheduler.this.running = false;
+                next = RefreshScheduler.this.startIfReady();
+            }
+            RefreshScheduler.this.run(next);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package me.lucaspickering;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import lombok.Getter;
+import me.lucaspickering.utils.PriceSnapshot;
+
+/**
+ * The player state and prices behind the last logged-in calculation, saved to
+ * disk so the panel has something accurate to show before the next login.
+ * Re-running the calculator on these with the current config reproduces the
+ * last result exactly, and takes a fraction of the space of the result
+ * itself.
+ * <p>
+ * File layout (all big-endian):
+ * <pre>
+ * header:  magic (int), version (int), saved at millis (long)
+ * player:  farming level (int), farming XP (int), magic level (int)
+ *          varbit count (int), then [count] of: varbit ID (int), value (int)
+ *          varp count (int), then [count] of: varp ID (int), value (int)
+ * prices:  see {@link PriceSnapshot#write}
+ * </pre>
+ * Files from a build that reads different vars are ignored, since they can't
+ * fill in everything the calculator needs.
+ */
+public class SavedInputs implements PlayerState {
+
+    private static final int MAGIC = 0x48464c49; // "HFLI"
+    private static final int VERSION = 1;
+
+    /**
+     * When these were captured, in epoch millis
+     */
+    @Getter
+    private final long savedAt;
+    @Getter
+    private final int farmingLevel;
+    @Getter
+    private final int farmingXp;
+    @Getter
+    private final int magicLevel;
+    /**
+     * Values of {@link CalculatorInputs#VARBITS}, in the same order
+     */
+    private final int[] varbitValues;
+    /**
+     * Values of {@link CalculatorInputs#VARPS}, in the same order
+     */
+    private final int[] varpValues;
+    @Getter
+    private final PriceSnapshot prices;
+
+    private SavedInputs(long savedAt, int farmingLevel, int farmingXp, int magicLevel, int[] varbitValues,
+            int[] varpValues, PriceSnapshot prices) {
+        this.savedAt = savedAt;
+        this.farmingLevel = farmingLevel;
+        this.farmingXp = farmingXp;
+        this.magicLevel = magicLevel;
+        this.varbitValues = varbitValues;
+        this.varpValues = varpValues;
+        this.prices = prices;
+    }
+
+    /**
+     * Copy the player state and prices out of a calculation's inputs
+     */
+    public static SavedInputs of(CalculatorInputs inputs, long now) {
+        int[] varbitValues = new int[CalculatorInputs.VARBITS.length];
+        for (int i = 0; i < varbitValues.length; i++) {
+            varbitValues[i] = inputs.getVarbitValue(CalculatorInputs.VARBITS[i]);
+        }
+        int[] varpValues = new int[CalculatorInputs.VARPS.length];
+        for (int i = 0; i < varpValues.length; i++) {
+            varpValues[i] = inputs.getVarpValue(CalculatorInputs.VARPS[i]);
+        }
+        return new SavedInputs(now, inputs.getFarmingLevel(), inputs.getFarmingXp(), inputs.getMagicLevel(),
+                varbitValues, varpValues, inputs.getPrices());
+    }
+
+    /**
+     * Read saved inputs from a file
+     *
+     * @return Saved inputs, or null if the file doesn't exist
+     * @throws IOException If the file can't be read or is from an
+     *                     incompatible version
+     */
+    public static SavedInputs read(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Not a saved inputs file, or from an incompatible version");
+            }
+            long savedAt = input.readLong();
+            int farmingLevel = input.readInt();
+            int farmingXp = input.readInt();
+            int magicLevel = input.readInt();
+            int[] varbitValues = readVars(input, CalculatorInputs.VARBITS);
+            int[] varpValues = readVars(input, CalculatorInputs.VARPS);
+            PriceSnapshot prices = PriceSnapshot.read(input);
+            return new SavedInputs(savedAt, farmingLevel, farmingXp, magicLevel, varbitValues, varpValues, prices);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Write to a file, replacing whatever was there. The file is swapped in
+     * whole, so a crash mid-write can't leave a torn file behind.
+     */
+    public void write(Path path) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(this.savedAt);
+            output.writeInt(this.farmingLevel);
+            output.writeInt(this.farmingXp);
+            output.writeInt(this.magicLevel);
+            writeVars(output, CalculatorInputs.VARBITS, this.varbitValues);
+            writeVars(output, CalculatorInputs.VARPS, this.varpValues);
+            this.prices.write(output);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Check if these hold the same player state and prices as some inputs,
+     * i.e. if saving those would be a no-op
+     */
+    public boolean matches(CalculatorInputs inputs) {
+        SavedInputs other = of(inputs, this.savedAt);
+        return this.farmingLevel == other.farmingLevel
+                && this.farmingXp == other.farmingXp
+                && this.magicLevel == other.magicLevel
+                && Arrays.equals(this.varbitValues, other.varbitValues)
+                && Arrays.equals(this.varpValues, other.varpValues)
+                && this.prices.equals(other.prices);
+    }
+
+    /**
+     * Saved inputs always come from a logged-in player
+     */
+    @Override
+    public boolean isLoggedIn() {
+        return true;
+    }
+
+    @Override
+    public int getVarbitValue(int varbit) {
+        return lookup(CalculatorInputs.VARBITS, this.varbitValues, varbit);
+    }
+
+    @Override
+    public int getVarpValue(int varp) {
+        return lookup(CalculatorInputs.VARPS, this.varpValues, varp);
+    }
+
+    private static int lookup(int[] ids, int[] values, int id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return values[i];
+            }
+        }
+        return 0;
+    }
+
+    private static void writeVars(DataOutputStream output, int[] ids, int[] values) throws IOException {
+        output.writeInt(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            output.writeInt(ids[i]);
+            output.writeInt(values[i]);
+        }
+    }
+
+    private static int[] readVars(DataInputStream input, int[] ids) throws IOException {
+        int count = input.readInt();
+        if (count != ids.length) {
+            throw new IOException(String.format("Expected %d vars but got %d", ids.length, count));
+        }
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            if (input.readInt() != ids[i]) {
+                throw new IOException("Saved vars don't match the ones the calculator reads");
+            }
+            values[i] = input.readInt();
+        }
+        return values;
+    }
+}
@@ -13,10 +13,12 @@ import javax.swing.border.Border;
 import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
 
+import me.lucaspickering.utils.Herb;
 import me.lucaspickering.utils.HerbResult;
-import net.runelite.client.game.ItemManager;
+import me.lucaspickering.utils.RunDistribution;
 import net.runelite.client.ui.ColorScheme;
 import net.runelite.client.ui.FontManager;
+import net.runelite.client.util.AsyncBufferedImage;
 
 /**
  * A visual representation for an herb's results.
@@ -37,56 +39,155 @@ public class UIHerbSlot extends JPanel {
   private static final Dimension ICON_SIZE = new Dimension(32, 32);
 
   private static DecimalFormat GP_FORMAT = new DecimalFormat("+#,###;-#,###");
+  private static DecimalFormat LOSS_FORMAT = new DecimalFormat("0.#%");
+  private static DecimalFormat SHORT_FORMAT = new DecimalFormat("+0.#;-0.#");
+
+  // Percentiles shown for the whole-run profit band
+  private static final double LOW_PERCENTILE = 0.05;
+  private static final double HIGH_PERCENTILE = 0.95;
+
+  private final Herb herb;
+  private final JPanel innerPanel;
+  private final JLabel profitLabel;
+  private final JLabel yieldLabel;
+  private final JLabel xpLabel;
+  private final JLabel lossLabel;
+  private final JLabel bandLabel;
+
+  /**
+   * Build the slot for an herb. The slot is meant to be reused for every
+   * result for this herb, so the components are only created once; call
+   * {@link #update} to fill in the numbers.
+   *
+   * @param herb The herb this slot displays
+   * @param icon Image of the herb
+   */
+  public UIHerbSlot(Herb herb, AsyncBufferedImage icon) {
+    this.herb = herb;
 
-  public UIHerbSlot(int farmingLevel, ItemManager itemManager, HerbResult result) {
     // An empty border to provide some padding
     this.setBorder(BorderFactory.createEmptyBorder(5, 0, 0, 0));
     this.setLayout(new BorderLayout());
 
     // An inner panel that will hold all the contents
-    JPanel innerPanel = new JPanel();
-    innerPanel.setLayout(new BorderLayout());
-    innerPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
-    innerPanel.setBorder(farmingLevel >= result.getHerb().getLevel() ? GREEN_BORDER : RED_BORDER);
-    this.add(innerPanel);
+    this.innerPanel = new JPanel();
+    this.innerPanel.setLayout(new BorderLayout());
+    this.innerPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+    this.innerPanel.setBorder(RED_BORDER);
+    this.add(this.innerPanel);
 
     // Add the icon
-    JLabel icon = new JLabel();
-    itemManager.getImage(result.getHerb().getGrimyHerbItem()).addTo(icon);
-    icon.setMinimumSize(ICON_SIZE);
-    icon.setMaximumSize(ICON_SIZE);
-    icon.setPreferredSize(ICON_SIZE);
-    innerPanel.add(icon, BorderLayout.LINE_START);
+    JLabel iconLabel = new JLabel();
+    icon.addTo(iconLabel);
+    iconLabel.setMinimumSize(ICON_SIZE);
+    iconLabel.setMaximumSize(ICON_SIZE);
+    iconLabel.setPreferredSize(ICON_SIZE);
+    this.innerPanel.add(iconLabel, BorderLayout.LINE_START);
 
     // Create a sub-sub-panel for all the text info
-    JPanel infoPanel = new JPanel(new GridLayout(2, 2));
+    JPanel infoPanel = new JPanel(new GridLayout(3, 2));
     infoPanel.setBorder(new EmptyBorder(0, 5, 0, 0));
     infoPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
-    innerPanel.add(infoPanel, BorderLayout.CENTER);
+    this.innerPanel.add(infoPanel, BorderLayout.CENTER);
 
     // Add the herb name
-    JLabel nameLabel = new JLabel(result.getHerb().getName());
+    JLabel nameLabel = new JLabel(herb.getName());
     nameLabel.setForeground(Color.WHITE);
     infoPanel.add(nameLabel);
 
     // Add profit
-    JLabel profitLabel = new JLabel(GP_FORMAT.format(result.getProfit()) + " gp");
-    profitLabel.setHorizontalAlignment(SwingConstants.RIGHT);
-    profitLabel.setForeground(UIHerbSlot.getProfitColor(result.getProfit()));
-    infoPanel.add(profitLabel);
+    this.profitLabel = new JLabel();
+    this.profitLabel.setHorizontalAlignment(SwingConstants.RIGHT);
+    infoPanel.add(this.profitLabel);
 
     // Add yield
-    JLabel yieldLabel = new JLabel(String.format("%.1f herbs", result.getExpectedYield()));
-    yieldLabel.setFont(FontManager.getRunescapeSmallFont());
-    yieldLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
-    infoPanel.add(yieldLabel);
+    this.yieldLabel = new JLabel();
+    this.yieldLabel.setFont(FontManager.getRunescapeSmallFont());
+    this.yieldLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+    infoPanel.add(this.yieldLabel);
 
     // Add XP
-    JLabel xpLabel = new JLabel(String.format("%.1f XP", result.getExpectedXp()));
-    xpLabel.setHorizontalAlignment(SwingConstants.RIGHT);
-    xpLabel.setFont(FontManager.getRunescapeSmallFont());
-    xpLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
-    infoPanel.add(xpLabel);
+    this.xpLabel = new JLabel();
+    this.xpLabel.setHorizontalAlignment(SwingConstants.RIGHT);
+    this.xpLabel.setFont(FontManager.getRunescapeSmallFont());
+    this.xpLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+    infoPanel.add(this.xpLabel);
+
+    // Add chance of the whole run losing money
+    this.lossLabel = new JLabel();
+    this.lossLabel.setFont(FontManager.getRunescapeSmallFont());
+    this.lossLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+    infoPanel.add(this.lossLabel);
+
+    // Add the 5th-95th percentile profit band for the whole run
+    this.bandLabel = new JLabel();
+    this.bandLabel.setHorizontalAlignment(SwingConstants.RIGHT);
+    this.bandLabel.setFont(FontManager.getRunescapeSmallFont());
+    this.bandLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+    infoPanel.add(this.bandLabel);
+  }
+
+  /**
+   * Show a new result in this slot. Only text and colors are updated, the
+   * components themselves are reused.
+   *
+   * @param farmingLevel Player's farming level
+   * @param result       Result for this slot's herb
+   */
+  public void update(int farmingLevel, HerbResult result) {
+    if (result.getHerb() != this.herb) {
+      throw new IllegalArgumentException(
+          String.format("Expected result for %s, got %s", this.herb.getName(), result.getHerb().getName()));
+    }
+
+    Border border = farmingLevel >= this.herb.getLevel() ? GREEN_BORDER : RED_BORDER;
+    if (this.innerPanel.getBorder() != border) {
+      this.innerPanel.setBorder(border);
+    }
+
+    this.profitLabel.setText(GP_FORMAT.format(result.getProfit()) + " gp");
+    this.profitLabel.setForeground(UIHerbSlot.getProfitColor(result.getProfit()));
+    this.yieldLabel.setText(String.format("%.1f herbs", result.getExpectedYield()));
+    this.xpLabel.setText(String.format("%.1f XP", result.getExpectedXp()));
+
+    RunDistribution run = result.getRunDistribution();
+    if (run != null) {
+      double low = run.getProfitPercentile(LOW_PERCENTILE);
+      double high = run.getProfitPercentile(HIGH_PERCENTILE);
+      this.lossLabel.setText(LOSS_FORMAT.format(run.getProbabilityOfLoss()) + " loss");
+      this.bandLabel.setText(UIHerbSlot.formatShortGp(low) + " to " + UIHerbSlot.formatShortGp(high));
+      this.bandLabel.setToolTipText(String.format("90%% of runs make between %s and %s gp (%d to %d herbs)",
+          GP_FORMAT.format(low), GP_FORMAT.format(high),
+          run.getHerbsPercentile(LOW_PERCENTILE), run.getHerbsPercentile(HIGH_PERCENTILE)));
+    } else {
+      this.lossLabel.setText("");
+      this.bandLabel.setText("");
+      this.bandLabel.setToolTipText(null);
+    }
+  }
+
+  /**
+   * Set the tooltip on the yield, e.g. to compare it against tracked
+   * harvests
+   *
+   * @param text Tooltip text, or null for no tooltip
+   */
+  public void setYieldTooltip(String text) {
+    this.yieldLabel.setToolTipText(text);
+  }
+
+  /**
+   * Format an amount of gp compactly, e.g. "+12.3k"
+   */
+  private static String formatShortGp(double gp) {
+    double abs = Math.abs(gp);
+    if (abs >= 1_000_000.0) {
+      return SHORT_FORMAT.format(gp / 1_000_000.0) + "M";
+    }
+    if (abs >= 1_000.0) {
+      return SHORT_FORMAT.format(gp / 1_000.0) + "k";
+    }
+    return GP_FORMAT.format(gp);
   }
 
   private static Color getProfitColor(double profit) {
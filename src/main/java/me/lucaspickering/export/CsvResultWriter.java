@@ -0,0 +1,53 @@
+package me.lucaspickering.export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import me.lucaspickering.CalculatorInputs;
+import me.lucaspickering.utils.HerbPatchResult;
+
+/**
+ * Writes results as CSV with a header row. Text fields are always quoted,
+ * since loadout and patch names can contain commas.
+ */
+class CsvResultWriter extends ResultWriter {
+
+    private boolean headerWritten = false;
+
+    CsvResultWriter(Writer writer) {
+        super(writer);
+    }
+
+    @Override
+    void writeRow(CalculatorInputs inputs, HerbPatchResult result) throws IOException {
+        this.writeHeader();
+        Object[] values = getValues(inputs, result);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                this.writer.write(',');
+            }
+            if (values[i] instanceof String) {
+                this.writer.write('"');
+                this.writer.write(((String) values[i]).replace("\"", "\"\""));
+                this.writer.write('"');
+            } else {
+                this.writer.write(String.valueOf(values[i]));
+            }
+        }
+        this.writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writeHeader();
+        this.writer.close();
+    }
+
+    private void writeHeader() throws IOException {
+        if (!this.headerWritten) {
+            this.writer.write(String.join(",", COLUMNS));
+            this.writer.write('\n');
+            this.headerWritten = true;
+        }
+    }
+}
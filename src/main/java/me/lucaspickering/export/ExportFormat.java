@@ -0,0 +1,36 @@
+package me.lucaspickering.export;
+
+import java.io.Writer;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * File formats results can be exported as
+ */
+@AllArgsConstructor
+@Getter
+public enum ExportFormat {
+    CSV("csv"),
+    JSON("json");
+
+    /**
+     * File extension, without the dot
+     */
+    private final String extension;
+
+    /**
+     * Start writing rows in this format. Nothing is written until the first
+     * row (or close, for an empty export).
+     */
+    ResultWriter open(Writer writer) {
+        return this == JSON ? new JsonResultWriter(writer) : new CsvResultWriter(writer);
+    }
+
+    /**
+     * Guess the format from a file name, defaulting to CSV
+     */
+    public static ExportFormat forFileName(String fileName) {
+        return fileName.toLowerCase().endsWith("." + JSON.extension) ? JSON : CSV;
+    }
+}
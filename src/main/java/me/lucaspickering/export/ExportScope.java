@@ -0,0 +1,27 @@
+package me.lucaspickering.export;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Which combinations of inputs an export covers. Everything not swept is
+ * taken from the player's current state and config.
+ */
+@AllArgsConstructor
+@Getter
+public enum ExportScope {
+    CURRENT("Current result", false, false),
+    /**
+     * Every Farming level from 1 to 99
+     */
+    ALL_LEVELS("Every level", true, false),
+    /**
+     * Every {@link me.lucaspickering.utils.Loadout}
+     */
+    ALL_LOADOUTS("Every loadout", false, true),
+    ALL_LEVELS_AND_LOADOUTS("Every level and loadout", true, true);
+
+    private final String name;
+    private final boolean allLevels;
+    private final boolean allLoadouts;
+}
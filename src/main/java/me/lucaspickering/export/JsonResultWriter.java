@@ -0,0 +1,66 @@
+package me.lucaspickering.export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import me.lucaspickering.CalculatorInputs;
+import me.lucaspickering.utils.HerbPatchResult;
+
+/**
+ * Writes results as a JSON array of objects, one per line, so the file can
+ * also be read line by line without parsing the whole thing
+ */
+class JsonResultWriter extends ResultWriter {
+
+    private boolean first = true;
+
+    JsonResultWriter(Writer writer) {
+        super(writer);
+    }
+
+    @Override
+    void writeRow(CalculatorInputs inputs, HerbPatchResult result) throws IOException {
+        this.writer.write(this.first ? "[\n{" : ",\n{");
+        this.first = false;
+        Object[] values = getValues(inputs, result);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                this.writer.write(',');
+            }
+            this.writer.write('"');
+            this.writer.write(COLUMNS[i]);
+            this.writer.write("\":");
+            if (values[i] instanceof String) {
+                writeString((String) values[i]);
+            } else if (values[i] instanceof Double && !Double.isFinite((Double) values[i])) {
+                // JSON has no NaN or infinity
+                this.writer.write("null");
+            } else {
+                this.writer.write(String.valueOf(values[i]));
+            }
+        }
+        this.writer.write('}');
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.write(this.first ? "[]\n" : "\n]\n");
+        this.writer.close();
+    }
+
+    private void writeString(String value) throws IOException {
+        this.writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                this.writer.write('\\');
+                this.writer.write(c);
+            } else if (c < 0x20) {
+                this.writer.write(String.format("\\u%04x", (int) c));
+            } else {
+                this.writer.write(c);
+            }
+        }
+        this.writer.write('"');
+    }
+}
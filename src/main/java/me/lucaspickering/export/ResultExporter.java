@@ -0,0 +1,81 @@
+package me.lucaspickering.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import lombok.extern.slf4j.Slf4j;
+import me.lucaspickering.CalculatorInputs;
+import me.lucaspickering.HerbFarmCalculator;
+import me.lucaspickering.utils.HerbCalculatorResult;
+import me.lucaspickering.utils.HerbPatchResult;
+import me.lucaspickering.utils.HerbResult;
+import me.lucaspickering.utils.Loadout;
+import net.runelite.api.Experience;
+
+/**
+ * Exports full calculator results to a file, one row per herb+patch. Sweeps
+ * over levels and/or loadouts are calculated one combination at a time and
+ * written out immediately, so even an export of millions of rows only ever
+ * holds one result in memory.
+ * <p>
+ * This can take a while for big sweeps, so run it on its own thread. It has
+ * its own calculator, so it doesn't disturb the panel's cached results.
+ */
+@Slf4j
+public class ResultExporter {
+
+    private final HerbFarmCalculator calculator = new HerbFarmCalculator();
+
+    /**
+     * Calculate and write every result in a scope
+     *
+     * @param inputs   Player's current state and config. Anything the scope
+     *                 doesn't sweep over is taken from here.
+     * @param scope    Which combinations to export
+     * @param format   File format to write
+     * @param path     File to write to. Overwritten if it exists.
+     * @param progress Called with the total rows written after each
+     *                 combination
+     * @return Number of rows written
+     * @throws InterruptedIOException If the thread is interrupted. The file
+     *                                will have every row written so far.
+     */
+    public long export(CalculatorInputs inputs, ExportScope scope, ExportFormat format, Path path,
+            LongConsumer progress) throws IOException {
+        long start = System.nanoTime();
+        List<Loadout> loadouts = scope.isAllLoadouts() ? Loadout.all() : Collections.singletonList(null);
+        int minLevel = scope.isAllLevels() ? 1 : inputs.getFarmingLevel();
+        int maxLevel = scope.isAllLevels() ? Experience.MAX_REAL_LEVEL : inputs.getFarmingLevel();
+
+        long rows = 0;
+        try (BufferedWriter fileWriter = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+             ResultWriter writer = format.open(fileWriter)) {
+            for (int level = minLevel; level <= maxLevel; level++) {
+                CalculatorInputs levelInputs = scope.isAllLevels() ? inputs.withFarmingLevel(level) : inputs;
+                for (Loadout loadout : loadouts) {
+                    if (Thread.interrupted()) {
+                        throw new InterruptedIOException(String.format("Export cancelled after %d rows", rows));
+                    }
+                    CalculatorInputs comboInputs = loadout == null ? levelInputs : levelInputs.withLoadout(loadout);
+                    HerbCalculatorResult result = this.calculator.calculate(comboInputs);
+                    for (HerbResult herbResult : result.getHerbs()) {
+                        for (HerbPatchResult patchResult : herbResult.getPatches()) {
+                            writer.writeRow(comboInputs, patchResult);
+                            rows++;
+                        }
+                    }
+                    progress.accept(rows);
+                }
+            }
+        }
+        log.debug("Exported {} rows to {} in {} ms", rows, path, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+}
@@ -0,0 +1,75 @@
+package me.lucaspickering.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+import me.lucaspickering.CalculatorInputs;
+import me.lucaspickering.utils.HerbPatchResult;
+
+/**
+ * Streams one row per herb+patch result to a writer. Rows go straight out as
+ * they're written, so an export never holds more than one row in memory.
+ * <p>
+ * Every row has the same columns: the inputs that vary between rows of a
+ * sweep (level and loadout), then the result itself.
+ */
+abstract class ResultWriter implements Closeable {
+
+    static final String[] COLUMNS = {
+            "farmingLevel",
+            "compost",
+            "animaPlant",
+            "magicSecateurs",
+            "farmingCape",
+            "bottomlessBucket",
+            "resurrectCrops",
+            "herb",
+            "patch",
+            "survivalChance",
+            "expectedYield",
+            "expectedXp",
+            "cost",
+            "revenue",
+            "profit",
+            "probabilityOfLoss",
+    };
+
+    protected final Writer writer;
+
+    ResultWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Write a single result
+     *
+     * @param inputs Inputs the result was calculated from
+     */
+    abstract void writeRow(CalculatorInputs inputs, HerbPatchResult result) throws IOException;
+
+    /**
+     * Get every value in a row, in the same order as {@link #COLUMNS}.
+     * Strings are the only values that need quoting.
+     */
+    static Object[] getValues(CalculatorInputs inputs, HerbPatchResult result) {
+        return new Object[] {
+                inputs.getFarmingLevel(),
+                inputs.compost().getName(),
+                inputs.animaPlant().getName(),
+                inputs.useMagicSecateurs(),
+                inputs.useFarmingCape(),
+                inputs.useBottomlessBucket(),
+                inputs.useResurrectCrops(),
+                result.getHerb().getName(),
+                result.getPatch().getName(),
+                result.getSurvivalChance(),
+                result.getExpectedYield(),
+                result.getExpectedXp(),
+                result.getCost(),
+                result.getRevenue(),
+                result.getProfit(),
+                result.getProbabilityOfLoss(),
+        };
+    }
+}
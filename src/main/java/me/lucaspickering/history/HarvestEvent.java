@@ -0,0 +1,51 @@
+package me.lucaspickering.history;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import me.lucaspickering.utils.Compost;
+import me.lucaspickering.utils.Herb;
+import me.lucaspickering.utils.HerbPatch;
+
+/**
+ * Something that happened to a herb patch during a real run, as recorded by
+ * {@link HarvestTracker}
+ */
+@AllArgsConstructor
+@Getter
+public class HarvestEvent {
+
+    private final Type type;
+    /**
+     * When the event happened, in epoch millis
+     */
+    private final long timestamp;
+    private final HerbPatch patch;
+    /**
+     * Herb planted or harvested. Null for {@link Type#RESURRECT_CAST}.
+     */
+    private final Herb herb;
+    /**
+     * Compost used when planting. Null for anything other than
+     * {@link Type#PLANTED}.
+     */
+    private final Compost compost;
+    /**
+     * Number of herbs picked. Only set for {@link Type#HARVESTED}.
+     */
+    private final int herbs;
+
+    public enum Type {
+        /**
+         * A seed was planted. This starts a new run for the patch.
+         */
+        PLANTED,
+        /**
+         * Resurrect Crops was cast on the patch, successfully or not
+         */
+        RESURRECT_CAST,
+        /**
+         * The patch was harvested until empty
+         */
+        HARVESTED,
+    }
+}
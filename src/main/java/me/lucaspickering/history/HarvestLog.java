@@ -0,0 +1,292 @@
+package me.lucaspickering.history;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import me.lucaspickering.utils.Compost;
+import me.lucaspickering.utils.Herb;
+import me.lucaspickering.utils.HerbPatch;
+
+/**
+ * An append-only log of {@link HarvestEvent}s. Each record is a length
+ * prefix followed by the event, so new fields can be added to the end of a
+ * record later without breaking old readers:
+ * <pre>
+ * length (int), type (byte), timestamp millis (long), patch (byte),
+ * herb (byte, -1 for none), compost (byte, -1 for none), herbs (short)
+ * </pre>
+ * Enums are stored by ordinal, so their order must never change.
+ * <p>
+ * All file I/O happens on the given executor, so appending never blocks the
+ * caller. Writes are synced to disk periodically rather than on every event.
+ * <p>
+ * A crash can leave a partially written record at the end of the file.
+ * Opening the log cuts it off, so new records always start on a record
+ * boundary.
+ * <p>
+ * The log is only read once, when it's opened. After that, a running
+ * {@link HarvestSummary} is kept up to date as events are appended, so
+ * checking the totals doesn't get slower as the log grows.
+ */
+@Slf4j
+public class HarvestLog implements Closeable {
+
+    private static final int PAYLOAD_BYTES = 1 + 8 + 1 + 1 + 1 + 2;
+    private static final long SYNC_INTERVAL_SECONDS = 30;
+
+    @Getter
+    private final Path path;
+    private final FileChannel channel;
+    private final ScheduledExecutorService executor;
+    private final ScheduledFuture<?> syncTask;
+    /**
+     * Totals of every event in the log, including ones still waiting to be
+     * written. Guarded by this.
+     */
+    private final HarvestSummary summary;
+    /**
+     * Copy of {@link #summary} last handed out, or null if it's changed since.
+     * Guarded by this.
+     */
+    private HarvestSummary snapshot;
+    /**
+     * Reused for every write. Only touched on the executor.
+     */
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(4 + PAYLOAD_BYTES);
+    /**
+     * Have we written anything since the last sync? Only touched on the
+     * executor.
+     */
+    private boolean dirty = false;
+
+    private HarvestLog(Path path, FileChannel channel, ScheduledExecutorService executor, HarvestSummary summary) {
+        this.path = path;
+        this.channel = channel;
+        this.executor = executor;
+        this.summary = summary;
+        this.syncTask = executor.scheduleWithFixedDelay(this::sync, SYNC_INTERVAL_SECONDS, SYNC_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Open a log for appending, creating it if it doesn't exist. The whole
+     * log is checked, and a partially written record at the end is removed.
+     *
+     * @param path     Path to the log file
+     * @param executor Executor to do all writing on. This should be single
+     *                 threaded, so events stay in order.
+     * @throws IOException If the log can't be opened, or is corrupt before
+     *                     its last record
+     */
+    public static HarvestLog open(Path path, ScheduledExecutorService executor) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        HarvestSummary summary = new HarvestSummary();
+        try {
+            // Don't close this stream, since that would close the channel
+            InputStream input = Channels.newInputStream(channel);
+            long end = readRecords(path, input, summary::add);
+            if (end < channel.size()) {
+                log.info("Removing truncated record at the end of {}", path);
+                channel.truncate(end);
+            }
+            channel.position(end);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return new HarvestLog(path, channel, executor, summary);
+    }
+
+    /**
+     * Add an event to the end of the log. Returns immediately; the event is
+     * written in the background.
+     */
+    public void append(HarvestEvent event) {
+        synchronized (this) {
+            this.summary.add(event);
+            this.snapshot = null;
+        }
+        this.executor.execute(() -> this.write(event));
+    }
+
+    /**
+     * Get the totals of every event appended so far, including ones that
+     * haven't been written yet. This doesn't touch the file.
+     *
+     * @return Snapshot of the totals, which won't change as more events are
+     * appended
+     */
+    public synchronized HarvestSummary getSummary() {
+        if (this.snapshot == null) {
+            this.snapshot = new HarvestSummary(this.summary);
+        }
+        return this.snapshot;
+    }
+
+    /**
+     * Stop syncing, and sync anything that's left. Events appended before
+     * this are still written.
+     */
+    @Override
+    public void close() {
+        this.syncTask.cancel(false);
+        this.executor.execute(() -> {
+            this.sync();
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close harvest log", e);
+            }
+        });
+    }
+
+    /**
+     * Read every event in a log, oldest first. A partially written record at
+     * the end (e.g. from a crash) is ignored.
+     *
+     * @param path     Path to the log file. A missing file is treated as
+     *                 empty.
+     * @param consumer Called with each event
+     * @throws IOException If the log can't be read, or is corrupt before its
+     *                     last record
+     */
+    public static void read(Path path, Consumer<HarvestEvent> consumer) throws IOException {
+        InputStream file;
+        try {
+            file = Files.newInputStream(path);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        try (InputStream input = file) {
+            readRecords(path, input, consumer);
+        }
+    }
+
+    /**
+     * Read every complete record from a stream
+     *
+     * @param path Only used for error messages
+     * @return Number of bytes taken up by complete records, i.e. the offset
+     * of the first byte after the last one
+     */
+    private static long readRecords(Path path, InputStream file, Consumer<HarvestEvent> consumer)
+            throws IOException {
+        Herb[] herbs = Herb.values();
+        HerbPatch[] patches = HerbPatch.values();
+        Compost[] composts = Compost.values();
+        HarvestEvent.Type[] types = HarvestEvent.Type.values();
+        DataInputStream input = new DataInputStream(new BufferedInputStream(file, 1 << 16));
+        long end = 0;
+        while (true) {
+            int length;
+            try {
+                length = input.readInt();
+            } catch (EOFException e) {
+                // Either the end of the file, or a partial length prefix
+                return end;
+            }
+            if (length < PAYLOAD_BYTES) {
+                throw corrupt(path, end, "record length " + length);
+            }
+            try {
+                byte type = input.readByte();
+                long timestamp = input.readLong();
+                byte patch = input.readByte();
+                byte herb = input.readByte();
+                byte compost = input.readByte();
+                int herbCount = input.readShort();
+                // Skip any fields added after this version. Read them rather
+                // than skipping, so a cut-off record is noticed.
+                if (length > PAYLOAD_BYTES) {
+                    input.readFully(new byte[length - PAYLOAD_BYTES]);
+                }
+                HarvestEvent event = new HarvestEvent(
+                        lookup(types, type, false, path, end, "type"),
+                        timestamp,
+                        lookup(patches, patch, false, path, end, "patch"),
+                        lookup(herbs, herb, true, path, end, "herb"),
+                        lookup(composts, compost, true, path, end, "compost"),
+                        herbCount);
+                consumer.accept(event);
+                end += 4 + length;
+            } catch (EOFException e) {
+                log.debug("Ignoring truncated record at the end of {}", path);
+                return end;
+            }
+        }
+    }
+
+    /**
+     * Look up an enum value by its stored ordinal
+     *
+     * @param nullable Whether -1 is allowed, meaning none
+     * @throws IOException If the ordinal is out of range
+     */
+    private static <T> T lookup(T[] values, byte ordinal, boolean nullable, Path path, long offset,
+            String field) throws IOException {
+        if (nullable && ordinal == -1) {
+            return null;
+        }
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw corrupt(path, offset, String.format("%s %d", field, ordinal));
+        }
+        return values[ordinal];
+    }
+
+    private static IOException corrupt(Path path, long offset, String detail) {
+        return new IOException(String.format("Corrupt harvest log %s: %s in record at byte %d", path, detail,
+                offset));
+    }
+
+    private void write(HarvestEvent event) {
+        ByteBuffer buffer = this.writeBuffer;
+        buffer.clear();
+        buffer.putInt(PAYLOAD_BYTES);
+        buffer.put((byte) event.getType().ordinal());
+        buffer.putLong(event.getTimestamp());
+        buffer.put((byte) event.getPatch().ordinal());
+        buffer.put((byte) (event.getHerb() == null ? -1 : event.getHerb().ordinal()));
+        buffer.put((byte) (event.getCompost() == null ? -1 : event.getCompost().ordinal()));
+        buffer.putShort((short) event.getHerbs());
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                this.channel.write(buffer);
+            }
+            this.dirty = true;
+        } catch (IOException e) {
+            log.warn("Failed to write to harvest log", e);
+        }
+    }
+
+    private void sync() {
+        if (!this.dirty || !this.channel.isOpen()) {
+            return;
+        }
+        try {
+            this.channel.force(false);
+            this.dirty = false;
+        } catch (IOException e) {
+            log.warn("Failed to sync harvest log", e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package me.lucaspickering.history;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import me.lucaspickering.utils.Compost;
+import me.lucaspickering.utils.Herb;
+import me.lucaspickering.utils.HerbPatch;
+
+/**
+ * Totals of real runs from a {@link HarvestLog}, grouped by herb, patch and
+ * compost, so they can be compared against the calculator's expected yield.
+ * <p>
+ * A run starts when a seed is planted and ends when the next seed is planted
+ * in the same patch. A run with no harvest counts as 0 herbs, since the patch
+ * must have died. Runs that haven't ended yet aren't counted, since they may
+ * still be growing.
+ * <p>
+ * Summaries handed out by {@link HarvestLog#getSummary()} are snapshots and
+ * never change, so they can be read from any thread.
+ */
+public class HarvestSummary {
+
+    private static final int PATCHES = HerbPatch.values().length;
+    private static final int COMPOSTS = Compost.values().length;
+
+    // Totals, indexed by index()
+    private final int[] runs = new int[Herb.values().length * PATCHES * COMPOSTS];
+    private final long[] herbs = new long[this.runs.length];
+    private final int[] resurrectCasts = new int[this.runs.length];
+
+    // Runs in progress, indexed by patch ordinal
+    private final Herb[] plantedHerbs = new Herb[PATCHES];
+    private final Compost[] plantedComposts = new Compost[PATCHES];
+    private final int[] pendingHerbs = new int[PATCHES];
+    private final int[] pendingCasts = new int[PATCHES];
+
+    HarvestSummary() {
+    }
+
+    /**
+     * Copy another summary, including its runs in progress
+     */
+    HarvestSummary(HarvestSummary other) {
+        System.arraycopy(other.runs, 0, this.runs, 0, this.runs.length);
+        System.arraycopy(other.herbs, 0, this.herbs, 0, this.herbs.length);
+        System.arraycopy(other.resurrectCasts, 0, this.resurrectCasts, 0, this.resurrectCasts.length);
+        System.arraycopy(other.plantedHerbs, 0, this.plantedHerbs, 0, PATCHES);
+        System.arraycopy(other.plantedComposts, 0, this.plantedComposts, 0, PATCHES);
+        System.arraycopy(other.pendingHerbs, 0, this.pendingHerbs, 0, PATCHES);
+        System.arraycopy(other.pendingCasts, 0, this.pendingCasts, 0, PATCHES);
+    }
+
+    /**
+     * Read a whole log and total it up
+     */
+    public static HarvestSummary read(Path path) throws IOException {
+        HarvestSummary summary = new HarvestSummary();
+        HarvestLog.read(path, summary::add);
+        return summary;
+    }
+
+    /**
+     * Get the number of finished runs for a herb+patch+compost combo
+     */
+    public int getRuns(Herb herb, HerbPatch patch, Compost compost) {
+        return this.runs[index(herb, patch, compost)];
+    }
+
+    /**
+     * Get the total number of herbs from all finished runs of a
+     * herb+patch+compost combo
+     */
+    public long getHerbs(Herb herb, HerbPatch patch, Compost compost) {
+        return this.herbs[index(herb, patch, compost)];
+    }
+
+    /**
+     * Get the number of Resurrect Crops casts across all finished runs of a
+     * herb+patch+compost combo
+     */
+    public int getResurrectCasts(Herb herb, HerbPatch patch, Compost compost) {
+        return this.resurrectCasts[index(herb, patch, compost)];
+    }
+
+    /**
+     * Get the average herbs per run for a herb+patch+compost combo. This is
+     * comparable to {@link me.lucaspickering.utils.HerbPatchResult#getExpectedYield()}.
+     *
+     * @return Average yield, or NaN if there are no finished runs
+     */
+    public double getObservedYield(Herb herb, HerbPatch patch, Compost compost) {
+        int index = index(herb, patch, compost);
+        return this.runs[index] == 0 ? Double.NaN : (double) this.herbs[index] / this.runs[index];
+    }
+
+    /**
+     * Count one more event. Events must be added in the order they happened.
+     */
+    void add(HarvestEvent event) {
+        int patch = event.getPatch().ordinal();
+        switch (event.getType()) {
+            case PLANTED:
+                // Planting ends the previous run in this patch
+                if (this.plantedHerbs[patch] != null) {
+                    int index = index(this.plantedHerbs[patch], event.getPatch(), this.plantedComposts[patch]);
+                    this.runs[index]++;
+                    this.herbs[index] += this.pendingHerbs[patch];
+                    this.resurrectCasts[index] += this.pendingCasts[patch];
+                }
+                this.plantedHerbs[patch] = event.getHerb();
+                this.plantedComposts[patch] = event.getCompost();
+                this.pendingHerbs[patch] = 0;
+                this.pendingCasts[patch] = 0;
+                break;
+            case RESURRECT_CAST:
+                this.pendingCasts[patch]++;
+                break;
+            case HARVESTED:
+                // Ignore harvests of herbs we didn't see planted
+                if (event.getHerb() == this.plantedHerbs[patch]) {
+                    this.pendingHerbs[patch] += event.getHerbs();
+                }
+                break;
+        }
+    }
+
+    private static int index(Herb herb, HerbPatch patch, Compost compost) {
+        return (herb.ordinal() * PATCHES + patch.ordinal()) * COMPOSTS + compost.ordinal();
+    }
+}
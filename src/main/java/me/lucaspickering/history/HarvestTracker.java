@@ -0,0 +1,193 @@
+package me.lucaspickering.history;
+
+import lombok.extern.slf4j.Slf4j;
+import me.lucaspickering.HerbFarmCalculatorConfig;
+import me.lucaspickering.utils.Compost;
+import me.lucaspickering.utils.Herb;
+import me.lucaspickering.utils.HerbPatch;
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.Client;
+import net.runelite.api.InventoryID;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.Player;
+import net.runelite.api.Skill;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.StatChanged;
+
+/**
+ * Watches game events to work out what actually happens on each herb run,
+ * and writes it to a {@link HarvestLog}. Mostly this goes off inventory
+ * changes while standing at a patch, since those are more reliable than chat
+ * messages:
+ * <ul>
+ * <li>A seed leaving the inventory means it was planted</li>
+ * <li>Grimy herbs entering the inventory means they were picked</li>
+ * <li>Compost leaving the inventory means it was spread</li>
+ * </ul>
+ * A harvest is finished when the game says the patch is empty, or when the
+ * next seed is planted in it. Patches that die never get a harvest, which
+ * shows up as a run with 0 herbs.
+ * <p>
+ * All handlers must be called on the client thread. They only do a little
+ * bookkeeping; the actual writing happens on the log's executor.
+ */
+@Slf4j
+public class HarvestTracker {
+
+    static final String PATCH_EMPTY_MESSAGE = "The herb patch is now empty.";
+    /**
+     * Magic XP for a cast of Resurrect Crops. It's granted whether or not the
+     * spell succeeds.
+     */
+    static final int RESURRECT_CROPS_XP = 90;
+
+    private static final Herb[] HERBS = Herb.values();
+    private static final Compost[] COMPOSTS = Compost.values();
+
+    private final Client client;
+    private final HerbFarmCalculatorConfig config;
+    private final HarvestLog harvestLog;
+
+    /**
+     * Previous inventory counts of each herb's seed and grimy herb, indexed
+     * by herb ordinal
+     */
+    private final int[] seedCounts = new int[HERBS.length];
+    private final int[] grimyCounts = new int[HERBS.length];
+    /**
+     * Previous inventory count of each compost, indexed by compost ordinal
+     */
+    private final int[] compostCounts = new int[COMPOSTS.length];
+    private boolean inventoryKnown = false;
+    private int magicXp = -1;
+
+    // Harvests in progress, indexed by patch ordinal
+    private final Herb[] harvestingHerbs = new Herb[HerbPatch.values().length];
+    private final int[] harvestedCounts = new int[HerbPatch.values().length];
+    /**
+     * Last compost spread on each patch since it was planted, or null if we
+     * didn't see any (e.g. from a bottomless bucket)
+     */
+    private final Compost[] spreadCompost = new Compost[HerbPatch.values().length];
+
+    public HarvestTracker(Client client, HerbFarmCalculatorConfig config, HarvestLog harvestLog) {
+        this.client = client;
+        this.config = config;
+        this.harvestLog = harvestLog;
+    }
+
+    public void onItemContainerChanged(ItemContainerChanged event) {
+        if (event.getContainerId() != InventoryID.INVENTORY.getId()) {
+            return;
+        }
+        ItemContainer inventory = event.getItemContainer();
+        HerbPatch patch = this.getCurrentPatch();
+        boolean compare = this.inventoryKnown && patch != null;
+        long now = System.currentTimeMillis();
+
+        for (Compost compost : COMPOSTS) {
+            if (compost.getItem() < 0) {
+                continue;
+            }
+            int count = inventory.count(compost.getItem());
+            if (compare && count < this.compostCounts[compost.ordinal()]) {
+                this.spreadCompost[patch.ordinal()] = compost;
+            }
+            this.compostCounts[compost.ordinal()] = count;
+        }
+
+        for (Herb herb : HERBS) {
+            int seeds = inventory.count(herb.getSeedItem());
+            int grimy = inventory.count(herb.getGrimyHerbItem());
+            if (compare && seeds < this.seedCounts[herb.ordinal()]) {
+                this.onPlanted(patch, herb, now);
+            }
+            if (compare && grimy > this.grimyCounts[herb.ordinal()]) {
+                this.harvestingHerbs[patch.ordinal()] = herb;
+                this.harvestedCounts[patch.ordinal()] += grimy - this.grimyCounts[herb.ordinal()];
+            }
+            this.seedCounts[herb.ordinal()] = seeds;
+            this.grimyCounts[herb.ordinal()] = grimy;
+        }
+        this.inventoryKnown = true;
+    }
+
+    public void onChatMessage(ChatMessage event) {
+        if (event.getType() != ChatMessageType.GAMEMESSAGE && event.getType() != ChatMessageType.SPAM) {
+            return;
+        }
+        if (PATCH_EMPTY_MESSAGE.equals(event.getMessage())) {
+            HerbPatch patch = this.getCurrentPatch();
+            if (patch != null) {
+                this.finishHarvest(patch, System.currentTimeMillis());
+            }
+        }
+    }
+
+    public void onStatChanged(StatChanged event) {
+        if (event.getSkill() != Skill.MAGIC) {
+            return;
+        }
+        int xp = event.getXp();
+        if (this.magicXp >= 0 && xp - this.magicXp == RESURRECT_CROPS_XP) {
+            HerbPatch patch = this.getCurrentPatch();
+            if (patch != null) {
+                this.harvestLog.append(new HarvestEvent(HarvestEvent.Type.RESURRECT_CAST,
+                        System.currentTimeMillis(), patch, null, null, 0));
+            }
+        }
+        this.magicXp = xp;
+    }
+
+    /**
+     * Forget everything about the inventory, e.g. after logging out, so we
+     * don't compare against another account's items
+     */
+    public void reset() {
+        this.inventoryKnown = false;
+        this.magicXp = -1;
+    }
+
+    /**
+     * Write any harvests still in progress. Call this before closing the log.
+     */
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (HerbPatch patch : HerbPatch.values()) {
+            this.finishHarvest(patch, now);
+        }
+    }
+
+    private void onPlanted(HerbPatch patch, Herb herb, long now) {
+        // Anything picked before this was from the previous run
+        this.finishHarvest(patch, now);
+        Compost compost = this.spreadCompost[patch.ordinal()];
+        if (compost == null) {
+            compost = this.config.compost();
+        }
+        this.harvestLog.append(new HarvestEvent(HarvestEvent.Type.PLANTED, now, patch, herb, compost, 0));
+        this.spreadCompost[patch.ordinal()] = null;
+        log.debug("Planted {} in {} with {}", herb.getName(), patch.getName(), compost.getName());
+    }
+
+    private void finishHarvest(HerbPatch patch, long now) {
+        Herb herb = this.harvestingHerbs[patch.ordinal()];
+        if (herb == null) {
+            return;
+        }
+        int herbs = this.harvestedCounts[patch.ordinal()];
+        this.harvestLog.append(new HarvestEvent(HarvestEvent.Type.HARVESTED, now, patch, herb, null, herbs));
+        this.harvestingHerbs[patch.ordinal()] = null;
+        this.harvestedCounts[patch.ordinal()] = 0;
+        log.debug("Harvested {} {} from {}", herbs, herb.getName(), patch.getName());
+    }
+
+    private HerbPatch getCurrentPatch() {
+        Player player = this.client.getLocalPlayer();
+        if (player == null) {
+            return null;
+        }
+        return HerbPatch.fromRegion(player.getWorldLocation().getRegionID());
+    }
+}
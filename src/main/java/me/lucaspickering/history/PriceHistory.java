@@ -0,0 +1,271 @@
+package me.lucaspickering.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+import me.lucaspickering.PriceSource;
+
+/**
+ * A history of prices for a fixed set of items, stored in a memory-mapped
+ * file. Each item gets a ring buffer of fixed-size records, so the file never
+ * grows and old observations are overwritten once it's full. All reads and
+ * writes go straight to the mapped file, so a long history doesn't cost any
+ * heap.
+ * <p>
+ * File layout (all big-endian):
+ * <pre>
+ * header:      magic (int), version (int), items (int), slots per item (int)
+ * per item:    item ID (int), next slot (int), count (int), unused (int)
+ *              then [slots per item] records of:
+ *              timestamp millis (long), price (int), unused (int)
+ * </pre>
+ * If the file doesn't match the expected items or slot count (e.g. after an
+ * update that tracks new items), it's wiped and started over.
+ */
+@Slf4j
+public class PriceHistory implements Closeable {
+
+    private static final int MAGIC = 0x48465048; // "HFPH"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int ITEM_HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 16;
+
+    /**
+     * Observations closer together than this are skipped, so frequent
+     * refreshes don't eat the whole ring buffer
+     */
+    public static final long MIN_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    /**
+     * One week of history at {@link #MIN_INTERVAL_MILLIS}
+     */
+    public static final int DEFAULT_SLOTS_PER_ITEM = 2016;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    /**
+     * Tracked item IDs, sorted so they can be binary searched. An item's
+     * index in here is its index in the file.
+     */
+    private final int[] itemIds;
+    private final int slotsPerItem;
+
+    private PriceHistory(FileChannel channel, MappedByteBuffer buffer, int[] itemIds, int slotsPerItem) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.itemIds = itemIds;
+        this.slotsPerItem = slotsPerItem;
+    }
+
+    /**
+     * Open a history file, creating it if it doesn't exist
+     *
+     * @param path         Path to the file
+     * @param itemIds      Every item to track
+     * @param slotsPerItem Number of observations to keep for each item
+     * @return Open history. Close it when done.
+     */
+    public static PriceHistory open(Path path, int[] itemIds, int slotsPerItem) throws IOException {
+        int[] sortedIds = itemIds.clone();
+        Arrays.sort(sortedIds);
+        long size = HEADER_BYTES + (long) sortedIds.length * itemBytes(slotsPerItem);
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            boolean valid = channel.size() == size && isValid(channel, sortedIds, slotsPerItem);
+            if (!valid) {
+                if (channel.size() > 0) {
+                    log.info("Price history at {} doesn't match the tracked items, starting over", path);
+                }
+                // Mapping past the end of the file grows it with zeroes, so
+                // truncating gives us a blank file
+                channel.truncate(0);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            PriceHistory history = new PriceHistory(channel, buffer, sortedIds, slotsPerItem);
+            if (!valid) {
+                history.initialize();
+            }
+            return history;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Record the current price of every tracked item. Items that were
+     * recorded less than {@link #MIN_INTERVAL_MILLIS} ago are skipped, as are
+     * items without a price (e.g. before prices have loaded), which would
+     * otherwise drag down the average.
+     *
+     * @param priceSource Where to get current prices
+     * @param now         Current time, in epoch millis
+     * @return Number of items recorded
+     */
+    public synchronized int record(PriceSource priceSource, long now) {
+        int recorded = 0;
+        for (int item = 0; item < this.itemIds.length; item++) {
+            int itemOffset = this.itemOffset(item);
+            int next = this.buffer.getInt(itemOffset + 4);
+            int count = this.buffer.getInt(itemOffset + 8);
+            if (count > 0) {
+                int last = (next - 1 + this.slotsPerItem) % this.slotsPerItem;
+                long lastTime = this.buffer.getLong(this.recordOffset(itemOffset, last));
+                if (now - lastTime < MIN_INTERVAL_MILLIS) {
+                    continue;
+                }
+            }
+
+            int price = priceSource.getItemPrice(this.itemIds[item]);
+            if (price <= 0) {
+                continue;
+            }
+
+            int recordOffset = this.recordOffset(itemOffset, next);
+            this.buffer.putLong(recordOffset, now);
+            this.buffer.putInt(recordOffset + 8, price);
+            this.buffer.putInt(itemOffset + 4, (next + 1) % this.slotsPerItem);
+            this.buffer.putInt(itemOffset + 8, Math.min(count + 1, this.slotsPerItem));
+            recorded++;
+        }
+        return recorded;
+    }
+
+    /**
+     * Get stats for an item's price over a window of time
+     *
+     * @param itemId       Item to look up
+     * @param windowMillis How far back to look
+     * @param now          Current time, in epoch millis
+     * @return Stats for every observation in the window. Empty if the item
+     * isn't tracked or has no observations in the window.
+     */
+    public synchronized PriceStats getStats(int itemId, long windowMillis, long now) {
+        PriceStats.Builder stats = new PriceStats.Builder();
+        this.forEach(itemId, now - windowMillis, now, stats::add);
+        return stats.build();
+    }
+
+    /**
+     * Visit every observation of an item in a time range, oldest first
+     *
+     * @param itemId   Item to look up
+     * @param from     Start of the range (inclusive), in epoch millis
+     * @param to       End of the range (inclusive), in epoch millis
+     * @param observer Called with each observation
+     */
+    public synchronized void forEach(int itemId, long from, long to, PriceObserver observer) {
+        int item = Arrays.binarySearch(this.itemIds, itemId);
+        if (item < 0) {
+            return;
+        }
+        int itemOffset = this.itemOffset(item);
+        int next = this.buffer.getInt(itemOffset + 4);
+        int count = this.buffer.getInt(itemOffset + 8);
+
+        // Walk backwards from the newest until we leave the range, then
+        // replay forwards so observers see them in order
+        int visible = 0;
+        for (; visible < count; visible++) {
+            int slot = (next - 1 - visible + this.slotsPerItem) % this.slotsPerItem;
+            if (this.buffer.getLong(this.recordOffset(itemOffset, slot)) < from) {
+                break;
+            }
+        }
+        for (int i = visible - 1; i >= 0; i--) {
+            int recordOffset = this.recordOffset(itemOffset, (next - 1 - i + this.slotsPerItem) % this.slotsPerItem);
+            long timestamp = this.buffer.getLong(recordOffset);
+            if (timestamp <= to) {
+                observer.accept(timestamp, this.buffer.getInt(recordOffset + 8));
+            }
+        }
+    }
+
+    /**
+     * Get a price source that averages each item's price over a window,
+     * falling back to another source for items with no history
+     *
+     * @param windowMillis How far back to average over
+     * @param now          Current time, in epoch millis
+     * @param fallback     Source for items with no observations in the window
+     */
+    public PriceSource smoothed(long windowMillis, long now, PriceSource fallback) {
+        return itemId -> {
+            PriceStats stats = this.getStats(itemId, windowMillis, now);
+            return stats.getCount() > 0 ? (int) Math.round(stats.getAverage()) : fallback.getItemPrice(itemId);
+        };
+    }
+
+    /**
+     * Flush everything to disk
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        this.buffer.force();
+        this.channel.close();
+    }
+
+    private void initialize() {
+        this.buffer.putInt(0, MAGIC);
+        this.buffer.putInt(4, VERSION);
+        this.buffer.putInt(8, this.itemIds.length);
+        this.buffer.putInt(12, this.slotsPerItem);
+        for (int item = 0; item < this.itemIds.length; item++) {
+            this.buffer.putInt(this.itemOffset(item), this.itemIds[item]);
+        }
+    }
+
+    private int itemOffset(int item) {
+        return HEADER_BYTES + item * itemBytes(this.slotsPerItem);
+    }
+
+    private int recordOffset(int itemOffset, int slot) {
+        return itemOffset + ITEM_HEADER_BYTES + slot * RECORD_BYTES;
+    }
+
+    private static int itemBytes(int slotsPerItem) {
+        return ITEM_HEADER_BYTES + slotsPerItem * RECORD_BYTES;
+    }
+
+    /**
+     * Check that an existing file has the layout we expect
+     */
+    private static boolean isValid(FileChannel channel, int[] itemIds, int slotsPerItem) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        channel.read(header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != itemIds.length
+                || header.getInt(12) != slotsPerItem) {
+            return false;
+        }
+        ByteBuffer itemId = ByteBuffer.allocate(4);
+        for (int item = 0; item < itemIds.length; item++) {
+            itemId.clear();
+            channel.read(itemId, HEADER_BYTES + (long) item * itemBytes(slotsPerItem));
+            if (itemId.getInt(0) != itemIds[item]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Receives price observations without boxing
+     */
+    @FunctionalInterface
+    public interface PriceObserver {
+        void accept(long timestamp, int price);
+    }
+}
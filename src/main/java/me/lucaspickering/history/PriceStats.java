@@ -0,0 +1,43 @@
+package me.lucaspickering.history;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Summary of an item's price over a window of time
+ */
+@AllArgsConstructor
+@Getter
+public class PriceStats {
+    /**
+     * Number of observations in the window. Everything else is 0 if this is.
+     */
+    private final int count;
+    private final double average;
+    private final int min;
+    private final int max;
+
+    /**
+     * Accumulates observations one at a time
+     */
+    static class Builder {
+        private int count = 0;
+        private long total = 0;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+
+        void add(long timestamp, int price) {
+            this.count++;
+            this.total += price;
+            this.min = Math.min(this.min, price);
+            this.max = Math.max(this.max, price);
+        }
+
+        PriceStats build() {
+            if (this.count == 0) {
+                return new PriceStats(0, 0.0, 0, 0);
+            }
+            return new PriceStats(this.count, (double) this.total / this.count, this.min, this.max);
+        }
+    }
+}
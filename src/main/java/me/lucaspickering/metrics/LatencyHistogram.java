@@ -0,0 +1,121 @@
+package me.lucaspickering.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations with fixed buckets, in the style of HdrHistogram.
+ * Durations are stored in microseconds. Values under 16us get a bucket each,
+ * and above that every power of 2 is split into 8 buckets, so any recorded
+ * value is within about 6% of its bucket's bounds. That covers 1us up to
+ * several days in a few hundred buckets, and recording never allocates.
+ * <p>
+ * All methods are thread-safe.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    /**
+     * Anything longer than 2^40 us (about 12 days) is clamped to this
+     */
+    private static final long MAX_MICROS = (1L << 40) - 1;
+    private static final int BUCKETS = getBucket(MAX_MICROS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Record a single duration
+     *
+     * @param nanos Duration in nanoseconds, e.g. the difference of two
+     *              {@link System#nanoTime()} calls
+     */
+    public void record(long nanos) {
+        long micros = Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0L), MAX_MICROS);
+        this.counts.incrementAndGet(getBucket(micros));
+        this.count.incrementAndGet();
+        this.totalMicros.addAndGet(micros);
+        long max;
+        do {
+            max = this.maxMicros.get();
+        } while (micros > max && !this.maxMicros.compareAndSet(max, micros));
+    }
+
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * Get the average duration in microseconds, or 0 if nothing's been
+     * recorded
+     */
+    public double getMeanMicros() {
+        long count = this.count.get();
+        return count == 0 ? 0.0 : (double) this.totalMicros.get() / count;
+    }
+
+    public long getMaxMicros() {
+        return this.maxMicros.get();
+    }
+
+    /**
+     * Get the duration that a fraction of recordings were at or below. This
+     * is the upper bound of the bucket the percentile falls in, so it may
+     * overestimate by a few percent.
+     *
+     * @param percentile Fraction of recordings, between 0 and 1
+     * @return Duration in microseconds, or 0 if nothing's been recorded
+     */
+    public long getPercentileMicros(double percentile) {
+        long count = this.count.get();
+        if (count == 0) {
+            return 0L;
+        }
+        long target = Math.max(1L, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += this.counts.get(bucket);
+            if (seen >= target) {
+                return Math.min(getUpperBound(bucket), this.maxMicros.get());
+            }
+        }
+        return this.maxMicros.get();
+    }
+
+    /**
+     * Forget every recording
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            this.counts.set(bucket, 0L);
+        }
+        this.count.set(0L);
+        this.totalMicros.set(0L);
+        this.maxMicros.set(0L);
+    }
+
+    private static int getBucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        // Keep the top SUB_BUCKET_BITS bits of the value. The first of those
+        // is always 1, so that leaves HALF_SUB_BUCKETS buckets per power of 2.
+        int shift = 64 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        int subBucket = (int) (micros >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (subBucket - HALF_SUB_BUCKETS);
+    }
+
+    private static long getUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long subBucket = (bucket - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,185 @@
+package me.lucaspickering.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Timings (and allocations, where the JVM can tell us) for each stage of
+ * refreshing the panel. This is cheap enough to leave on all the time, so
+ * when someone says the panel is slow we can tell whether it's our code or
+ * the client thread being busy.
+ */
+@Slf4j
+public class PanelMetrics {
+
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+    private final Map<Stage, AtomicLong> allocatedBytes = new EnumMap<>(Stage.class);
+    private final boolean allocationSupported = isAllocationSupported();
+
+    public PanelMetrics() {
+        for (Stage stage : Stage.values()) {
+            this.histograms.put(stage, new LatencyHistogram());
+            this.allocatedBytes.put(stage, new AtomicLong());
+        }
+    }
+
+    /**
+     * Start measuring a stage on the current thread. Call
+     * {@link Sample#stop()} on the same thread when it's done.
+     */
+    public Sample start(Stage stage) {
+        return new Sample(stage, System.nanoTime(), this.getAllocatedBytes());
+    }
+
+    /**
+     * Record a stage that started at a known time, e.g. the wait for another
+     * thread to pick up a task. Allocations aren't tracked for these.
+     *
+     * @param startNanos Result of {@link System#nanoTime()} when the stage
+     *                   started
+     */
+    public void recordSince(Stage stage, long startNanos) {
+        this.histograms.get(stage).record(System.nanoTime() - startNanos);
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) {
+        return this.histograms.get(stage);
+    }
+
+    /**
+     * Get one line of stats per stage, e.g. "Calculate: n=12 p50=850us
+     * p99=2.1ms max=2.3ms, 410 KB/run"
+     */
+    public List<String> getSummary() {
+        List<String> lines = new ArrayList<>(Stage.values().length);
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram histogram = this.histograms.get(stage);
+            long count = histogram.getCount();
+            StringBuilder line = new StringBuilder(stage.getName()).append(": n=").append(count);
+            if (count > 0) {
+                line.append(" p50=").append(formatMicros(histogram.getPercentileMicros(0.5)))
+                        .append(" p99=").append(formatMicros(histogram.getPercentileMicros(0.99)))
+                        .append(" max=").append(formatMicros(histogram.getMaxMicros()));
+                if (stage.isAllocationTracked() && this.allocationSupported) {
+                    line.append(String.format(", %d KB/run", this.allocatedBytes.get(stage).get() / count / 1024));
+                }
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Write every stage's stats to the log
+     */
+    public void dump() {
+        for (String line : this.getSummary()) {
+            log.info(line);
+        }
+    }
+
+    /**
+     * Forget everything recorded so far
+     */
+    public void reset() {
+        for (Stage stage : Stage.values()) {
+            this.histograms.get(stage).reset();
+            this.allocatedBytes.get(stage).set(0L);
+        }
+    }
+
+    /**
+     * Bytes allocated by the current thread so far, or 0 if the JVM doesn't
+     * support counting that
+     */
+    private long getAllocatedBytes() {
+        if (!this.allocationSupported) {
+            return 0L;
+        }
+        return ((com.sun.management.ThreadMXBean) THREAD_BEAN)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static boolean isAllocationSupported() {
+        try {
+            return THREAD_BEAN instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) THREAD_BEAN).isThreadAllocatedMemorySupported()
+                    && ((com.sun.management.ThreadMXBean) THREAD_BEAN).isThreadAllocatedMemoryEnabled();
+        } catch (LinkageError e) {
+            // Not every JVM has the com.sun.management extensions
+            return false;
+        }
+    }
+
+    private static String formatMicros(long micros) {
+        if (micros >= 1_000_000L) {
+            return String.format("%.1fs", micros / 1_000_000.0);
+        }
+        if (micros >= 1_000L) {
+            return String.format("%.1fms", micros / 1_000.0);
+        }
+        return micros + "us";
+    }
+
+    /**
+     * A measurement in progress
+     */
+    public class Sample {
+        private final Stage stage;
+        private final long startNanos;
+        private final long startBytes;
+
+        private Sample(Stage stage, long startNanos, long startBytes) {
+            this.stage = stage;
+            this.startNanos = startNanos;
+            this.startBytes = startBytes;
+        }
+
+        /**
+         * Finish the measurement and record it
+         */
+        public void stop() {
+            PanelMetrics.this.histograms.get(this.stage).record(System.nanoTime() - this.startNanos);
+            PanelMetrics.this.allocatedBytes.get(this.stage).addAndGet(
+                    PanelMetrics.this.getAllocatedBytes() - this.startBytes);
+        }
+    }
+
+    /**
+     * Each part of a panel refresh that gets timed
+     */
+    @AllArgsConstructor
+    @Getter
+    public enum Stage {
+        /**
+         * From asking for a refresh until the client thread picks it up.
+         * This is how busy the client is, not anything we do.
+         */
+        CLIENT_THREAD_WAIT("Client thread wait", false),
+        /**
+         * Reading game state and config on the client thread
+         */
+        CAPTURE("Capture", true),
+        CALCULATE("Calculate", true),
+        /**
+         * Everything else that runs in the background: the loadout sweep,
+         * optimizer and harvest summary, when enabled
+         */
+        EXTRAS("Extras", true),
+        RENDER("Render", true);
+
+        private final String name;
+        private final boolean allocationTracked;
+    }
+}
@@ -0,0 +1,214 @@
+package me.lucaspickering.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+import me.lucaspickering.utils.HerbPatchResult;
+import me.lucaspickering.utils.PatchModel;
+import me.lucaspickering.utils.YieldDistribution;
+
+/**
+ * A Monte Carlo engine for herb farming. Rather than using the closed-form
+ * math of the calculator, this plays out many individual herb patches roll by
+ * roll and averages the outcomes. It's used to check the calculator's output,
+ * so it intentionally shares none of the calculator's probability math.
+ * <p>
+ * Trials are split across a fork-join pool, so this will use every core it's
+ * given.
+ */
+@Slf4j
+public class HerbFarmSimulator {
+
+    /**
+     * Trials per combo in the first round of an adaptive simulation. Each
+     * round after that doubles it.
+     */
+    private static final long INITIAL_BATCH_TRIALS = 4096;
+    /**
+     * Most trials in one round across all combos, so rounds stay short (well
+     * under a second) and a cancellation is noticed quickly even when many
+     * combos need a lot of trials
+     */
+    private static final long MAX_ROUND_TRIALS = 1 << 20;
+    /**
+     * Standard errors in the half-width of a 95% confidence interval
+     */
+    private static final double Z_95 = 1.96;
+
+    private final ForkJoinPool pool;
+    private final SplittableRandom seedRandom;
+
+    public HerbFarmSimulator() {
+        this(ForkJoinPool.commonPool(), System.nanoTime());
+    }
+
+    /**
+     * @param pool Pool to run trials on
+     * @param seed Seed for the random number generator. Two simulators with
+     *             the same seed produce the same results.
+     */
+    public HerbFarmSimulator(ForkJoinPool pool, long seed) {
+        this.pool = pool;
+        this.seedRandom = new SplittableRandom(seed);
+    }
+
+    /**
+     * Simulate a single herb+patch combo
+     *
+     * @param model  Inputs for the combo
+     * @param trials Number of trials to run
+     * @return Average outcome of all trials
+     */
+    public HerbPatchResult simulate(PatchModel model, long trials) {
+        return toResult(model, this.pool.invoke(this.createTask(model, trials)));
+    }
+
+    /**
+     * Simulate many herb+patch combos at once. All combos are run
+     * concurrently, so this is much faster than simulating them one by one.
+     *
+     * @param models Inputs for each combo
+     * @param trials Number of trials to run for *each* combo
+     * @return Average outcome of each combo, in the same order as the input
+     */
+    public List<HerbPatchResult> simulate(List<PatchModel> models, long trials) {
+        long start = System.nanoTime();
+        List<SimulationTask> tasks = models.stream()
+                .map(model -> this.createTask(model, trials))
+                .collect(Collectors.toList());
+        this.pool.invoke(new ForkJoinTaskGroup(tasks));
+
+        List<HerbPatchResult> results = new ArrayList<>(models.size());
+        for (int i = 0; i < models.size(); i++) {
+            results.add(toResult(models.get(i), tasks.get(i).join()));
+        }
+        log.debug("Simulated {} trials in {} ms", trials * models.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return results;
+    }
+
+    /**
+     * Simulate many herb+patch combos until every average is precise enough,
+     * rather than for a fixed number of trials. Trials are run in rounds,
+     * doubling each time, and a combo stops getting trials as soon as the 95%
+     * confidence interval of each of its averages is within the tolerance
+     * (see {@link SimulationAccumulator#isWithinTolerance}). Combos that are
+     * easy to pin down (e.g. disease-free patches) finish after one round.
+     * Rounds are capped at {@link #MAX_ROUND_TRIALS} in total, so later
+     * rounds stop doubling once they're that big.
+     * <p>
+     * After every round, the listener gets the current estimates, so a rough
+     * answer can be shown within milliseconds and then refined. The
+     * simulation also stops early if the calling thread is interrupted.
+     *
+     * @param models    Inputs for each combo
+     * @param tolerance Precision to stop at, e.g. 0.01 for 1%
+     * @param maxTrials Most trials to run for any one combo, even if it
+     *                  hasn't reached the tolerance
+     * @param listener  Called after each round. Return false to stop early.
+     * @return Final estimate for each combo, in the same order as the input
+     */
+    public List<HerbPatchResult> simulate(List<PatchModel> models, double tolerance, long maxTrials,
+            ProgressListener listener) {
+        long start = System.nanoTime();
+        List<SimulationAccumulator> accs = new ArrayList<>(models.size());
+        for (int i = 0; i < models.size(); i++) {
+            accs.add(new SimulationAccumulator());
+        }
+
+        long batchTrials = INITIAL_BATCH_TRIALS;
+        long totalTrials = 0;
+        int rounds = 0;
+        while (true) {
+            // Only run the combos that still need it
+            List<Integer> pending = new ArrayList<>();
+            for (int i = 0; i < models.size(); i++) {
+                SimulationAccumulator acc = accs.get(i);
+                if (acc.getTrials() < maxTrials
+                        && (acc.getTrials() == 0 || !acc.isWithinTolerance(tolerance, Z_95))) {
+                    pending.add(i);
+                }
+            }
+            boolean done = pending.isEmpty();
+            if (!done) {
+                List<SimulationTask> tasks = new ArrayList<>(pending.size());
+                long roundTrials = Math.min(batchTrials,
+                        Math.max(INITIAL_BATCH_TRIALS, MAX_ROUND_TRIALS / pending.size()));
+                for (int i : pending) {
+                    long trials = Math.min(roundTrials, maxTrials - accs.get(i).getTrials());
+                    tasks.add(this.createTask(models.get(i), trials));
+                    totalTrials += trials;
+                }
+                this.pool.invoke(new ForkJoinTaskGroup(tasks));
+                for (int t = 0; t < tasks.size(); t++) {
+                    accs.get(pending.get(t)).merge(tasks.get(t).join());
+                }
+                batchTrials *= 2;
+                rounds++;
+            }
+
+            List<HerbPatchResult> results = new ArrayList<>(models.size());
+            for (int i = 0; i < models.size(); i++) {
+                results.add(toResult(models.get(i), accs.get(i)));
+            }
+            if (done || Thread.currentThread().isInterrupted()
+                    || !listener.onProgress(results, totalTrials, pending.size())) {
+                log.debug("Simulated {} trials in {} rounds in {} ms", totalTrials, rounds,
+                        (System.nanoTime() - start) / 1_000_000);
+                return results;
+            }
+        }
+    }
+
+    private synchronized SimulationTask createTask(PatchModel model, long trials) {
+        // SplittableRandom isn't thread-safe, so only split it under a lock
+        return new SimulationTask(model, trials, this.seedRandom.split());
+    }
+
+    private static HerbPatchResult toResult(PatchModel model, SimulationAccumulator acc) {
+        double cost = model.getCompostCost() + model.getSeedCost()
+                + model.getResurrectRuneCost() * acc.getResurrectionCastRate();
+        double revenue = model.getHerbPrice() * acc.getAverageYield();
+        YieldDistribution yieldDistribution = acc.getYieldDistribution();
+        return new HerbPatchResult(model.getHerb(), model.getPatch(), acc.getSurvivalRate(),
+                acc.getAverageYield(), acc.getAverageXp(), cost, revenue, yieldDistribution,
+                yieldDistribution.getProbabilityOfLoss(model.getHerbPrice(), cost));
+    }
+
+    /**
+     * Receives interim estimates from an adaptive simulation
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * @param results     Current estimate for each combo
+         * @param totalTrials Trials run so far, across every combo
+         * @param pending     Number of combos that ran trials this round,
+         *                    i.e. hadn't reached the tolerance yet
+         * @return Whether to keep going
+         */
+        boolean onProgress(List<HerbPatchResult> results, long totalTrials, int pending);
+    }
+
+    /**
+     * A task that just runs a group of other tasks in parallel
+     */
+    private static class ForkJoinTaskGroup extends RecursiveAction {
+        private final List<? extends ForkJoinTask<?>> tasks;
+
+        ForkJoinTaskGroup(List<? extends ForkJoinTask<?>> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            ForkJoinTask.invokeAll(this.tasks);
+        }
+    }
+}
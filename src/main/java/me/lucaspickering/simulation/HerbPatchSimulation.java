@@ -0,0 +1,127 @@
+package me.lucaspickering.simulation;
+
+import java.util.SplittableRandom;
+
+import lombok.Getter;
+import me.lucaspickering.utils.Herb;
+import me.lucaspickering.utils.PatchModel;
+
+/**
+ * The state of a single simulated herb patch, from planting to harvest. This
+ * is a state machine that mirrors how the game grows, diseases, resurrects
+ * and harvests a patch, rolling every random event individually. One instance
+ * is reused for many trials to avoid allocating on the hot path.
+ */
+class HerbPatchSimulation {
+
+    // Growth stages vary 0-4, with 4 being fully grown
+    private static final int NUM_GROWTH_STAGES = 5;
+    private static final int FINAL_GROWTH_STAGE = NUM_GROWTH_STAGES - 1;
+
+    private static final int STATE_HEALTHY = 0;
+    private static final int STATE_DISEASED = 1;
+    private static final int STATE_DEAD = 2;
+
+    private final PatchModel model;
+    private final double xpFactor;
+
+    // Internal game state
+    private int lives;
+    private int growthStage;
+    private int state;
+    private boolean hasResurrected;
+
+    // Player outcomes
+    @Getter
+    private boolean resurrectionCast;
+    @Getter
+    private int herbsHarvested;
+    @Getter
+    private double xpGained;
+
+    HerbPatchSimulation(PatchModel model) {
+        this.model = model;
+        this.xpFactor = 1.0 + model.getXpBonus();
+    }
+
+    /**
+     * Run one full trial (plant, grow, harvest), overwriting the outcome of
+     * the previous one
+     */
+    void run(SplittableRandom random) {
+        this.lives = this.model.getHarvestLives();
+        this.growthStage = 0;
+        this.state = STATE_HEALTHY;
+        this.hasResurrected = false;
+        this.resurrectionCast = false;
+        this.herbsHarvested = 0;
+        // Compost XP is given when it's spread, so even dead patches get it
+        this.xpGained = this.model.getCompostXp() * this.xpFactor;
+
+        this.grow(random);
+        this.harvest(random);
+    }
+
+    boolean isAlive() {
+        return this.state == STATE_HEALTHY;
+    }
+
+    /**
+     * Progress herb growth until either death or adulthood
+     */
+    private void grow(SplittableRandom random) {
+        while (this.growthStage < FINAL_GROWTH_STAGE && this.state != STATE_DEAD) {
+            // Plant is healthy and still growing, roll for disease
+            if (this.state == STATE_HEALTHY && random.nextDouble() < this.model.getDiseaseChance()) {
+                // When disease is applied, the plant stops growing
+                this.state = STATE_DISEASED;
+            }
+
+            // If we try to grow while already diseased, the plant dies
+            // *without* progressing to the next stage
+            if (this.state == STATE_DISEASED) {
+                this.state = STATE_DEAD;
+            }
+
+            // If the plant is dead, attempt a resurrection. We can only
+            // attempt this once per crop.
+            if (this.state == STATE_DEAD && !this.hasResurrected) {
+                if (this.model.isUseResurrectCrops()) {
+                    this.resurrectionCast = true;
+                }
+                if (random.nextDouble() < this.model.getResurrectionChance()) {
+                    this.state = STATE_HEALTHY;
+                    this.hasResurrected = true;
+                    // Back to the beginning of this stage, we'll need to pass
+                    // the disease check again before growing
+                    continue;
+                }
+            }
+
+            if (this.state == STATE_HEALTHY) {
+                this.growthStage++;
+            }
+        }
+    }
+
+    /**
+     * Harvest this patch until exhaustion. If the patch died, does nothing.
+     */
+    private void harvest(SplittableRandom random) {
+        if (this.state != STATE_HEALTHY) {
+            return;
+        }
+
+        Herb herb = this.model.getHerb();
+        double chanceToSave = this.model.getChanceToSave();
+        while (this.lives > 0) {
+            this.herbsHarvested++;
+            if (random.nextDouble() >= chanceToSave) {
+                this.lives--;
+            }
+        }
+        // Plant XP isn't granted until the final harvest, which means dead
+        // herbs don't provide any
+        this.xpGained += (herb.getHarvestXp() * this.herbsHarvested + herb.getPlantXp()) * this.xpFactor;
+    }
+}
@@ -0,0 +1,58 @@
+package me.lucaspickering.simulation;
+
+import lombok.Getter;
+
+/**
+ * Mean and variance of a stream of values, updated one value at a time with
+ * Welford's algorithm so it stays accurate over billions of values. Two sets
+ * of stats can be merged (Chan et al.), so each task can keep its own and
+ * combine them at the end.
+ */
+@Getter
+public class RunningStats {
+    private long count;
+    private double mean;
+    /**
+     * Sum of squared differences from the mean
+     */
+    private double m2;
+
+    void add(double value) {
+        this.count++;
+        double delta = value - this.mean;
+        this.mean += delta / this.count;
+        this.m2 += delta * (value - this.mean);
+    }
+
+    /**
+     * Fold another set of stats into this one
+     *
+     * @return this
+     */
+    RunningStats merge(RunningStats other) {
+        if (other.count == 0) {
+            return this;
+        }
+        long count = this.count + other.count;
+        double delta = other.mean - this.mean;
+        this.mean += delta * other.count / count;
+        this.m2 += other.m2 + delta * delta * ((double) this.count * other.count / count);
+        this.count = count;
+        return this;
+    }
+
+    /**
+     * Get the sample variance, or 0 if there are fewer than 2 values
+     */
+    public double getVariance() {
+        return this.count < 2 ? 0.0 : this.m2 / (this.count - 1);
+    }
+
+    /**
+     * Get the standard error of the mean, i.e. how far the mean is likely to
+     * be from the true mean
+     */
+    public double getStandardError() {
+        return this.count < 2 ? Double.POSITIVE_INFINITY : Math.sqrt(this.getVariance() / this.count);
+    }
+}
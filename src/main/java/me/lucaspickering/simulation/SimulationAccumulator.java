@@ -0,0 +1,120 @@
+package me.lucaspickering.simulation;
+
+import java.util.Arrays;
+
+import lombok.Getter;
+import me.lucaspickering.utils.YieldDistribution;
+
+/**
+ * Running totals for a batch of simulated trials of a single herb+patch
+ * combo. Accumulators from different threads can be merged together, so each
+ * task can count on its own and the totals are combined at the end.
+ */
+@Getter
+public class SimulationAccumulator {
+    private long trials;
+    private long survived;
+    private long resurrectionCasts;
+    private long herbsHarvested;
+    private double xpGained;
+    /**
+     * Number of trials that yielded each number of herbs
+     */
+    private long[] yieldCounts = new long[32];
+    // Streaming stats, so we can tell how precise the averages are
+    private final RunningStats yieldStats = new RunningStats();
+    private final RunningStats xpStats = new RunningStats();
+    private final RunningStats survivalStats = new RunningStats();
+    private final RunningStats resurrectionCastStats = new RunningStats();
+
+    /**
+     * Record the outcome of a single trial
+     */
+    void addTrial(HerbPatchSimulation patch) {
+        this.trials++;
+        if (patch.isAlive()) {
+            this.survived++;
+        }
+        if (patch.isResurrectionCast()) {
+            this.resurrectionCasts++;
+        }
+        this.herbsHarvested += patch.getHerbsHarvested();
+        this.xpGained += patch.getXpGained();
+
+        int herbs = patch.getHerbsHarvested();
+        if (herbs >= this.yieldCounts.length) {
+            this.yieldCounts = Arrays.copyOf(this.yieldCounts, Math.max(herbs + 1, this.yieldCounts.length * 2));
+        }
+        this.yieldCounts[herbs]++;
+
+        this.yieldStats.add(herbs);
+        this.xpStats.add(patch.getXpGained());
+        this.survivalStats.add(patch.isAlive() ? 1.0 : 0.0);
+        this.resurrectionCastStats.add(patch.isResurrectionCast() ? 1.0 : 0.0);
+    }
+
+    /**
+     * Fold another accumulator's totals into this one
+     *
+     * @return this
+     */
+    SimulationAccumulator merge(SimulationAccumulator other) {
+        this.trials += other.trials;
+        this.survived += other.survived;
+        this.resurrectionCasts += other.resurrectionCasts;
+        this.herbsHarvested += other.herbsHarvested;
+        this.xpGained += other.xpGained;
+        if (other.yieldCounts.length > this.yieldCounts.length) {
+            this.yieldCounts = Arrays.copyOf(this.yieldCounts, other.yieldCounts.length);
+        }
+        for (int i = 0; i < other.yieldCounts.length; i++) {
+            this.yieldCounts[i] += other.yieldCounts[i];
+        }
+        this.yieldStats.merge(other.yieldStats);
+        this.xpStats.merge(other.xpStats);
+        this.survivalStats.merge(other.survivalStats);
+        this.resurrectionCastStats.merge(other.resurrectionCastStats);
+        return this;
+    }
+
+    public double getSurvivalRate() {
+        return (double) this.survived / this.trials;
+    }
+
+    public double getResurrectionCastRate() {
+        return (double) this.resurrectionCasts / this.trials;
+    }
+
+    public double getAverageYield() {
+        return (double) this.herbsHarvested / this.trials;
+    }
+
+    public double getAverageXp() {
+        return this.xpGained / this.trials;
+    }
+
+    /**
+     * Check whether the averages are precise enough. Yield and XP are
+     * compared relative to their means, since they vary a lot between herbs.
+     * Survival and resurrection rates are already fractions, so they're
+     * compared directly.
+     *
+     * @param tolerance Largest acceptable half-width of the confidence
+     *                  interval, e.g. 0.01 for 1%
+     * @param z         Number of standard errors in the half-width, e.g. 1.96
+     *                  for a 95% confidence interval
+     */
+    public boolean isWithinTolerance(double tolerance, double z) {
+        return z * this.yieldStats.getStandardError() <= tolerance * Math.abs(this.yieldStats.getMean())
+                && z * this.xpStats.getStandardError() <= tolerance * Math.abs(this.xpStats.getMean())
+                && z * this.survivalStats.getStandardError() <= tolerance
+                && z * this.resurrectionCastStats.getStandardError() <= tolerance;
+    }
+
+    /**
+     * Get the observed distribution of herbs harvested
+     */
+    public YieldDistribution getYieldDistribution() {
+        return YieldDistribution.fromCounts(this.yieldCounts, this.trials);
+    }
+}
@@ -0,0 +1,50 @@
+package me.lucaspickering.simulation;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.RecursiveTask;
+
+import me.lucaspickering.utils.PatchModel;
+
+/**
+ * A fork-join task that runs a range of trials for a single herb+patch combo.
+ * Large ranges are split in half recursively, and each half gets its own
+ * split of the random number generator, so no state is shared between
+ * threads and results are reproducible for a given seed.
+ */
+class SimulationTask extends RecursiveTask<SimulationAccumulator> {
+
+    /**
+     * Below this many trials, a task runs everything itself instead of
+     * splitting further
+     */
+    private static final long TRIALS_PER_TASK = 1 << 16;
+
+    private final PatchModel model;
+    private final long trials;
+    private final SplittableRandom random;
+
+    SimulationTask(PatchModel model, long trials, SplittableRandom random) {
+        this.model = model;
+        this.trials = trials;
+        this.random = random;
+    }
+
+    @Override
+    protected SimulationAccumulator compute() {
+        if (this.trials <= TRIALS_PER_TASK) {
+            SimulationAccumulator acc = new SimulationAccumulator();
+            HerbPatchSimulation patch = new HerbPatchSimulation(this.model);
+            for (long i = 0; i < this.trials; i++) {
+                patch.run(this.random);
+                acc.addTrial(patch);
+            }
+            return acc;
+        }
+
+        long half = this.trials / 2;
+        SimulationTask left = new SimulationTask(this.model, half, this.random.split());
+        SimulationTask right = new SimulationTask(this.model, this.trials - half, this.random);
+        left.fork();
+        return right.compute().merge(left.join());
+    }
+}
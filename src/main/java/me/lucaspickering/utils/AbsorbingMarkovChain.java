@@ -0,0 +1,140 @@
+package me.lucaspickering.utils;
+
+/**
+ * A discrete-time Markov chain with some transient states and some absorbing
+ * states, i.e. states that are never left once entered. Given a starting
+ * state, this solves for the chance of ending up in each absorbing state, and
+ * the expected number of visits to each transient state along the way.
+ * <p>
+ * This uses the fundamental matrix N = (I - Q)^-1, where Q holds the
+ * transient-to-transient transitions. Chains here are tiny (tens of states),
+ * so it's just solved with Gaussian elimination.
+ */
+public class AbsorbingMarkovChain {
+
+    private final int transientStates;
+    private final int absorbingStates;
+    /**
+     * Transient-to-transient transition probabilities, indexed [from][to]
+     */
+    private final double[][] q;
+    /**
+     * Transient-to-absorbing transition probabilities, indexed [from][to]
+     */
+    private final double[][] r;
+
+    public AbsorbingMarkovChain(int transientStates, int absorbingStates) {
+        this.transientStates = transientStates;
+        this.absorbingStates = absorbingStates;
+        this.q = new double[transientStates][transientStates];
+        this.r = new double[transientStates][absorbingStates];
+    }
+
+    /**
+     * Add to the chance of moving from one transient state to another
+     */
+    public void addTransition(int from, int to, double probability) {
+        this.q[from][to] += probability;
+    }
+
+    /**
+     * Add to the chance of moving from a transient state into an absorbing
+     * state
+     */
+    public void addAbsorption(int from, int to, double probability) {
+        this.r[from][to] += probability;
+    }
+
+    /**
+     * Solve the chain from a starting state
+     *
+     * @param start Transient state to start in
+     * @return Expected visits to each transient state and absorption
+     * probabilities for each absorbing state
+     */
+    public Solution solve(int start) {
+        // Solve v (I - Q) = e_start for v, the start row of N. Transposing
+        // gives (I - Q)^T v^T = e_start^T, which is a regular linear system.
+        int n = this.transientStates;
+        double[][] a = new double[n][n + 1];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = (i == j ? 1.0 : 0.0) - this.q[j][i];
+            }
+            a[i][n] = i == start ? 1.0 : 0.0;
+        }
+        double[] visits = gaussianElimination(a);
+
+        double[] absorption = new double[this.absorbingStates];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < this.absorbingStates; j++) {
+                absorption[j] += visits[i] * this.r[i][j];
+            }
+        }
+        return new Solution(visits, absorption);
+    }
+
+    /**
+     * Solve an augmented matrix in place, with partial pivoting
+     */
+    private static double[] gaussianElimination(double[][] a) {
+        int n = a.length;
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int row = col + 1; row < n; row++) {
+                if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) {
+                    pivot = row;
+                }
+            }
+            if (a[pivot][col] == 0.0) {
+                throw new IllegalStateException("Chain has a transient state that can never be left");
+            }
+            double[] tmp = a[col];
+            a[col] = a[pivot];
+            a[pivot] = tmp;
+
+            for (int row = 0; row < n; row++) {
+                if (row != col && a[row][col] != 0.0) {
+                    double factor = a[row][col] / a[col][col];
+                    for (int k = col; k <= n; k++) {
+                        a[row][k] -= factor * a[col][k];
+                    }
+                }
+            }
+        }
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = a[i][n] / a[i][i];
+        }
+        return x;
+    }
+
+    /**
+     * Outcome of solving the chain from one starting state
+     */
+    public static class Solution {
+        private final double[] visits;
+        private final double[] absorption;
+
+        private Solution(double[] visits, double[] absorption) {
+            this.visits = visits;
+            this.absorption = absorption;
+        }
+
+        /**
+         * Get the expected number of times a transient state is visited. For
+         * a state that can be visited at most once, this is the chance of
+         * ever visiting it.
+         */
+        public double getExpectedVisits(int state) {
+            return this.visits[state];
+        }
+
+        /**
+         * Get the chance of eventually being absorbed into a state
+         */
+        public double getAbsorptionChance(int state) {
+            return this.absorption[state];
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package me.lucaspickering.utils;
+
+/**
+ * Precomputed "chance to save a life" for every combination of herb, farming
+ * level and yield bonus. The formula only has a few hundred distinct inputs
+ * per herb, so we evaluate it once for all of them when the class is loaded,
+ * and every lookup after that is just an array index.
+ * <p>
+ * The chance to save is always a whole number out of 256, so we store just the
+ * numerator.
+ *
+ * @see <a href="https://oldschool.runescape.wiki/w/Farming#Variable_crop_yield">Wiki Reference</a>
+ */
+public final class ChanceToSaveTable {
+
+    public static final int MIN_LEVEL = 0;
+    public static final int MAX_LEVEL = 99;
+    /**
+     * All the possible patch-specific bonuses from achievement diaries. Every
+     * value the calculator can produce for {@link HerbPatchBuffs#getYieldBonus()}
+     * must be in here.
+     */
+    private static final double[] DIARY_BONUSES = {0.0, 0.05, 0.10, 0.15};
+    /**
+     * Every diary bonus is a multiple of this, so {@link #DIARY_BONUSES}[i] is
+     * i steps
+     */
+    private static final double DIARY_BONUS_STEP = 0.05;
+    private static final double DIARY_BONUS_TOLERANCE = 1e-9;
+    /**
+     * The highest number of harvest lives any compost provides
+     */
+    private static final int MAX_HARVEST_LIVES = 6;
+
+    private static final int HERBS = Herb.values().length;
+    private static final int LEVELS = MAX_LEVEL - MIN_LEVEL + 1;
+    // One bit each for magic secateurs and farming cape
+    private static final int ITEM_COMBOS = 4;
+    private static final int DIARY_COMBOS = DIARY_BONUSES.length;
+    private static final int ANIMA_PLANTS = AnimaPlant.values().length;
+
+    /**
+     * Chance to save numerators (out of 256), indexed by {@link #index}
+     */
+    private static final byte[] NUMERATORS = buildNumerators();
+    /**
+     * Expected number of harvests for a patch, indexed by
+     * [harvest lives][chance to save numerator]
+     */
+    private static final double[][] EXPECTED_HARVESTS = buildExpectedHarvests();
+
+    private ChanceToSaveTable() {
+    }
+
+    /**
+     * Look up the chance to save a life for an herb, as a numerator out of 256
+     *
+     * @param herb           Herb being harvested
+     * @param farmingLevel   Player's farming level. Clamped to [0,99].
+     * @param magicSecateurs Are magic secateurs equipped?
+     * @param farmingCape    Is a farming cape equipped?
+     * @param diaryBonus     Patch-specific yield bonus from diaries
+     * @param animaPlant     Active anima plant
+     * @return Chance to save numerator, out of 256
+     */
+    public static int getNumerator(Herb herb, int farmingLevel, boolean magicSecateurs, boolean farmingCape,
+            double diaryBonus, AnimaPlant animaPlant) {
+        return NUMERATORS[index(herb.ordinal(), clampLevel(farmingLevel),
+                itemIndex(magicSecateurs, farmingCape), diaryIndex(diaryBonus), animaPlant.ordinal())];
+    }
+
+    /**
+     * Same as {@link #getNumerator}, but as a chance out of 1
+     */
+    public static double getChanceToSave(Herb herb, int farmingLevel, boolean magicSecateurs, boolean farmingCape,
+            double diaryBonus, AnimaPlant animaPlant) {
+        return getNumerator(herb, farmingLevel, magicSecateurs, farmingCape, diaryBonus, animaPlant) / 256.0;
+    }
+
+    /**
+     * Get the expected number of herbs harvested from a fully grown patch.
+     *
+     * @param harvestLives         Number of lives the patch starts with
+     * @param chanceToSaveNumerator Chance to save a life, out of 256
+     * @return Expected number of herbs yielded on average
+     */
+    public static double getExpectedHarvests(int harvestLives, int chanceToSaveNumerator) {
+        return EXPECTED_HARVESTS[harvestLives][chanceToSaveNumerator];
+    }
+
+    /**
+     * Get the "chance to save" bonus due to equipped items.
+     *
+     * @return Chance to save bonus, out of 1
+     */
+    public static double getItemBonus(boolean magicSecateurs, boolean farmingCape) {
+        double bonus = 0.0;
+        if (magicSecateurs) {
+            // https://oldschool.runescape.wiki/w/Magic_secateurs
+            bonus += 0.1;
+        }
+        if (farmingCape) {
+            // https://oldschool.runescape.wiki/w/Farming_cape
+            bonus += 0.05;
+        }
+        return bonus;
+    }
+
+    private static int index(int herb, int level, int items, int diary, int anima) {
+        return (((herb * LEVELS + level) * ITEM_COMBOS + items) * DIARY_COMBOS + diary) * ANIMA_PLANTS + anima;
+    }
+
+    private static int clampLevel(int farmingLevel) {
+        return Math.max(MIN_LEVEL, Math.min(MAX_LEVEL, farmingLevel)) - MIN_LEVEL;
+    }
+
+    private static int itemIndex(boolean magicSecateurs, boolean farmingCape) {
+        return (magicSecateurs ? 2 : 0) | (farmingCape ? 1 : 0);
+    }
+
+    private static int diaryIndex(double diaryBonus) {
+        // Bonuses are all whole diary steps, so find the nearest step rather
+        // than comparing doubles exactly, which would break on any bonus
+        // that's computed instead of written as a literal
+        long index = Math.round(diaryBonus / DIARY_BONUS_STEP);
+        if (index >= 0 && index < DIARY_COMBOS
+                && Math.abs(DIARY_BONUSES[(int) index] - diaryBonus) < DIARY_BONUS_TOLERANCE) {
+            return (int) index;
+        }
+        throw new IllegalArgumentException(String.format("Unknown diary yield bonus: %f", diaryBonus));
+    }
+
+    private static byte[] buildNumerators() {
+        byte[] numerators = new byte[HERBS * LEVELS * ITEM_COMBOS * DIARY_COMBOS * ANIMA_PLANTS];
+        for (Herb herb : Herb.values()) {
+            for (int level = MIN_LEVEL; level <= MAX_LEVEL; level++) {
+                for (int items = 0; items < ITEM_COMBOS; items++) {
+                    double itemBonus = getItemBonus((items & 2) != 0, (items & 1) != 0);
+                    for (int diary = 0; diary < DIARY_COMBOS; diary++) {
+                        for (AnimaPlant animaPlant : AnimaPlant.values()) {
+                            int numerator = computeNumerator(herb, level, itemBonus, DIARY_BONUSES[diary],
+                                    animaPlant.getChanceToSaveBonus());
+                            if (numerator > Byte.MAX_VALUE) {
+                                throw new IllegalStateException(
+                                        String.format("Chance to save numerator too large: %d", numerator));
+                            }
+                            numerators[index(herb.ordinal(), level - MIN_LEVEL, items, diary,
+                                    animaPlant.ordinal())] = (byte) numerator;
+                        }
+                    }
+                }
+            }
+        }
+        return numerators;
+    }
+
+    /**
+     * Evaluate the chance to save formula directly
+     *
+     * @return Chance to save numerator, out of 256
+     */
+    private static int computeNumerator(Herb herb, int farmingLevel, double itemBonus, double diaryBonus,
+            double attasBonus) {
+        // Yes, these chances really are supposed to be this big, they're really
+        // out of 98, not 1
+        double chance1 = herb.getMinChanceToSave(); // Min chance varies by herb
+        double chance99 = 80.0; // Max chance is 80, for all herbs
+
+        // This comes straight from the wiki, it's a lot easier to read in
+        // their formatting (link above). The formatted formula doesn't mention
+        // anything about the `floor`s though, but it's in the calculator source
+        // https://oldschool.runescape.wiki/w/Calculator:Template/Farming/Herbs2?action=edit
+        return (int) Math.floor(
+                Math.floor(
+                        Math.floor((chance1 * (99.0 - farmingLevel) / 98.0) + (chance99 * (farmingLevel - 1.0) / 98.0))
+                                * (1.0 + itemBonus)
+                                // https://twitter.com/JagexAsh/status/956892754096869376
+                                * (1.0 + diaryBonus)
+                                // https://twitter.com/JagexAsh/status/1245644766328446976
+                                // Note: This conflicts with how the wiki calculator does it,
+                                // but I'm going off of Ash's tweets instead
+                                * (1.0 + attasBonus)
+                                + 1.0));
+    }
+
+    private static double[][] buildExpectedHarvests() {
+        double[][] harvests = new double[MAX_HARVEST_LIVES + 1][256];
+        for (int lives = 0; lives <= MAX_HARVEST_LIVES; lives++) {
+            for (int numerator = 0; numerator < 256; numerator++) {
+                // We're looking for the expected value of "number of trials until k failures",
+                // where k is the number of harvest lives, and prob of failure (Pf) is
+                // 1-chance to save. The odds of a single failure is 1/Pf, so k
+                // failures is just k/Pf
+                // https://math.stackexchange.com/questions/3378034/expected-number-of-coin-flips-to-see-3-heads
+                harvests[lives][numerator] = lives / (1.0 - numerator / 256.0);
+            }
+        }
+        return harvests;
+    }
+}
@@ -3,7 +3,7 @@ package me.lucaspickering.utils;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import net.runelite.api.ItemID;
-import net.runelite.client.game.ItemManager;
+import me.lucaspickering.PriceSource;
 
 @AllArgsConstructor
 @Getter
@@ -27,9 +27,9 @@ public enum Compost {
     /**
      * Get the GE price of this compost item (if any)
      */
-    public int getPrice(ItemManager itemManager) {
+    public int getPrice(PriceSource priceSource) {
         if (this.item >= 0) {
-            return itemManager.getItemPrice(this.item);
+            return priceSource.getItemPrice(this.item);
         } else {
             return 0;
         }
@@ -0,0 +1,131 @@
+package me.lucaspickering.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * How a crop grows from planting to adulthood, as an absorbing Markov chain
+ * over patch states. Each state is a growth stage, plus whether the patch is
+ * healthy or diseased, plus whether Resurrect Crops has already been used on
+ * it. Every growth cycle:
+ * <ul>
+ * <li>A healthy patch becomes diseased with the disease chance, otherwise it
+ * grows to the next stage (or to adulthood after the last stage)</li>
+ * <li>A diseased patch dies. If Resurrect Crops hasn't been used yet, the
+ * player casts it, and if it succeeds the patch is healthy again <i>at the
+ * same stage</i>, so it has to pass that stage's disease roll again.</li>
+ * </ul>
+ * Adult and dead are the absorbing states. Solving the chain gives the chance
+ * of reaching adulthood, and the chance of ever casting Resurrect Crops.
+ * <p>
+ * For herbs, only 3 growth cycles can actually kill the patch (there are 4,
+ * but it takes two cycles to go healthy->diseased->dead, so the first can't),
+ * which gives {@code s^3 + 3 s^3 d r} survival for disease chance d, s = 1-d
+ * and resurrection chance r. Other crops or rules (e.g. gardener protection
+ * making some stages safe) only need a different model, not new math.
+ * <p>
+ * Solved chains are cached by their inputs, which only have a handful of
+ * distinct values in practice, so repeated lookups are just a map hit.
+ */
+public class GrowthModel {
+
+    /**
+     * Herbs have 3 growth cycles that can lead to death
+     */
+    public static final GrowthModel HERB = new GrowthModel(3);
+
+    private static final int STATES_PER_STAGE = 4;
+    private static final int HEALTHY = 0;
+    private static final int DISEASED = 1;
+    // Resurrect Crops used flag, added to the two above
+    private static final int RESURRECTED = 2;
+
+    private static final int ADULT = 0;
+    private static final int DEAD = 1;
+
+    /**
+     * Number of growth cycles where the patch can be diseased
+     */
+    @Getter
+    private final int riskyStages;
+    private final Map<Key, SurvivalChance> cache = new ConcurrentHashMap<>();
+
+    public GrowthModel(int riskyStages) {
+        this.riskyStages = riskyStages;
+    }
+
+    /**
+     * Get the chance of a patch reaching adulthood, and the chance of the
+     * player having to cast Resurrect Crops on it (whether or not it works)
+     *
+     * @param diseaseChance      Chance of disease on each growth cycle
+     * @param useResurrectCrops  Does the player cast Resurrect Crops?
+     * @param resurrectionChance Chance of Resurrect Crops succeeding
+     */
+    public SurvivalChance getSurvivalChance(double diseaseChance, boolean useResurrectCrops,
+            double resurrectionChance) {
+        Key key = new Key(diseaseChance, useResurrectCrops, useResurrectCrops ? resurrectionChance : 0.0);
+        return this.cache.computeIfAbsent(key, this::solve);
+    }
+
+    private SurvivalChance solve(Key key) {
+        AbsorbingMarkovChain chain = new AbsorbingMarkovChain(this.riskyStages * STATES_PER_STAGE, 2);
+        double d = key.diseaseChance;
+        double r = key.resurrectionChance;
+        for (int stage = 0; stage < this.riskyStages; stage++) {
+            for (int resurrected = 0; resurrected <= RESURRECTED; resurrected += RESURRECTED) {
+                int healthy = state(stage, HEALTHY + resurrected);
+                int diseased = state(stage, DISEASED + resurrected);
+
+                chain.addTransition(healthy, diseased, d);
+                if (stage + 1 < this.riskyStages) {
+                    chain.addTransition(healthy, state(stage + 1, HEALTHY + resurrected), 1.0 - d);
+                } else {
+                    chain.addAbsorption(healthy, ADULT, 1.0 - d);
+                }
+
+                if (resurrected == 0 && key.useResurrectCrops) {
+                    chain.addTransition(diseased, state(stage, HEALTHY + RESURRECTED), r);
+                    chain.addAbsorption(diseased, DEAD, 1.0 - r);
+                } else {
+                    chain.addAbsorption(diseased, DEAD, 1.0);
+                }
+            }
+        }
+
+        AbsorbingMarkovChain.Solution solution = chain.solve(state(0, HEALTHY));
+        // Resurrect Crops is cast on the first death, which can only happen
+        // once per patch, so the chance of casting is the chance of ever
+        // being diseased before it's used
+        double castChance = 0.0;
+        if (key.useResurrectCrops) {
+            for (int stage = 0; stage < this.riskyStages; stage++) {
+                castChance += solution.getExpectedVisits(state(stage, DISEASED));
+            }
+        }
+        return new SurvivalChance(solution.getAbsorptionChance(ADULT), castChance);
+    }
+
+    private static int state(int stage, int condition) {
+        return stage * STATES_PER_STAGE + condition;
+    }
+
+    /**
+     * Everything a solved chain depends on
+     */
+    @EqualsAndHashCode
+    private static class Key {
+        private final double diseaseChance;
+        private final boolean useResurrectCrops;
+        private final double resurrectionChance;
+
+        private Key(double diseaseChance, boolean useResurrectCrops, double resurrectionChance) {
+            this.diseaseChance = diseaseChance;
+            this.useResurrectCrops = useResurrectCrops;
+            this.resurrectionChance = resurrectionChance;
+        }
+    }
+}
@@ -2,32 +2,55 @@ package me.lucaspickering.utils;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
-import net.runelite.api.Client;
+import me.lucaspickering.CalculatorInputs;
 import net.runelite.api.Varbits;
 
 @AllArgsConstructor
 @Getter
 public enum HerbPatch {
-    ARDOUGNE("Ardougne"),
-    CATHERBY("Catherby"),
-    FALADOR("Falador"),
-    FARMING_GUILD("Farming Guild"),
-    HARMONY("Harmony"),
-    HOSIDIUS("Hosidius"),
-    PORT_PHASMATYS("Port Phasmatys"),
-    TROLL_STRONGHOLD("Troll Stronghold"),
-    WEISS("Weiss"),
-    CIVITAS_ILLA_FORTIS("Civitas illa Fortis");
+    ARDOUGNE("Ardougne", 10548),
+    CATHERBY("Catherby", 11062),
+    FALADOR("Falador", 12083),
+    FARMING_GUILD("Farming Guild", 4922),
+    HARMONY("Harmony", 15148),
+    HOSIDIUS("Hosidius", 6967),
+    PORT_PHASMATYS("Port Phasmatys", 14391),
+    TROLL_STRONGHOLD("Troll Stronghold", 11321),
+    WEISS("Weiss", 11325),
+    CIVITAS_ILLA_FORTIS("Civitas illa Fortis", 6192);
+
+    /**
+     * VarPlayer that stores the player's glory in the Fortis Colosseum
+     */
+    public static final int VARP_COLOSSEUM_GLORY = 4130;
 
     private final String name;
+    /**
+     * ID of the map region the patch is in
+     */
+    private final int regionId;
+
+    /**
+     * Get the patch in a map region
+     *
+     * @return The patch, or null if there's no herb patch in the region
+     */
+    public static HerbPatch fromRegion(int regionId) {
+        for (HerbPatch patch : HerbPatch.values()) {
+            if (patch.regionId == regionId) {
+                return patch;
+            }
+        }
+        return null;
+    }
 
     /**
      * Is this patch disease-proof?
      *
-     * @param client RuneLite client, used to fetch dynamic data
+     * @param inputs Snapshot of the player's state, used to fetch dynamic data
      * @return True if this patch can't be diseased, false otherwise
      */
-    public boolean isDiseaseFree(Client client) {
+    public boolean isDiseaseFree(CalculatorInputs inputs) {
         switch (this) {
             case TROLL_STRONGHOLD:
             case WEISS:
@@ -36,10 +59,10 @@ public enum HerbPatch {
                 // Disease free for civitas illa is based on achieving champion rank with the fortis colosseum. 
                 // https://oldschool.runescape.wiki/w/Fortis_Colosseum#Glory
                 // Glory is stored in VarPlayer value 4130.
-                return client.getVarpValue(4130) >= 16000;
+                return inputs.getVarpValue(VARP_COLOSSEUM_GLORY) >= 16000;
             case HOSIDIUS:
                 // Disease free is now based on the completion of the Kourend easy diary.
-                return client.getVarbitValue(Varbits.DIARY_KOUREND_EASY) == 1;
+                return inputs.getVarbitValue(Varbits.DIARY_KOUREND_EASY) == 1;
             default:
                 return false;
         }
@@ -1,6 +1,7 @@
 package me.lucaspickering.utils;
 
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
 /**
@@ -8,6 +9,7 @@ import lombok.Getter;
  * not including yield buffs from magic secateurs or other items.
  */
 @AllArgsConstructor
+@EqualsAndHashCode
 @Getter
 public class HerbPatchBuffs {
     private final HerbPatch patch;
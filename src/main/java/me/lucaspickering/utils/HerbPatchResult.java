@@ -18,6 +18,15 @@ public class HerbPatchResult {
   private final double expectedXp;
   private final double cost;
   private final double revenue;
+  /**
+   * Full distribution of the number of herbs harvested. The mean of this is
+   * {@link #expectedYield}.
+   */
+  private final YieldDistribution yieldDistribution;
+  /**
+   * Chance that this patch loses money on a single run, out of 1
+   */
+  private final double probabilityOfLoss;
 
   public double getProfit() {
     return this.revenue - this.cost;
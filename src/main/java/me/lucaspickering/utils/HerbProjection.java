@@ -0,0 +1,23 @@
+package me.lucaspickering.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The outcome of planting one herb in every selected patch, run after run,
+ * until reaching a target Farming level
+ */
+@AllArgsConstructor
+@Getter
+public class HerbProjection {
+    private final Herb herb;
+    private final int runs;
+    /**
+     * Total profit across every run
+     */
+    private final double profit;
+    /**
+     * Total time spent waiting for herbs to grow, in minutes
+     */
+    private final long growthMinutes;
+}
@@ -5,53 +5,59 @@ import lombok.Getter;
 
 /**
  * A container class for calculator output. This encapsulates results for *a
- * single herb* but *all patches*.
+ * single herb* but *all patches*. Aggregates across the patches are computed
+ * once up front, since they're read over and over again while sorting and
+ * rendering.
  */
+@Getter
 public class HerbResult {
 
-  @Getter
   private final Herb herb;
   private final List<HerbPatchResult> patches;
-
-  public HerbResult(Herb herb, List<HerbPatchResult> patches) {
-    this.herb = herb;
-    this.patches = patches;
-  }
-
   /**
-   * Get the *average* survival rate across all patches.
-   *
-   * @return Average of all patches' survival rate
+   * The *average* survival rate across all patches
    */
-  public double getSurvivalChance() {
-    return patches.stream().mapToDouble(HerbPatchResult::getSurvivalChance).average().orElse(0.0);
-  }
-
+  private final double survivalChance;
   /**
-   * Get the expected yield across all patches in this result
-   *
-   * @return Sum of each patch's expected yield
+   * Sum of each patch's expected yield
    */
-  public double getExpectedYield() {
-    return patches.stream().mapToDouble(HerbPatchResult::getExpectedYield).sum();
-  }
-
+  private final double expectedYield;
   /**
-   * Get the expected XP gained across all patches in this result.
-   *
-   * @return Sum of each patch's expected XP
+   * Sum of each patch's expected XP
    */
-  public double getExpectedXp() {
-    return patches.stream().mapToDouble(HerbPatchResult::getExpectedXp).sum();
-  }
-
+  private final double expectedXp;
+  /**
+   * Sum of each patch's profit
+   */
+  private final double profit;
   /**
-   * Get the expected profit across all patches in this result.
-   *
-   * @return Sum of each patch's profit
+   * Distribution of the outcome of a whole run, or null if unavailable
    */
-  public double getProfit() {
-    return patches.stream().mapToDouble(HerbPatchResult::getProfit).sum();
+  private final RunDistribution runDistribution;
+
+  public HerbResult(Herb herb, List<HerbPatchResult> patches) {
+    this(herb, patches, null);
+  }
+
+  public HerbResult(Herb herb, List<HerbPatchResult> patches, RunDistribution runDistribution) {
+    this.herb = herb;
+    this.patches = patches;
+    this.runDistribution = runDistribution;
+
+    double survivalChance = 0.0;
+    double expectedYield = 0.0;
+    double expectedXp = 0.0;
+    double profit = 0.0;
+    for (HerbPatchResult patch : patches) {
+      survivalChance += patch.getSurvivalChance();
+      expectedYield += patch.getExpectedYield();
+      expectedXp += patch.getExpectedXp();
+      profit += patch.getProfit();
+    }
+    this.survivalChance = patches.isEmpty() ? 0.0 : survivalChance / patches.size();
+    this.expectedYield = expectedYield;
+    this.expectedXp = expectedXp;
+    this.profit = profit;
   }
 
   @Override
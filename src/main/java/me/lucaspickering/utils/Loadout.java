@@ -0,0 +1,79 @@
+package me.lucaspickering.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * One combination of all the gear and buffs a player can choose between for
+ * a herb run, i.e. everything in the config that isn't the patch selection.
+ */
+@AllArgsConstructor
+@EqualsAndHashCode
+@Getter
+public class Loadout {
+
+    /**
+     * Every possible loadout. Cheaper/simpler loadouts come first, so when two
+     * loadouts tie, the simpler one is found first.
+     */
+    private static final List<Loadout> ALL = buildAll();
+
+    private final Compost compost;
+    private final AnimaPlant animaPlant;
+    private final boolean useMagicSecateurs;
+    private final boolean useFarmingCape;
+    private final boolean useBottomlessBucket;
+    private final boolean useResurrectCrops;
+
+    /**
+     * Get every possible loadout
+     */
+    public static List<Loadout> all() {
+        return ALL;
+    }
+
+    /**
+     * Get a short human-readable description, e.g. "Ultracompost, Attas,
+     * secateurs"
+     */
+    public String getDescription() {
+        StringJoiner description = new StringJoiner(", ");
+        description.add(this.compost == Compost.NONE ? "No compost" : this.compost.getName());
+        if (this.animaPlant != AnimaPlant.NONE) {
+            description.add(this.animaPlant.getName());
+        }
+        if (this.useMagicSecateurs) {
+            description.add("secateurs");
+        }
+        if (this.useFarmingCape) {
+            description.add("cape");
+        }
+        if (this.useBottomlessBucket) {
+            description.add("bucket");
+        }
+        if (this.useResurrectCrops) {
+            description.add("resurrect");
+        }
+        return description.toString();
+    }
+
+    private static List<Loadout> buildAll() {
+        List<Loadout> loadouts = new ArrayList<>();
+        for (Compost compost : Compost.values()) {
+            for (AnimaPlant animaPlant : AnimaPlant.values()) {
+                // One bit per boolean option, so 0 is "nothing equipped"
+                for (int options = 0; options < 16; options++) {
+                    loadouts.add(new Loadout(compost, animaPlant, (options & 1) != 0, (options & 2) != 0,
+                            (options & 4) != 0, (options & 8) != 0));
+                }
+            }
+        }
+        return Collections.unmodifiableList(loadouts);
+    }
+}
@@ -0,0 +1,19 @@
+package me.lucaspickering.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The outcome of planting one herb in every selected patch with a particular
+ * {@link Loadout}. Values are totals across all patches, same as
+ * {@link HerbResult}.
+ */
+@AllArgsConstructor
+@Getter
+public class LoadoutResult {
+    private final Loadout loadout;
+    private final Herb herb;
+    private final double expectedYield;
+    private final double expectedXp;
+    private final double profit;
+}
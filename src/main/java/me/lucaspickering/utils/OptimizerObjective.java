@@ -0,0 +1,38 @@
+package me.lucaspickering.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * What the patch optimizer tries to maximise
+ */
+@AllArgsConstructor
+@Getter
+public enum OptimizerObjective {
+    PROFIT("Profit"),
+    XP("XP"),
+    /**
+     * Profit plus XP, with XP converted to gp at a configurable rate
+     */
+    WEIGHTED("Weighted");
+
+    private final String name;
+
+    /**
+     * Get the score of a single herb+patch result under this objective
+     *
+     * @param gpPerXp How much 1 XP is worth, in gp. Only used for
+     *                {@link #WEIGHTED}.
+     */
+    public double getScore(HerbPatchResult result, double gpPerXp) {
+        switch (this) {
+            case XP:
+                return result.getExpectedXp();
+            case WEIGHTED:
+                return result.getProfit() + gpPerXp * result.getExpectedXp();
+            case PROFIT:
+            default:
+                return result.getProfit();
+        }
+    }
+}
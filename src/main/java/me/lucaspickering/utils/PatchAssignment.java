@@ -0,0 +1,30 @@
+package me.lucaspickering.utils;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The output of the patch optimizer: which herb to plant in each patch.
+ * Patches that are better left empty (e.g. because the seed budget ran out)
+ * aren't in {@link #patches}.
+ */
+@AllArgsConstructor
+@Getter
+public class PatchAssignment {
+    /**
+     * Chosen herb for each planted patch, along with its result
+     */
+    private final Map<HerbPatch, HerbPatchResult> patches;
+    private final double profit;
+    private final double expectedXp;
+    /**
+     * Total spent on seeds
+     */
+    private final double seedCost;
+    /**
+     * Value of the objective that was maximised
+     */
+    private final double score;
+}
@@ -0,0 +1,54 @@
+package me.lucaspickering.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * All the inputs that determine the outcome of growing *a single herb* in *a
+ * single patch*. The calculator derives these from the player's stats and
+ * config, then either evaluates them analytically or feeds them to the
+ * simulator, so both paths are guaranteed to see the same numbers.
+ */
+@AllArgsConstructor
+@Getter
+public class PatchModel {
+    private final Herb herb;
+    private final HerbPatch patch;
+    /**
+     * Number of "harvest lives" the patch starts with, based on compost
+     */
+    private final int harvestLives;
+    /**
+     * Chance to save a life on each harvest, out of 256
+     */
+    private final int chanceToSaveNumerator;
+    /**
+     * Chance of the patch becoming diseased on each growth cycle, out of 1.
+     * This is 0 for disease-free patches.
+     */
+    private final double diseaseChance;
+    private final boolean useResurrectCrops;
+    /**
+     * Chance of Resurrect Crops succeeding, out of 1. This is 0 if the player
+     * doesn't use the spell, or doesn't have the level for it.
+     */
+    private final double resurrectionChance;
+    private final double xpBonus;
+    private final double compostXp;
+    private final double compostCost;
+    private final double seedCost;
+    /**
+     * Cost of the runes for a single cast of Resurrect Crops
+     */
+    private final double resurrectRuneCost;
+    private final double herbPrice;
+
+    /**
+     * Get the chance to save a life on each harvest
+     *
+     * @return Chance to save, out of 1
+     */
+    public double getChanceToSave() {
+        return this.chanceToSaveNumerator / 256.0;
+    }
+}
@@ -0,0 +1,171 @@
+package me.lucaspickering.utils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.EqualsAndHashCode;
+import net.runelite.api.ItemID;
+import me.lucaspickering.PriceSource;
+
+/**
+ * A frozen copy of every item price the calculator needs. This is fetched
+ * once per calculation, so every herb+patch combo sees a consistent set of
+ * prices, and we don't hit the item manager hundreds of times for the same
+ * handful of items.
+ */
+@EqualsAndHashCode
+public class PriceSnapshot {
+    /**
+     * Runes for a single cast of Resurrect Crops
+     */
+    private static final int[] RESURRECT_RUNES = {
+            ItemID.SOUL_RUNE, ItemID.NATURE_RUNE, ItemID.BLOOD_RUNE, ItemID.EARTH_RUNE};
+    /**
+     * Quantity of each of {@link #RESURRECT_RUNES}
+     */
+    private static final int[] RESURRECT_RUNE_COUNTS = {8, 12, 8, 25};
+
+    /**
+     * Seed prices, indexed by {@link Herb#ordinal()}
+     */
+    private final int[] seedPrices;
+    /**
+     * Grimy herb prices, indexed by {@link Herb#ordinal()}
+     */
+    private final int[] grimyHerbPrices;
+    /**
+     * Compost prices, indexed by {@link Compost#ordinal()}
+     */
+    private final int[] compostPrices;
+    private final int resurrectRuneCost;
+
+    private PriceSnapshot(int[] seedPrices, int[] grimyHerbPrices, int[] compostPrices, int resurrectRuneCost) {
+        this.seedPrices = seedPrices;
+        this.grimyHerbPrices = grimyHerbPrices;
+        this.compostPrices = compostPrices;
+        this.resurrectRuneCost = resurrectRuneCost;
+    }
+
+    /**
+     * Look up the current price of every item the calculator uses
+     *
+     * @param priceSource Where to fetch prices from, e.g. the GE
+     * @return Snapshot of all prices
+     */
+    public static PriceSnapshot fetch(PriceSource priceSource) {
+        Herb[] herbs = Herb.values();
+        int[] seedPrices = new int[herbs.length];
+        int[] grimyHerbPrices = new int[herbs.length];
+        for (Herb herb : herbs) {
+            seedPrices[herb.ordinal()] = priceSource.getItemPrice(herb.getSeedItem());
+            grimyHerbPrices[herb.ordinal()] = priceSource.getItemPrice(herb.getGrimyHerbItem());
+        }
+
+        Compost[] composts = Compost.values();
+        int[] compostPrices = new int[composts.length];
+        for (Compost compost : composts) {
+            compostPrices[compost.ordinal()] = compost.getPrice(priceSource);
+        }
+
+        return new PriceSnapshot(seedPrices, grimyHerbPrices, compostPrices, fetchResurrectRuneCost(priceSource));
+    }
+
+    /**
+     * Get the ID of every item whose price goes into a snapshot
+     */
+    public static int[] getItemIds() {
+        List<Integer> itemIds = new ArrayList<>();
+        for (Herb herb : Herb.values()) {
+            itemIds.add(herb.getSeedItem());
+            itemIds.add(herb.getGrimyHerbItem());
+        }
+        for (Compost compost : Compost.values()) {
+            if (compost.getItem() >= 0) {
+                itemIds.add(compost.getItem());
+            }
+        }
+        for (int rune : RESURRECT_RUNES) {
+            itemIds.add(rune);
+        }
+        return itemIds.stream().mapToInt(Integer::intValue).distinct().toArray();
+    }
+
+    /**
+     * Write every price, to be read back with {@link #read}
+     */
+    public void write(DataOutput output) throws IOException {
+        writeInts(output, this.seedPrices);
+        writeInts(output, this.grimyHerbPrices);
+        writeInts(output, this.compostPrices);
+        output.writeInt(this.resurrectRuneCost);
+    }
+
+    /**
+     * Read a snapshot written by {@link #write}
+     *
+     * @throws IOException If the data is unreadable, or was written when
+     *                     there were a different number of herbs or composts
+     */
+    public static PriceSnapshot read(DataInput input) throws IOException {
+        int[] seedPrices = readInts(input, Herb.values().length);
+        int[] grimyHerbPrices = readInts(input, Herb.values().length);
+        int[] compostPrices = readInts(input, Compost.values().length);
+        return new PriceSnapshot(seedPrices, grimyHerbPrices, compostPrices, input.readInt());
+    }
+
+    public int getSeedPrice(Herb herb) {
+        return this.seedPrices[herb.ordinal()];
+    }
+
+    public int getGrimyHerbPrice(Herb herb) {
+        return this.grimyHerbPrices[herb.ordinal()];
+    }
+
+    public int getCompostPrice(Compost compost) {
+        return this.compostPrices[compost.ordinal()];
+    }
+
+    /**
+     * Get the cost of casting Resurrect Crops (assuming no staffs, since the
+     * benefit of those is negligible).
+     *
+     * @return Cost of all runes to cast Resurrect Crops
+     */
+    public int getResurrectRuneCost() {
+        return this.resurrectRuneCost;
+    }
+
+    private static void writeInts(DataOutput output, int[] values) throws IOException {
+        output.writeInt(values.length);
+        for (int value : values) {
+            output.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(DataInput input, int expectedLength) throws IOException {
+        int length = input.readInt();
+        if (length != expectedLength) {
+            throw new IOException(String.format("Expected %d prices but got %d", expectedLength, length));
+        }
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = input.readInt();
+        }
+        return values;
+    }
+
+    /**
+     * @see <a href="https://oldschool.runescape.wiki/w/Resurrect_Crops">Wiki Reference</a>
+     */
+    private static int fetchResurrectRuneCost(PriceSource priceSource) {
+        // 8 souls, 12 nats, 8 bloods, 25 earths
+        int cost = 0;
+        for (int i = 0; i < RESURRECT_RUNES.length; i++) {
+            cost += priceSource.getItemPrice(RESURRECT_RUNES[i]) * RESURRECT_RUNE_COUNTS[i];
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,224 @@
+package me.lucaspickering.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * The probability distribution of the total herbs, XP and profit from one
+ * full herb run, i.e. planting one herb in every selected patch. This is built
+ * by convolving the per-patch {@link YieldDistribution}s together.
+ * <p>
+ * Herbs are exact. XP is tracked on a grid of evenly sized bins, since the
+ * per-patch XP bonuses make the exact set of possible totals huge. Each
+ * patch's XP is rounded to the nearest bin before convolving, so the rounding
+ * adds up: XP percentiles are accurate to within half a bin per patch in the
+ * run. Profit is derived from the herb count, using expected costs.
+ */
+public class RunDistribution {
+
+    /**
+     * Number of bins used for the XP distribution
+     */
+    private static final int XP_BINS = 1024;
+    /**
+     * Probability below this is dropped from the tails after each
+     * convolution, to keep the arrays short
+     */
+    private static final double TAIL_EPSILON = 1e-15;
+
+    /**
+     * Probability of each total number of herbs harvested
+     */
+    private final double[] herbsPmf;
+    /**
+     * Probability of each XP bin. Bin `i` covers XP around `i * xpBinWidth`.
+     */
+    private final double[] xpPmf;
+    private final double xpBinWidth;
+    @Getter
+    private final double herbPrice;
+    /**
+     * Expected total cost of the run
+     */
+    @Getter
+    private final double totalCost;
+
+    private RunDistribution(double[] herbsPmf, double[] xpPmf, double xpBinWidth, double herbPrice,
+            double totalCost) {
+        this.herbsPmf = herbsPmf;
+        this.xpPmf = xpPmf;
+        this.xpBinWidth = xpBinWidth;
+        this.herbPrice = herbPrice;
+        this.totalCost = totalCost;
+    }
+
+    /**
+     * Combine the distributions of every patch in a run into one.
+     * <p>
+     * Patches with the same yield distribution and XP bonus are identical, so
+     * they're grouped together and each group is only computed once. Callers
+     * should reuse the same {@link YieldDistribution} instance for patches
+     * with identical buffs to benefit from this.
+     *
+     * @param herb       Herb being planted
+     * @param compostXp  XP from spreading compost on a single patch
+     * @param yields     Yield distribution for each patch
+     * @param xpBonuses  XP bonus for each patch, in the same order as yields
+     * @param herbPrice  Price of a single herb
+     * @param totalCost  Expected cost of the whole run
+     * @return Distribution for the whole run
+     */
+    public static RunDistribution forPatches(Herb herb, double compostXp, List<YieldDistribution> yields,
+            double[] xpBonuses, double herbPrice, double totalCost) {
+        // Group identical patches. YieldDistribution uses identity equality,
+        // so only shared instances get grouped.
+        Map<List<Object>, Integer> groups = new LinkedHashMap<>();
+        double maxXp = 0.0;
+        for (int i = 0; i < yields.size(); i++) {
+            List<Object> key = new ArrayList<>(2);
+            key.add(yields.get(i));
+            key.add(xpBonuses[i]);
+            groups.merge(key, 1, Integer::sum);
+            maxXp += patchXp(herb, compostXp, xpBonuses[i], yields.get(i).getMaxHerbs());
+        }
+        double xpBinWidth = Math.max(maxXp / (XP_BINS - 1), 1e-9);
+
+        double[] herbsPmf = {1.0};
+        double[] xpPmf = {1.0};
+        for (Map.Entry<List<Object>, Integer> group : groups.entrySet()) {
+            YieldDistribution yield = (YieldDistribution) group.getKey().get(0);
+            double xpBonus = (Double) group.getKey().get(1);
+            double[] patchHerbs = yield.toArray();
+            double[] patchXp = binXp(herb, compostXp, xpBonus, patchHerbs, xpBinWidth);
+            for (int i = 0; i < group.getValue(); i++) {
+                herbsPmf = convolve(herbsPmf, patchHerbs);
+                xpPmf = convolve(xpPmf, patchXp);
+            }
+        }
+        return new RunDistribution(herbsPmf, xpPmf, xpBinWidth, herbPrice, totalCost);
+    }
+
+    /**
+     * Get a copy of this distribution with different prices. The herb and XP
+     * distributions don't depend on prices, so they're shared.
+     */
+    public RunDistribution withPrices(double herbPrice, double totalCost) {
+        return new RunDistribution(this.herbsPmf, this.xpPmf, this.xpBinWidth, herbPrice, totalCost);
+    }
+
+    /**
+     * Get a percentile of the total number of herbs harvested
+     *
+     * @param quantile Percentile to get, out of 1
+     */
+    public int getHerbsPercentile(double quantile) {
+        return percentile(this.herbsPmf, quantile);
+    }
+
+    /**
+     * Get a percentile of the total XP gained. Accurate to within half an XP
+     * bin per patch.
+     *
+     * @param quantile Percentile to get, out of 1
+     */
+    public double getXpPercentile(double quantile) {
+        return percentile(this.xpPmf, quantile) * this.xpBinWidth;
+    }
+
+    /**
+     * Get a percentile of the total profit
+     *
+     * @param quantile Percentile to get, out of 1
+     */
+    public double getProfitPercentile(double quantile) {
+        return this.getHerbsPercentile(quantile) * this.herbPrice - this.totalCost;
+    }
+
+    /**
+     * Get the chance that the run as a whole loses money
+     *
+     * @return Chance of a loss, out of 1
+     */
+    public double getProbabilityOfLoss() {
+        double total = 0.0;
+        for (int n = 0; n < this.herbsPmf.length && n * this.herbPrice < this.totalCost; n++) {
+            total += this.herbsPmf[n];
+        }
+        return Math.min(total, 1.0);
+    }
+
+    /**
+     * XP from a single patch that yielded `herbs` herbs. Plant XP is only
+     * granted if the patch survived, which is the same as yielding anything.
+     */
+    private static double patchXp(Herb herb, double compostXp, double xpBonus, int herbs) {
+        double xp = compostXp;
+        if (herbs > 0) {
+            xp += herb.getPlantXp() + herb.getHarvestXp() * herbs;
+        }
+        return xp * (1.0 + xpBonus);
+    }
+
+    /**
+     * Map a patch's yield distribution onto an XP distribution, rounding each
+     * outcome to the nearest bin
+     */
+    private static double[] binXp(Herb herb, double compostXp, double xpBonus, double[] herbsPmf,
+            double binWidth) {
+        int maxBin = (int) Math.round(patchXp(herb, compostXp, xpBonus, herbsPmf.length - 1) / binWidth);
+        double[] xpPmf = new double[maxBin + 1];
+        for (int n = 0; n < herbsPmf.length; n++) {
+            if (herbsPmf[n] > 0.0) {
+                xpPmf[(int) Math.round(patchXp(herb, compostXp, xpBonus, n) / binWidth)] += herbsPmf[n];
+            }
+        }
+        return xpPmf;
+    }
+
+    /**
+     * Convolve two distributions, i.e. get the distribution of the sum of two
+     * independent variables. Zero entries in the second one are skipped, since
+     * per-patch distributions are mostly zeroes.
+     */
+    private static double[] convolve(double[] a, double[] b) {
+        double[] result = new double[a.length + b.length - 1];
+        for (int j = 0; j < b.length; j++) {
+            double pb = b[j];
+            if (pb == 0.0) {
+                continue;
+            }
+            for (int i = 0; i < a.length; i++) {
+                result[i + j] += a[i] * pb;
+            }
+        }
+        // Trim the negligible tail
+        int length = result.length;
+        while (length > 1 && result[length - 1] < TAIL_EPSILON) {
+            length--;
+        }
+        if (length == result.length) {
+            return result;
+        }
+        double[] trimmed = new double[length];
+        System.arraycopy(result, 0, trimmed, 0, length);
+        return trimmed;
+    }
+
+    private static int percentile(double[] pmf, double quantile) {
+        if (quantile < 0.0 || quantile > 1.0) {
+            throw new IllegalArgumentException(String.format("Quantile must be in [0, 1], but got: %f", quantile));
+        }
+        double total = 0.0;
+        for (int i = 0; i < pmf.length; i++) {
+            total += pmf[i];
+            if (total >= quantile) {
+                return i;
+            }
+        }
+        return pmf.length - 1;
+    }
+}
@@ -0,0 +1,34 @@
+package me.lucaspickering.utils;
+
+import java.util.Arrays;
+
+/**
+ * The set of input values that some cached, derived value was calculated
+ * from. Whenever the derived value is needed, pass the current inputs to
+ * {@link #update}, and only recalculate it if they've changed.
+ */
+public class TrackedInputs {
+    private Object[] values;
+
+    /**
+     * Store the latest input values, and check if they differ from the
+     * previous ones. The first call always counts as a change.
+     *
+     * @param values Current input values. Must all implement equals().
+     * @return True if the inputs changed, meaning the derived value is dirty
+     */
+    public boolean update(Object... values) {
+        if (Arrays.equals(this.values, values)) {
+            return false;
+        }
+        this.values = values;
+        return true;
+    }
+
+    /**
+     * Forget the previous inputs, so the next update is always a change
+     */
+    public void invalidate() {
+        this.values = null;
+    }
+}
@@ -0,0 +1,186 @@
+package me.lucaspickering.utils;
+
+import java.util.Arrays;
+
+import lombok.Getter;
+
+/**
+ * The full probability distribution of the number of herbs harvested from a
+ * single patch, rather than just the average. Index `n` of the distribution
+ * is the probability of harvesting exactly `n` herbs; 0 covers patches that
+ * died before being harvested.
+ */
+public class YieldDistribution {
+
+    /**
+     * Once the tail of the distribution holds less than this much
+     * probability, we stop calculating it
+     */
+    private static final double TAIL_EPSILON = 1e-12;
+    /**
+     * Hard cap on the number of herbs we'll consider, in case the chance to
+     * save is ever high enough for the tail to drag on forever
+     */
+    private static final int MAX_HERBS = 4096;
+
+    /**
+     * Probability mass for each number of herbs harvested
+     */
+    private final double[] pmf;
+    @Getter
+    private final double mean;
+    @Getter
+    private final double variance;
+
+    YieldDistribution(double[] pmf) {
+        this.pmf = pmf;
+
+        double mean = 0.0;
+        double squares = 0.0;
+        for (int n = 0; n < pmf.length; n++) {
+            mean += n * pmf[n];
+            squares += (double) n * n * pmf[n];
+        }
+        this.mean = mean;
+        this.variance = Math.max(squares - mean * mean, 0.0);
+    }
+
+    /**
+     * Calculate the exact yield distribution of a patch.
+     * <p>
+     * A fully grown patch is harvested until it runs out of lives, and each
+     * harvest loses a life with probability `1 - chanceToSave`. So the number
+     * of harvests is the number of trials until `lives` failures, which
+     * follows a negative binomial distribution:
+     * `P(n) = C(n-1, lives-1) * (1-c)^lives * c^(n-lives)` for `n >= lives`.
+     * That's scaled by the survival chance, and the rest of the probability
+     * goes to 0 herbs for dead patches.
+     *
+     * @param model          Inputs for the herb+patch combo
+     * @param survivalChance Chance of the patch growing to adulthood
+     * @return Yield distribution for the patch
+     */
+    public static YieldDistribution forPatch(PatchModel model, double survivalChance) {
+        int lives = model.getHarvestLives();
+        double saveChance = model.getChanceToSave();
+        double loseChance = 1.0 - saveChance;
+
+        double[] pmf = new double[Math.max(lives + 1, 16)];
+        pmf[0] = 1.0 - survivalChance;
+
+        // P(n) for the negative binomial, starting at n=lives. Each term is
+        // derived from the previous one, so we never compute a binomial
+        // coefficient directly.
+        double term = Math.pow(loseChance, lives);
+        double remaining = 1.0;
+        int n = lives;
+        while (n < MAX_HERBS) {
+            if (n >= pmf.length) {
+                pmf = Arrays.copyOf(pmf, pmf.length * 2);
+            }
+            pmf[n] = survivalChance * term;
+            remaining -= term;
+            if (remaining < TAIL_EPSILON || saveChance == 0.0) {
+                break;
+            }
+            // C(n, lives-1) / C(n-1, lives-1) = n / (n-lives+1)
+            term *= saveChance * n / (n - lives + 1);
+            n++;
+        }
+        return new YieldDistribution(Arrays.copyOf(pmf, n + 1));
+    }
+
+    /**
+     * Build an empirical distribution from observed counts, e.g. from a
+     * simulation
+     *
+     * @param counts Number of times each yield was observed, indexed by yield
+     * @param total  Total number of observations
+     * @return Observed yield distribution
+     */
+    public static YieldDistribution fromCounts(long[] counts, long total) {
+        int length = counts.length;
+        while (length > 1 && counts[length - 1] == 0) {
+            length--;
+        }
+        double[] pmf = new double[length];
+        for (int n = 0; n < length; n++) {
+            pmf[n] = (double) counts[n] / total;
+        }
+        return new YieldDistribution(pmf);
+    }
+
+    /**
+     * Get the probability of harvesting exactly `herbs` herbs
+     */
+    public double getProbability(int herbs) {
+        return herbs >= 0 && herbs < this.pmf.length ? this.pmf[herbs] : 0.0;
+    }
+
+    /**
+     * Get the probability of harvesting `herbs` herbs or fewer
+     */
+    public double getCumulativeProbability(int herbs) {
+        double total = 0.0;
+        for (int n = 0; n <= herbs && n < this.pmf.length; n++) {
+            total += this.pmf[n];
+        }
+        return Math.min(total, 1.0);
+    }
+
+    /**
+     * Get the largest number of herbs with a non-negligible probability
+     */
+    public int getMaxHerbs() {
+        return this.pmf.length - 1;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(this.variance);
+    }
+
+    /**
+     * Get a percentile of the distribution, i.e. the smallest number of herbs
+     * `n` such that `P(yield <= n) >= quantile`
+     *
+     * @param quantile Percentile to get, out of 1
+     * @return Number of herbs at that percentile
+     */
+    public int getPercentile(double quantile) {
+        if (quantile < 0.0 || quantile > 1.0) {
+            throw new IllegalArgumentException(String.format("Quantile must be in [0, 1], but got: %f", quantile));
+        }
+        double total = 0.0;
+        for (int n = 0; n < this.pmf.length; n++) {
+            total += this.pmf[n];
+            if (total >= quantile) {
+                return n;
+            }
+        }
+        return this.getMaxHerbs();
+    }
+
+    /**
+     * Get the chance that a patch loses money, i.e. the herbs harvested are
+     * worth less than what was spent on it
+     *
+     * @param herbPrice Price of a single herb
+     * @param cost      Total cost of planting the patch
+     * @return Chance of a loss, out of 1
+     */
+    public double getProbabilityOfLoss(double herbPrice, double cost) {
+        double total = 0.0;
+        for (int n = 0; n < this.pmf.length && herbPrice * n < cost; n++) {
+            total += this.pmf[n];
+        }
+        return Math.min(total, 1.0);
+    }
+
+    /**
+     * Get a copy of the raw probability mass for each yield, indexed by
+     * number of herbs
+     */
+    public double[] toArray() {
+        return this.pmf.clone();
+    }
+}
@@ -0,0 +1,152 @@
+package me.lucaspickering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import me.lucaspickering.utils.Herb;
+import me.lucaspickering.utils.HerbCalculatorResult;
+import me.lucaspickering.utils.HerbPatchResult;
+import me.lucaspickering.utils.HerbResult;
+import me.lucaspickering.utils.OptimizerObjective;
+import me.lucaspickering.utils.PatchAssignment;
+import me.lucaspickering.utils.HerbPatch;
+import org.junit.Test;
+
+public class HerbPatchOptimizerTest {
+
+    private static final int FARMING_LEVEL = 62;
+    private static final int GP_PER_XP = 8;
+    /**
+     * Seed budgets to try, from none at all to tight enough that some
+     * patches should be left empty
+     */
+    private static final int[] SEED_BUDGETS = {0, 200, 1_500, 4_000, 12_000};
+    /**
+     * A mix of patches with different buffs, including a disease-free one
+     */
+    private static final Set<HerbPatch> PATCHES = EnumSet.of(HerbPatch.CATHERBY, HerbPatch.FALADOR,
+            HerbPatch.HOSIDIUS, HerbPatch.TROLL_STRONGHOLD);
+
+    /**
+     * Branch-and-bound should always find the same best score as trying
+     * every possible assignment
+     */
+    @Test
+    public void testMatchesBruteForce() {
+        HerbFarmCalculator calculator = new HerbFarmCalculator();
+        HerbPatchOptimizer optimizer = new HerbPatchOptimizer();
+        for (OptimizerObjective objective : OptimizerObjective.values()) {
+            for (int budget : SEED_BUDGETS) {
+                String params = String.format("%s with budget %d", objective, budget);
+                CalculatorInputs inputs = CalculatorInputs.capture(player(), config(objective, budget),
+                        itemId -> 100 + (itemId * 37) % 3_000);
+                HerbCalculatorResult result = calculator.calculate(inputs);
+                PatchAssignment assignment = optimizer.optimize(inputs, result);
+
+                double limit = budget > 0 ? budget : Double.POSITIVE_INFINITY;
+                assertTrue("Over budget, " + params, assignment.getSeedCost() <= limit);
+                assertEquals("Best score, " + params,
+                        bruteForce(inputs, result, objective, limit, 0, 0.0), assignment.getScore(), 1e-6);
+            }
+        }
+    }
+
+    /**
+     * Best total score over every way of filling the remaining patches
+     * (each with any plantable herb or nothing) within the budget
+     */
+    private static double bruteForce(CalculatorInputs inputs, HerbCalculatorResult result,
+            OptimizerObjective objective, double budget, int patch, double seedCost) {
+        if (patch == result.getPatches().size()) {
+            return 0.0;
+        }
+        // Leave this patch empty
+        double best = bruteForce(inputs, result, objective, budget, patch + 1, seedCost);
+        for (HerbResult herbResult : result.getHerbs()) {
+            Herb herb = herbResult.getHerb();
+            double cost = seedCost + inputs.getPrices().getSeedPrice(herb);
+            if (herb.getLevel() > FARMING_LEVEL || cost > budget) {
+                continue;
+            }
+            HerbPatchResult patchResult = herbResult.getPatches().get(patch);
+            best = Math.max(best, objective.getScore(patchResult, GP_PER_XP)
+                    + bruteForce(inputs, result, objective, budget, patch + 1, cost));
+        }
+        return best;
+    }
+
+    private static PlayerState player() {
+        return new PlayerState() {
+            @Override
+            public boolean isLoggedIn() {
+                return true;
+            }
+
+            @Override
+            public int getFarmingLevel() {
+                return FARMING_LEVEL;
+            }
+
+            @Override
+            public int getFarmingXp() {
+                return 0;
+            }
+
+            @Override
+            public int getMagicLevel() {
+                return 80;
+            }
+
+            @Override
+            public int getVarbitValue(int varbit) {
+                return 1;
+            }
+
+            @Override
+            public int getVarpValue(int varp) {
+                return 0;
+            }
+        };
+    }
+
+    private static HerbFarmCalculatorConfig config(OptimizerObjective objective, int seedBudget) {
+        return new HerbFarmCalculatorConfig() {
+            @Override
+            public Set<HerbPatch> patches() {
+                return PATCHES;
+            }
+
+            @Override
+            public void patches(Set<HerbPatch> patches) {
+            }
+
+            @Override
+            public boolean useResurrectCrops() {
+                return true;
+            }
+
+            @Override
+            public boolean optimizePatches() {
+                return true;
+            }
+
+            @Override
+            public OptimizerObjective optimizerObjective() {
+                return objective;
+            }
+
+            @Override
+            public int gpPerXp() {
+                return GP_PER_XP;
+            }
+
+            @Override
+            public int seedBudget() {
+                return seedBudget;
+            }
+        };
+    }
+}
@@ -0,0 +1,339 @@
+package me.lucaspickering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import me.lucaspickering.export.ExportScope;
+import me.lucaspickering.utils.AnimaPlant;
+import me.lucaspickering.utils.Compost;
+import me.lucaspickering.utils.HerbCalculatorResult;
+import me.lucaspickering.utils.HerbPatch;
+import me.lucaspickering.utils.HerbPatchResult;
+import me.lucaspickering.utils.HerbResult;
+import me.lucaspickering.utils.OptimizerObjective;
+import me.lucaspickering.utils.PriceSnapshot;
+import me.lucaspickering.utils.SortingCriteria;
+import org.junit.Test;
+
+public class InputFingerprintTest {
+
+    /**
+     * Changing any of these can change the calculator's results, so each one
+     * must change the fingerprint
+     */
+    @Test
+    public void testResultInputsChangeFingerprint() {
+        InputFingerprint base = fingerprint(new Setup());
+        for (Map.Entry<String, Consumer<Setup>> change : resultChanges().entrySet()) {
+            Setup setup = new Setup();
+            change.getValue().accept(setup);
+            assertNotEquals(change.getKey(), base, fingerprint(setup));
+        }
+    }
+
+    /**
+     * These only affect other features, so changing them shouldn't miss the
+     * cache
+     */
+    @Test
+    public void testOtherInputsKeepFingerprint() {
+        Setup base = new Setup();
+        InputFingerprint baseFingerprint = fingerprint(base);
+        assertEquals(baseFingerprint, fingerprint(new Setup()));
+        assertEquals(baseFingerprint.hashCode(), fingerprint(new Setup()).hashCode());
+        for (Map.Entry<String, Consumer<Setup>> change : otherChanges().entrySet()) {
+            Setup setup = new Setup();
+            change.getValue().accept(setup);
+            InputFingerprint fingerprint = fingerprint(setup);
+            assertEquals(change.getKey(), baseFingerprint, fingerprint);
+            assertEquals(change.getKey(), baseFingerprint.hashCode(), fingerprint.hashCode());
+        }
+    }
+
+    /**
+     * A calculator that has seen every variation, in any order, gives the
+     * same results as a fresh one, whether or not it hits the cache
+     */
+    @Test
+    public void testCachedResultsMatchFresh() {
+        List<Consumer<Setup>> changes = new ArrayList<>();
+        changes.add(setup -> {
+        });
+        changes.addAll(resultChanges().values());
+        changes.addAll(otherChanges().values());
+
+        HerbFarmCalculator calculator = new HerbFarmCalculator();
+        // Twice over, so the second pass hits the cache for the most recent
+        // inputs and recalculates the rest incrementally
+        for (int pass = 0; pass < 2; pass++) {
+            for (Consumer<Setup> change : changes) {
+                Setup setup = new Setup();
+                change.accept(setup);
+                CalculatorInputs inputs = setup.capture();
+                HerbCalculatorResult result = calculator.calculate(inputs);
+                assertSame(result, calculator.calculate(setup.capture()));
+                assertEquals(describe(new HerbFarmCalculator().calculate(inputs)), describe(result));
+            }
+        }
+    }
+
+    /**
+     * One change to every input that the calculator's results depend on
+     */
+    private static Map<String, Consumer<Setup>> resultChanges() {
+        Map<String, Consumer<Setup>> changes = new LinkedHashMap<>();
+        changes.put("patches", setup -> setup.patches.add(HerbPatch.HOSIDIUS));
+        changes.put("compost", setup -> setup.compost = Compost.SUPERCOMPOST);
+        changes.put("anima plant", setup -> setup.animaPlant = AnimaPlant.IASOR);
+        changes.put("farming cape", setup -> setup.useFarmingCape = true);
+        changes.put("magic secateurs", setup -> setup.useMagicSecateurs = false);
+        changes.put("bottomless bucket", setup -> setup.useBottomlessBucket = true);
+        changes.put("resurrect crops", setup -> setup.useResurrectCrops = false);
+        changes.put("criteria", setup -> setup.criteria = SortingCriteria.XP);
+        changes.put("descending", setup -> setup.descending = false);
+        changes.put("logged in", setup -> setup.loggedIn = false);
+        changes.put("farming level", setup -> setup.farmingLevel++);
+        changes.put("magic level", setup -> setup.magicLevel++);
+        for (int varbit : CalculatorInputs.VARBITS) {
+            changes.put("varbit " + varbit, setup -> setup.varbits.put(varbit, 1));
+        }
+        for (int varp : CalculatorInputs.VARPS) {
+            changes.put("varp " + varp, setup -> setup.varps.put(varp, 1));
+        }
+        for (int itemId : PriceSnapshot.getItemIds()) {
+            changes.put("price of " + itemId, setup -> setup.changedItemId = itemId);
+        }
+        return changes;
+    }
+
+    /**
+     * One change to every input that only matters outside the calculator
+     */
+    private static Map<String, Consumer<Setup>> otherChanges() {
+        Map<String, Consumer<Setup>> changes = new LinkedHashMap<>();
+        // Only read by the level projection
+        changes.put("farming XP", setup -> setup.farmingXp += 100);
+        changes.put("show best loadouts", setup -> setup.showBestLoadouts = true);
+        changes.put("optimize patches", setup -> setup.optimizePatches = true);
+        changes.put("optimizer objective", setup -> setup.optimizerObjective = OptimizerObjective.XP);
+        changes.put("GP per XP", setup -> setup.gpPerXp = 10);
+        changes.put("seed budget", setup -> setup.seedBudget = 1000);
+        changes.put("target level", setup -> setup.targetLevel = 99);
+        changes.put("simulate", setup -> setup.simulate = true);
+        changes.put("simulation precision", setup -> setup.simulationPrecision = 0.1);
+        changes.put("price smoothing", setup -> setup.priceSmoothingHours = 24);
+        changes.put("export scope", setup -> setup.exportScope = ExportScope.ALL_LEVELS);
+        changes.put("debug metrics", setup -> setup.showDebugMetrics = true);
+        return changes;
+    }
+
+    private static InputFingerprint fingerprint(Setup setup) {
+        return setup.capture().fingerprint();
+    }
+
+    /**
+     * Results don't implement equals, so compare everything they show
+     */
+    private static List<String> describe(HerbCalculatorResult result) {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("level %d, patches %s", result.getFarmingLevel(), result.getPatches().size()));
+        for (HerbResult herb : result.getHerbs()) {
+            lines.add(String.format("%s: %s %s %s %s, median %d", herb.getHerb(), herb.getSurvivalChance(),
+                    herb.getExpectedYield(), herb.getExpectedXp(), herb.getProfit(),
+                    herb.getRunDistribution().getHerbsPercentile(0.5)));
+            for (HerbPatchResult patch : herb.getPatches()) {
+                lines.add(String.format("  %s: %s %s %s %s %s %s", patch.getPatch(), patch.getSurvivalChance(),
+                        patch.getExpectedYield(), patch.getExpectedXp(), patch.getCost(), patch.getRevenue(),
+                        patch.getProbabilityOfLoss()));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * A player and config in one, with every input set to something other
+     * than its default, so a change to any of them is a real change
+     */
+    private static class Setup implements PlayerState, HerbFarmCalculatorConfig {
+        private boolean loggedIn = true;
+        private int farmingLevel = 70;
+        private int farmingXp = 750_000;
+        private int magicLevel = 80;
+        private final Map<Integer, Integer> varbits = new LinkedHashMap<>();
+        private final Map<Integer, Integer> varps = new LinkedHashMap<>();
+        /**
+         * Item whose price is bumped by 1, or -1 for none
+         */
+        private int changedItemId = -1;
+
+        private final Set<HerbPatch> patches = EnumSet.of(HerbPatch.CATHERBY, HerbPatch.FALADOR,
+                HerbPatch.TROLL_STRONGHOLD);
+        private Compost compost = Compost.ULTRACOMPOST;
+        private AnimaPlant animaPlant = AnimaPlant.ATTAS;
+        private boolean useFarmingCape = false;
+        private boolean useMagicSecateurs = true;
+        private boolean useBottomlessBucket = false;
+        private boolean useResurrectCrops = true;
+        private SortingCriteria criteria = SortingCriteria.Profit;
+        private boolean descending = true;
+        private boolean showBestLoadouts = false;
+        private boolean optimizePatches = false;
+        private OptimizerObjective optimizerObjective = OptimizerObjective.PROFIT;
+        private int gpPerXp = 0;
+        private int seedBudget = 0;
+        private int priceSmoothingHours = 0;
+        private boolean simulate = false;
+        private double simulationPrecision = 0.5;
+        private int targetLevel = 0;
+        private ExportScope exportScope = ExportScope.CURRENT;
+        private boolean showDebugMetrics = false;
+
+        CalculatorInputs capture() {
+            return CalculatorInputs.capture(this, this,
+                    itemId -> 100 + (itemId * 37) % 3_000 + (itemId == this.changedItemId ? 1 : 0));
+        }
+
+        @Override
+        public boolean isLoggedIn() {
+            return this.loggedIn;
+        }
+
+        @Override
+        public int getFarmingLevel() {
+            return this.farmingLevel;
+        }
+
+        @Override
+        public int getFarmingXp() {
+            return this.farmingXp;
+        }
+
+        @Override
+        public int getMagicLevel() {
+            return this.magicLevel;
+        }
+
+        @Override
+        public int getVarbitValue(int varbit) {
+            return this.varbits.getOrDefault(varbit, 0);
+        }
+
+        @Override
+        public int getVarpValue(int varp) {
+            return this.varps.getOrDefault(varp, 0);
+        }
+
+        @Override
+        public Set<HerbPatch> patches() {
+            return this.patches;
+        }
+
+        @Override
+        public void patches(Set<HerbPatch> patches) {
+        }
+
+        @Override
+        public boolean useFarmingCape() {
+            return this.useFarmingCape;
+        }
+
+        @Override
+        public boolean useMagicSecateurs() {
+            return this.useMagicSecateurs;
+        }
+
+        @Override
+        public boolean useBottomlessBucket() {
+            return this.useBottomlessBucket;
+        }
+
+        @Override
+        public boolean useResurrectCrops() {
+            return this.useResurrectCrops;
+        }
+
+        @Override
+        public Compost compost() {
+            return this.compost;
+        }
+
+        @Override
+        public AnimaPlant animaPlant() {
+            return this.animaPlant;
+        }
+
+        @Override
+        public SortingCriteria criteria() {
+            return this.criteria;
+        }
+
+        @Override
+        public boolean descending() {
+            return this.descending;
+        }
+
+        @Override
+        public boolean showBestLoadouts() {
+            return this.showBestLoadouts;
+        }
+
+        @Override
+        public boolean optimizePatches() {
+            return this.optimizePatches;
+        }
+
+        @Override
+        public OptimizerObjective optimizerObjective() {
+            return this.optimizerObjective;
+        }
+
+        @Override
+        public int gpPerXp() {
+            return this.gpPerXp;
+        }
+
+        @Override
+        public int seedBudget() {
+            return this.seedBudget;
+        }
+
+        @Override
+        public int priceSmoothingHours() {
+            return this.priceSmoothingHours;
+        }
+
+        @Override
+        public boolean simulate() {
+            return this.simulate;
+        }
+
+        @Override
+        public double simulationPrecision() {
+            return this.simulationPrecision;
+        }
+
+        @Override
+        public int targetLevel() {
+            return this.targetLevel;
+        }
+
+        @Override
+        public ExportScope exportScope() {
+            return this.exportScope;
+        }
+
+        @Override
+        public boolean showDebugMetrics() {
+            return this.showDebugMetrics;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package me.lucaspickering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RefreshSchedulerTest {
+
+    /**
+     * Every refresh the scheduler has started, in order
+     */
+    private final List<RefreshScheduler.Refresh> started = new ArrayList<>();
+    private final RefreshScheduler scheduler = new RefreshScheduler(this.started::add);
+
+    /**
+     * Requests are held until the panel is both shown and ready, in either
+     * order
+     */
+    @Test
+    public void testWaitsForVisibleAndReady() {
+        this.scheduler.request();
+        this.scheduler.setReady();
+        assertEquals(0, this.started.size());
+        this.scheduler.setVisible(true);
+        assertEquals(1, this.started.size());
+
+        RefreshScheduler other = new RefreshScheduler(this.started::add);
+        other.request();
+        other.setVisible(true);
+        assertEquals(1, this.started.size());
+        other.setReady();
+        assertEquals(2, this.started.size());
+    }
+
+    /**
+     * Showing the panel doesn't refresh unless something was requested
+     */
+    @Test
+    public void testNothingRequested() {
+        this.scheduler.setReady();
+        this.scheduler.setVisible(true);
+        this.scheduler.setVisible(false);
+        this.scheduler.setVisible(true);
+        assertEquals(0, this.started.size());
+    }
+
+    /**
+     * Only one refresh runs at a time, and any number of requests while it's
+     * running collapse into one more
+     */
+    @Test
+    public void testCoalescing() {
+        this.scheduler.setReady();
+        this.scheduler.setVisible(true);
+        this.scheduler.request();
+        assertEquals(1, this.started.size());
+        RefreshScheduler.Refresh first = this.started.get(0);
+        assertTrue(first.isCurrent());
+
+        this.scheduler.request();
+        this.scheduler.request();
+        this.scheduler.request();
+        assertEquals(1, this.started.size());
+        assertFalse(first.isCurrent());
+
+        first.finish();
+        assertEquals(2, this.started.size());
+        RefreshScheduler.Refresh second = this.started.get(1);
+        assertTrue(second.isCurrent());
+
+        // Finishing twice doesn't start anything extra
+        first.finish();
+        second.finish();
+        second.finish();
+        assertEquals(2, this.started.size());
+    }
+
+    /**
+     * A request made while hidden waits until the panel is shown again, even
+     * if a refresh finishes in the meantime
+     */
+    @Test
+    public void testHiddenRequest() {
+        this.scheduler.setReady();
+        this.scheduler.setVisible(true);
+        this.scheduler.request();
+        this.scheduler.setVisible(false);
+        this.scheduler.request();
+        this.started.get(0).finish();
+        assertEquals(1, this.started.size());
+
+        this.scheduler.setVisible(true);
+        assertEquals(2, this.started.size());
+        assertTrue(this.started.get(1).isCurrent());
+    }
+}
@@ -0,0 +1,251 @@
+package me.lucaspickering.history;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import me.lucaspickering.utils.Compost;
+import me.lucaspickering.utils.Herb;
+import me.lucaspickering.utils.HerbPatch;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HarvestLogTest {
+
+    /**
+     * Length prefix plus every field of the current record version
+     */
+    private static final int RECORD_BYTES = 4 + 14;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Planting ends the previous run in the patch. Harvests of a different
+     * herb are ignored, so a run with none counts as a dead patch, and runs
+     * still in progress aren't counted.
+     */
+    @Test
+    public void testSummary() {
+        HarvestSummary summary = new HarvestSummary();
+        summary.add(planted(0, HerbPatch.CATHERBY, Herb.RANARR, Compost.ULTRACOMPOST));
+        summary.add(planted(1, HerbPatch.FALADOR, Herb.RANARR, Compost.ULTRACOMPOST));
+        summary.add(resurrectCast(2, HerbPatch.CATHERBY));
+        summary.add(harvested(3, HerbPatch.CATHERBY, Herb.RANARR, 9));
+        summary.add(harvested(4, HerbPatch.FALADOR, Herb.TOADFLAX, 7));
+        summary.add(planted(5, HerbPatch.CATHERBY, Herb.RANARR, Compost.ULTRACOMPOST));
+        summary.add(planted(6, HerbPatch.FALADOR, Herb.RANARR, Compost.ULTRACOMPOST));
+        summary.add(harvested(7, HerbPatch.CATHERBY, Herb.RANARR, 5));
+
+        assertEquals(1, summary.getRuns(Herb.RANARR, HerbPatch.CATHERBY, Compost.ULTRACOMPOST));
+        assertEquals(9, summary.getHerbs(Herb.RANARR, HerbPatch.CATHERBY, Compost.ULTRACOMPOST));
+        assertEquals(1, summary.getResurrectCasts(Herb.RANARR, HerbPatch.CATHERBY, Compost.ULTRACOMPOST));
+        assertEquals(1, summary.getRuns(Herb.RANARR, HerbPatch.FALADOR, Compost.ULTRACOMPOST));
+        assertEquals(0.0, summary.getObservedYield(Herb.RANARR, HerbPatch.FALADOR, Compost.ULTRACOMPOST), 0.0);
+        assertEquals(0, summary.getRuns(Herb.TOADFLAX, HerbPatch.FALADOR, Compost.ULTRACOMPOST));
+        assertTrue(Double.isNaN(summary.getObservedYield(Herb.TOADFLAX, HerbPatch.FALADOR, Compost.ULTRACOMPOST)));
+    }
+
+    /**
+     * A record cut off by a crash is removed when the log is opened, so
+     * records appended after it stay readable
+     */
+    @Test
+    public void testTruncatedRecord() throws IOException, InterruptedException {
+        Path path = this.path();
+        List<HarvestEvent> events = Arrays.asList(
+                planted(0, HerbPatch.CATHERBY, Herb.SNAPDRAGON, Compost.SUPERCOMPOST),
+                harvested(1, HerbPatch.CATHERBY, Herb.SNAPDRAGON, 6),
+                planted(2, HerbPatch.CATHERBY, Herb.SNAPDRAGON, Compost.SUPERCOMPOST),
+                harvested(3, HerbPatch.CATHERBY, Herb.SNAPDRAGON, 11));
+        this.write(path, events);
+
+        // Cut the last record off halfway through
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(events.size() * RECORD_BYTES - RECORD_BYTES / 2);
+        }
+        HarvestEvent next = planted(4, HerbPatch.CATHERBY, Herb.SNAPDRAGON, Compost.SUPERCOMPOST);
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            HarvestLog harvestLog = HarvestLog.open(path, executor);
+            assertEquals((events.size() - 1) * RECORD_BYTES, Files.size(path));
+            // The second run was still going when the log was cut off
+            HarvestSummary summary = harvestLog.getSummary();
+            assertEquals(1, summary.getRuns(Herb.SNAPDRAGON, HerbPatch.CATHERBY, Compost.SUPERCOMPOST));
+            assertEquals(6, summary.getHerbs(Herb.SNAPDRAGON, HerbPatch.CATHERBY, Compost.SUPERCOMPOST));
+
+            harvestLog.append(next);
+            summary = harvestLog.getSummary();
+            assertEquals(2, summary.getRuns(Herb.SNAPDRAGON, HerbPatch.CATHERBY, Compost.SUPERCOMPOST));
+            assertEquals(6, summary.getHerbs(Herb.SNAPDRAGON, HerbPatch.CATHERBY, Compost.SUPERCOMPOST));
+            harvestLog.close();
+        } finally {
+            shutDown(executor);
+        }
+
+        List<HarvestEvent> expected = new ArrayList<>(events.subList(0, events.size() - 1));
+        expected.add(next);
+        assertEquals(describe(expected), describe(read(path)));
+    }
+
+    /**
+     * Summaries handed out don't change as more events are appended
+     */
+    @Test
+    public void testSummarySnapshot() throws IOException, InterruptedException {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            HarvestLog harvestLog = HarvestLog.open(this.path(), executor);
+            harvestLog.append(planted(0, HerbPatch.HOSIDIUS, Herb.TORSTOL, Compost.ULTRACOMPOST));
+            HarvestSummary before = harvestLog.getSummary();
+            assertSame(before, harvestLog.getSummary());
+
+            harvestLog.append(harvested(1, HerbPatch.HOSIDIUS, Herb.TORSTOL, 8));
+            harvestLog.append(planted(2, HerbPatch.HOSIDIUS, Herb.TORSTOL, Compost.ULTRACOMPOST));
+            HarvestSummary after = harvestLog.getSummary();
+            assertNotSame(before, after);
+            assertEquals(0, before.getRuns(Herb.TORSTOL, HerbPatch.HOSIDIUS, Compost.ULTRACOMPOST));
+            assertEquals(1, after.getRuns(Herb.TORSTOL, HerbPatch.HOSIDIUS, Compost.ULTRACOMPOST));
+            assertEquals(8, after.getHerbs(Herb.TORSTOL, HerbPatch.HOSIDIUS, Compost.ULTRACOMPOST));
+            harvestLog.close();
+        } finally {
+            shutDown(executor);
+        }
+    }
+
+    /**
+     * Fields added by a later version are skipped over
+     */
+    @Test
+    public void testLongerRecord() throws IOException {
+        Path path = this.path();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        writeRecord(output, HarvestEvent.Type.PLANTED, HerbPatch.ARDOUGNE, Herb.KWUARM, Compost.NORMAL, 0, 6);
+        writeRecord(output, HarvestEvent.Type.HARVESTED, HerbPatch.ARDOUGNE, Herb.KWUARM, null, 4, 0);
+        Files.write(path, bytes.toByteArray());
+
+        assertEquals(describe(Arrays.asList(
+                        new HarvestEvent(HarvestEvent.Type.PLANTED, 0, HerbPatch.ARDOUGNE, Herb.KWUARM, Compost.NORMAL,
+                                0),
+                        new HarvestEvent(HarvestEvent.Type.HARVESTED, 0, HerbPatch.ARDOUGNE, Herb.KWUARM, null, 4))),
+                describe(read(path)));
+    }
+
+    /**
+     * An ordinal that doesn't match any enum value is reported as corruption
+     * rather than crashing
+     */
+    @Test
+    public void testCorruptOrdinal() throws IOException, InterruptedException {
+        Path path = this.path();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        writeRecord(output, HarvestEvent.Type.PLANTED, HerbPatch.ARDOUGNE, Herb.KWUARM, Compost.NORMAL, 0, 0);
+        output.writeInt(14);
+        output.writeByte(HarvestEvent.Type.HARVESTED.ordinal());
+        output.writeLong(0);
+        output.writeByte(HerbPatch.values().length);
+        output.writeByte(Herb.KWUARM.ordinal());
+        output.writeByte(-1);
+        output.writeShort(4);
+        Files.write(path, bytes.toByteArray());
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            HarvestLog.open(path, executor).close();
+            fail("Opened a corrupt log");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("patch"));
+        } finally {
+            shutDown(executor);
+        }
+    }
+
+    private Path path() {
+        return this.folder.getRoot().toPath().resolve("harvests.log");
+    }
+
+    private void write(Path path, List<HarvestEvent> events) throws IOException, InterruptedException {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            HarvestLog harvestLog = HarvestLog.open(path, executor);
+            events.forEach(harvestLog::append);
+            harvestLog.close();
+        } finally {
+            shutDown(executor);
+        }
+    }
+
+    private static List<HarvestEvent> read(Path path) throws IOException {
+        List<HarvestEvent> events = new ArrayList<>();
+        HarvestLog.read(path, events::add);
+        return events;
+    }
+
+    /**
+     * Wait for everything queued on the executor, i.e. all writes and the
+     * close
+     */
+    private static void shutDown(ScheduledExecutorService executor) throws InterruptedException {
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Write a record by hand, with some extra bytes on the end like a later
+     * version might add
+     */
+    private static void writeRecord(DataOutputStream output, HarvestEvent.Type type, HerbPatch patch, Herb herb,
+            Compost compost, int herbs, int extraBytes) throws IOException {
+        output.writeInt(14 + extraBytes);
+        output.writeByte(type.ordinal());
+        output.writeLong(0);
+        output.writeByte(patch.ordinal());
+        output.writeByte(herb == null ? -1 : herb.ordinal());
+        output.writeByte(compost == null ? -1 : compost.ordinal());
+        output.writeShort(herbs);
+        output.write(new byte[extraBytes]);
+    }
+
+    private static HarvestEvent planted(long timestamp, HerbPatch patch, Herb herb, Compost compost) {
+        return new HarvestEvent(HarvestEvent.Type.PLANTED, timestamp, patch, herb, compost, 0);
+    }
+
+    private static HarvestEvent harvested(long timestamp, HerbPatch patch, Herb herb, int herbs) {
+        return new HarvestEvent(HarvestEvent.Type.HARVESTED, timestamp, patch, herb, null, herbs);
+    }
+
+    private static HarvestEvent resurrectCast(long timestamp, HerbPatch patch) {
+        return new HarvestEvent(HarvestEvent.Type.RESURRECT_CAST, timestamp, patch, null, null, 0);
+    }
+
+    /**
+     * Events don't implement equals, so compare them by their fields
+     */
+    private static List<String> describe(List<HarvestEvent> events) {
+        List<String> descriptions = new ArrayList<>();
+        for (HarvestEvent event : events) {
+            descriptions.add(String.format("%s %d %s %s %s %d", event.getType(), event.getTimestamp(),
+                    event.getPatch(), event.getHerb(), event.getCompost(), event.getHerbs()));
+        }
+        return descriptions;
+    }
+}
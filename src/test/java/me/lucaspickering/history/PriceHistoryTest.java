@@ -0,0 +1,108 @@
+package me.lucaspickering.history;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PriceHistoryTest {
+
+    private static final int[] ITEM_IDS = {30, 10, 20};
+    private static final long START = 1_600_000_000_000L;
+    private static final long STEP = PriceHistory.MIN_INTERVAL_MILLIS;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Observations closer together than the minimum interval are dropped
+     */
+    @Test
+    public void testMinInterval() throws IOException {
+        try (PriceHistory history = PriceHistory.open(this.path(), ITEM_IDS, 8)) {
+            assertEquals(3, history.record(itemId -> 100, START));
+            assertEquals(0, history.record(itemId -> 200, START + STEP - 1));
+            assertEquals(3, history.record(itemId -> 300, START + STEP));
+            assertArrayEquals(new long[] {100, 300}, prices(history, 10, START, START + STEP));
+        }
+    }
+
+    /**
+     * Items without a price yet aren't recorded, so they can't drag down the
+     * average, and the smoothed price falls back until there's a real one
+     */
+    @Test
+    public void testSkipsMissingPrices() throws IOException {
+        try (PriceHistory history = PriceHistory.open(this.path(), ITEM_IDS, 8)) {
+            assertEquals(2, history.record(itemId -> itemId == 20 ? 0 : 100, START));
+            assertEquals(3, history.record(itemId -> 500, START + STEP));
+            assertEquals(1, history.getStats(20, STEP, START + STEP).getCount());
+            assertEquals(500, history.smoothed(STEP, START + STEP, itemId -> -1).getItemPrice(20));
+            assertEquals(300, history.smoothed(STEP, START + STEP, itemId -> -1).getItemPrice(10));
+            assertEquals(-1, history.smoothed(STEP, START + STEP, itemId -> -1).getItemPrice(99));
+        }
+    }
+
+    /**
+     * Once the ring buffer is full, the oldest observations are overwritten,
+     * and everything is still visited oldest first
+     */
+    @Test
+    public void testRingWraparound() throws IOException {
+        try (PriceHistory history = PriceHistory.open(this.path(), ITEM_IDS, 4)) {
+            for (int i = 1; i <= 6; i++) {
+                final int price = i;
+                history.record(itemId -> price, START + i * STEP);
+            }
+            assertArrayEquals(new long[] {3, 4, 5, 6}, prices(history, 30, 0, Long.MAX_VALUE));
+            // Windows only see the newest observations that fit
+            assertArrayEquals(new long[] {5, 6}, prices(history, 30, START + 5 * STEP, Long.MAX_VALUE));
+            assertArrayEquals(new long[] {4, 5}, prices(history, 30, START + 4 * STEP, START + 5 * STEP));
+
+            PriceStats stats = history.getStats(30, 2 * STEP, START + 6 * STEP);
+            assertEquals(3, stats.getCount());
+            assertEquals(5.0, stats.getAverage(), 0.0);
+            assertEquals(4, stats.getMin());
+            assertEquals(6, stats.getMax());
+        }
+    }
+
+    /**
+     * History survives a reopen, but is wiped if the tracked items or slot
+     * count change
+     */
+    @Test
+    public void testReopen() throws IOException {
+        Path path = this.path();
+        try (PriceHistory history = PriceHistory.open(path, ITEM_IDS, 4)) {
+            history.record(itemId -> itemId, START);
+        }
+        try (PriceHistory history = PriceHistory.open(path, ITEM_IDS, 4)) {
+            assertArrayEquals(new long[] {20}, prices(history, 20, 0, Long.MAX_VALUE));
+        }
+        try (PriceHistory history = PriceHistory.open(path, ITEM_IDS, 5)) {
+            assertArrayEquals(new long[0], prices(history, 20, 0, Long.MAX_VALUE));
+            history.record(itemId -> itemId, START);
+        }
+        try (PriceHistory history = PriceHistory.open(path, new int[] {10, 20, 40}, 5)) {
+            assertArrayEquals(new long[0], prices(history, 20, 0, Long.MAX_VALUE));
+        }
+    }
+
+    private Path path() {
+        return this.folder.getRoot().toPath().resolve("prices.dat");
+    }
+
+    private static long[] prices(PriceHistory history, int itemId, long from, long to) {
+        List<Long> prices = new ArrayList<>();
+        history.forEach(itemId, from, to, (timestamp, price) -> prices.add((long) price));
+        return prices.stream().mapToLong(Long::longValue).toArray();
+    }
+}
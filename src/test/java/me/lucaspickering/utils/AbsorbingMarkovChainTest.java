@@ -0,0 +1,53 @@
+package me.lucaspickering.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class AbsorbingMarkovChainTest {
+
+    private static final double EPSILON = 1e-12;
+
+    /**
+     * Gambler's ruin: start with some money, bet 1 at a time, and stop at 0 or
+     * the target. Both the chance of reaching the target and the expected
+     * number of bets have well-known closed forms.
+     */
+    @Test
+    public void testGamblersRuin() {
+        int target = 10;
+        double p = 0.45;
+        double q = 1.0 - p;
+        // Transient state i - 1 holds i money. Absorbing state 0 is ruin, 1
+        // is reaching the target.
+        AbsorbingMarkovChain chain = new AbsorbingMarkovChain(target - 1, 2);
+        for (int money = 1; money < target; money++) {
+            if (money + 1 == target) {
+                chain.addAbsorption(money - 1, 1, p);
+            } else {
+                chain.addTransition(money - 1, money, p);
+            }
+            if (money - 1 == 0) {
+                chain.addAbsorption(money - 1, 0, q);
+            } else {
+                chain.addTransition(money - 1, money - 2, q);
+            }
+        }
+
+        for (int start = 1; start < target; start++) {
+            AbsorbingMarkovChain.Solution solution = chain.solve(start - 1);
+            double ratio = q / p;
+            double winChance = (1.0 - Math.pow(ratio, start)) / (1.0 - Math.pow(ratio, target));
+            assertEquals("Win chance from " + start, winChance, solution.getAbsorptionChance(1), EPSILON);
+            assertEquals("Ruin chance from " + start, 1.0 - winChance, solution.getAbsorptionChance(0), EPSILON);
+
+            // Every step is a visit to a transient state
+            double steps = 0.0;
+            for (int state = 0; state < target - 1; state++) {
+                steps += solution.getExpectedVisits(state);
+            }
+            double expectedSteps = start / (q - p) - target / (q - p) * winChance;
+            assertEquals("Expected bets from " + start, expectedSteps, steps, 1e-9);
+        }
+    }
+}
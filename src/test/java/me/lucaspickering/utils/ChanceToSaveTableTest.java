@@ -0,0 +1,76 @@
+package me.lucaspickering.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ChanceToSaveTableTest {
+
+    private static final double[] DIARY_BONUSES = {0.0, 0.05, 0.10, 0.15};
+
+    /**
+     * Every table entry should match the chance to save formula evaluated
+     * directly
+     */
+    @Test
+    public void testMatchesFormula() {
+        for (Herb herb : Herb.values()) {
+            for (int level = ChanceToSaveTable.MIN_LEVEL; level <= ChanceToSaveTable.MAX_LEVEL; level++) {
+                for (int items = 0; items < 4; items++) {
+                    boolean magicSecateurs = (items & 2) != 0;
+                    boolean farmingCape = (items & 1) != 0;
+                    for (double diaryBonus : DIARY_BONUSES) {
+                        for (AnimaPlant animaPlant : AnimaPlant.values()) {
+                            String params = String.format("%s at level %d, secateurs=%b, cape=%b, diary=%.2f, %s",
+                                    herb, level, magicSecateurs, farmingCape, diaryBonus, animaPlant);
+                            double expected = chanceToSave(herb, level,
+                                    ChanceToSaveTable.getItemBonus(magicSecateurs, farmingCape), diaryBonus,
+                                    animaPlant.getChanceToSaveBonus());
+                            assertEquals(params, expected, ChanceToSaveTable.getChanceToSave(herb, level,
+                                    magicSecateurs, farmingCape, diaryBonus, animaPlant), 0.0);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Diary bonuses that come out of arithmetic rather than a literal should
+     * still find their entry
+     */
+    @Test
+    public void testComputedDiaryBonus() {
+        double computed = 0.05 + 0.05 + 0.05;
+        assertEquals(ChanceToSaveTable.getNumerator(Herb.RANARR, 70, true, false, 0.15, AnimaPlant.NONE),
+                ChanceToSaveTable.getNumerator(Herb.RANARR, 70, true, false, computed, AnimaPlant.NONE));
+    }
+
+    @Test
+    public void testExpectedHarvests() {
+        for (int lives = 0; lives <= 6; lives++) {
+            for (int numerator = 0; numerator < 256; numerator++) {
+                assertEquals(lives / (1.0 - numerator / 256.0),
+                        ChanceToSaveTable.getExpectedHarvests(lives, numerator), 0.0);
+            }
+        }
+    }
+
+    /**
+     * The chance to save formula, as the calculator evaluated it before the
+     * table existed
+     */
+    private static double chanceToSave(Herb herb, int farmingLevel, double itemBonus, double diaryBonus,
+            double attasBonus) {
+        double chance1 = herb.getMinChanceToSave();
+        double chance99 = 80.0;
+        return Math.floor(
+                Math.floor(
+                        Math.floor((chance1 * (99.0 - farmingLevel) / 98.0) + (chance99 * (farmingLevel - 1.0) / 98.0))
+                                * (1.0 + itemBonus)
+                                * (1.0 + diaryBonus)
+                                * (1.0 + attasBonus)
+                                + 1.0))
+                / 256.0;
+    }
+}
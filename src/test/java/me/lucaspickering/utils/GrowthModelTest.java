@@ -0,0 +1,38 @@
+package me.lucaspickering.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class GrowthModelTest {
+
+    private static final double EPSILON = 1e-12;
+    private static final double[] DISEASE_CHANCES = {0.0, 0.01, 0.05, 0.1, 0.2, 0.25, 0.5, 0.9, 1.0};
+    private static final double[] RESURRECTION_CHANCES = {0.0, 0.25, 0.5, 0.78, 0.9, 1.0};
+
+    /**
+     * The herb model should give exactly the same answers as the hand-derived
+     * formula it replaced: survival is s^3 without Resurrect Crops and
+     * s^3 + 3 s^3 d r with it (s = 1 - d), and Resurrect Crops has to be cast
+     * whenever the patch doesn't survive on its own.
+     */
+    @Test
+    public void testHerbMatchesClosedForm() {
+        for (double d : DISEASE_CHANCES) {
+            double natural = Math.pow(1.0 - d, 3.0);
+
+            SurvivalChance withoutResurrect = GrowthModel.HERB.getSurvivalChance(d, false, 0.0);
+            assertEquals("Survival, d=" + d, natural, withoutResurrect.getSurvivalChance(), EPSILON);
+            assertEquals("Casts, d=" + d, 0.0, withoutResurrect.getResurrectionCastChance(), EPSILON);
+
+            for (double r : RESURRECTION_CHANCES) {
+                String params = String.format("d=%s r=%s", d, r);
+                SurvivalChance withResurrect = GrowthModel.HERB.getSurvivalChance(d, true, r);
+                assertEquals("Survival, " + params, natural + 3.0 * natural * d * r,
+                        withResurrect.getSurvivalChance(), EPSILON);
+                assertEquals("Casts, " + params, 1.0 - natural, withResurrect.getResurrectionCastChance(),
+                        EPSILON);
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package me.lucaspickering.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RunDistributionTest {
+
+    private static final Herb HERB = Herb.RANARR;
+    private static final double COMPOST_XP = 26.0;
+    private static final double HERB_PRICE = 100.0;
+    /**
+     * Quantiles to check. Every probability below is a multiple of 1/1000,
+     * so these are kept halfway between possible cumulative probabilities,
+     * where rounding can't tip them either way.
+     */
+    private static final double[] QUANTILES = {0.0305, 0.1105, 0.2905, 0.5005, 0.7105, 0.8905, 0.9705};
+    private static final double[] COSTS = {0.0, 250.0, 600.0, 950.0, 1500.0};
+    /**
+     * Must match the bin count in {@link RunDistribution}
+     */
+    private static final int XP_BINS = 1024;
+
+    /**
+     * Two identical patches (sharing a distribution, so they're grouped) and
+     * one with its own yield and XP bonus, checked against every combination
+     * of outcomes
+     */
+    @Test
+    public void testMatchesEnumeration() {
+        YieldDistribution shared = YieldDistribution.fromCounts(new long[] {1, 0, 0, 5, 3, 1}, 10);
+        YieldDistribution other = YieldDistribution.fromCounts(new long[] {3, 0, 0, 0, 4, 2, 1}, 10);
+        List<YieldDistribution> yields = Arrays.asList(shared, other, shared);
+        double[] xpBonuses = {0.0, 0.1, 0.0};
+        List<Outcome> outcomes = enumerate(yields, xpBonuses);
+
+        for (double cost : COSTS) {
+            RunDistribution run = RunDistribution.forPatches(HERB, COMPOST_XP, yields, xpBonuses, HERB_PRICE, cost);
+            String params = String.format("cost %.0f", cost);
+
+            double loss = 0.0;
+            for (Outcome outcome : outcomes) {
+                if (outcome.herbs * HERB_PRICE < cost) {
+                    loss += outcome.probability;
+                }
+            }
+            assertEquals(params, loss, run.getProbabilityOfLoss(), 1e-12);
+
+            for (double quantile : QUANTILES) {
+                String quantileParams = String.format("%s, quantile %.4f", params, quantile);
+                int herbs = (int) percentile(outcomes, quantile, false);
+                assertEquals(quantileParams, herbs, run.getHerbsPercentile(quantile));
+                assertEquals(quantileParams, herbs * HERB_PRICE - cost, run.getProfitPercentile(quantile), 1e-9);
+            }
+        }
+
+        // Each patch's XP is rounded to the nearest bin, so a percentile can
+        // be off by up to half a bin per patch
+        double maxXp = 0.0;
+        for (int i = 0; i < yields.size(); i++) {
+            maxXp += patchXp(xpBonuses[i], yields.get(i).getMaxHerbs());
+        }
+        double tolerance = yields.size() * 0.5 * maxXp / (XP_BINS - 1) + 1e-9;
+        RunDistribution run = RunDistribution.forPatches(HERB, COMPOST_XP, yields, xpBonuses, HERB_PRICE, 0.0);
+        for (double quantile : QUANTILES) {
+            assertEquals(String.format("XP quantile %.4f", quantile), percentile(outcomes, quantile, true),
+                    run.getXpPercentile(quantile), tolerance);
+        }
+    }
+
+    /**
+     * Grouping identical patches is only an optimization, so separate but
+     * equal distributions give the same answers as a shared one
+     */
+    @Test
+    public void testGrouping() {
+        long[] counts = {2, 0, 0, 3, 4, 1};
+        YieldDistribution shared = YieldDistribution.fromCounts(counts, 10);
+        double[] xpBonuses = {0.05, 0.05};
+        RunDistribution grouped = RunDistribution.forPatches(HERB, COMPOST_XP, Arrays.asList(shared, shared),
+                xpBonuses, HERB_PRICE, 500.0);
+        RunDistribution separate = RunDistribution.forPatches(HERB, COMPOST_XP,
+                Arrays.asList(YieldDistribution.fromCounts(counts, 10), YieldDistribution.fromCounts(counts, 10)),
+                xpBonuses, HERB_PRICE, 500.0);
+        assertEquals(separate.getProbabilityOfLoss(), grouped.getProbabilityOfLoss(), 1e-15);
+        for (double quantile : QUANTILES) {
+            assertEquals(separate.getHerbsPercentile(quantile), grouped.getHerbsPercentile(quantile));
+            assertEquals(separate.getXpPercentile(quantile), grouped.getXpPercentile(quantile), 1e-9);
+        }
+    }
+
+    /**
+     * Every combination of per-patch yields, with its probability and exact
+     * totals
+     */
+    private static List<Outcome> enumerate(List<YieldDistribution> yields, double[] xpBonuses) {
+        List<Outcome> outcomes = new ArrayList<>();
+        outcomes.add(new Outcome(1.0, 0, 0.0));
+        for (int i = 0; i < yields.size(); i++) {
+            YieldDistribution yield = yields.get(i);
+            List<Outcome> next = new ArrayList<>();
+            for (Outcome outcome : outcomes) {
+                for (int n = 0; n <= yield.getMaxHerbs(); n++) {
+                    if (yield.getProbability(n) > 0.0) {
+                        next.add(new Outcome(outcome.probability * yield.getProbability(n), outcome.herbs + n,
+                                outcome.xp + patchXp(xpBonuses[i], n)));
+                    }
+                }
+            }
+            outcomes = next;
+        }
+        return outcomes;
+    }
+
+    /**
+     * Smallest total herbs (or XP) whose cumulative probability reaches the
+     * quantile
+     */
+    private static double percentile(List<Outcome> outcomes, double quantile, boolean xp) {
+        List<Outcome> sorted = new ArrayList<>(outcomes);
+        sorted.sort((a, b) -> xp ? Double.compare(a.xp, b.xp) : Integer.compare(a.herbs, b.herbs));
+        double total = 0.0;
+        for (Outcome outcome : sorted) {
+            total += outcome.probability;
+            if (total >= quantile) {
+                return xp ? outcome.xp : outcome.herbs;
+            }
+        }
+        Outcome last = sorted.get(sorted.size() - 1);
+        return xp ? last.xp : last.herbs;
+    }
+
+    private static double patchXp(double xpBonus, int herbs) {
+        double xp = COMPOST_XP;
+        if (herbs > 0) {
+            xp += HERB.getPlantXp() + HERB.getHarvestXp() * herbs;
+        }
+        return xp * (1.0 + xpBonus);
+    }
+
+    private static class Outcome {
+        private final double probability;
+        private final int herbs;
+        private final double xp;
+
+        Outcome(double probability, int herbs, double xp) {
+            this.probability = probability;
+            this.herbs = herbs;
+            this.xp = xp;
+        }
+    }
+}
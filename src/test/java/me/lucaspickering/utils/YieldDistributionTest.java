@@ -0,0 +1,98 @@
+package me.lucaspickering.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class YieldDistributionTest {
+
+    private static final double[] SURVIVAL_CHANCES = {1.0, 0.9, 0.5, 0.0};
+    /**
+     * The largest chance to save numerator the table can produce
+     */
+    private static final int MAX_NUMERATOR = Byte.MAX_VALUE;
+    private static final double[] QUANTILES = {0.0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 1.0};
+
+    /**
+     * Across every compost, chance to save and a range of survival chances,
+     * the distribution should be a real distribution with the same mean as
+     * the calculator's closed form, and the variance of a negative binomial
+     * mixed with dead patches
+     */
+    @Test
+    public void testMatchesClosedForm() {
+        for (Compost compost : Compost.values()) {
+            int lives = compost.getHarvestLives();
+            for (int numerator = 0; numerator <= MAX_NUMERATOR; numerator++) {
+                for (double survivalChance : SURVIVAL_CHANCES) {
+                    String params = String.format("%d lives, %d/256 to save, %.2f survival", lives, numerator,
+                            survivalChance);
+                    YieldDistribution distribution = YieldDistribution.forPatch(model(lives, numerator),
+                            survivalChance);
+
+                    double total = 0.0;
+                    for (int n = 0; n <= distribution.getMaxHerbs(); n++) {
+                        total += distribution.getProbability(n);
+                    }
+                    assertEquals(params, 1.0, total, 1e-9);
+
+                    double harvests = ChanceToSaveTable.getExpectedHarvests(lives, numerator);
+                    double mean = survivalChance * harvests;
+                    assertEquals(params, mean, distribution.getMean(), 1e-9 * Math.max(mean, 1.0));
+
+                    // Trials until `lives` failures has variance k(1-p)/p^2,
+                    // where p is the chance of failure
+                    double loseChance = 1.0 - numerator / 256.0;
+                    double harvestVariance = lives * (1.0 - loseChance) / (loseChance * loseChance);
+                    double variance = survivalChance * (harvestVariance + harvests * harvests) - mean * mean;
+                    assertEquals(params, variance, distribution.getVariance(), 1e-6 * Math.max(variance, 1.0));
+                }
+            }
+        }
+    }
+
+    /**
+     * Each percentile is the smallest yield whose cumulative probability
+     * reaches the quantile
+     */
+    @Test
+    public void testPercentiles() {
+        for (Compost compost : Compost.values()) {
+            for (int numerator = 0; numerator <= MAX_NUMERATOR; numerator += 7) {
+                YieldDistribution distribution = YieldDistribution.forPatch(
+                        model(compost.getHarvestLives(), numerator), 0.8);
+                for (double quantile : QUANTILES) {
+                    String params = String.format("%s, %d/256 to save, quantile %.2f", compost, numerator, quantile);
+                    int percentile = distribution.getPercentile(quantile);
+                    // Allow for rounding in the running total
+                    assertTrue(params, distribution.getCumulativeProbability(percentile) >= quantile - 1e-9);
+                    assertTrue(params, percentile == 0
+                            || distribution.getCumulativeProbability(percentile - 1) < quantile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Without any chance to save, a living patch always yields exactly one
+     * herb per life
+     */
+    @Test
+    public void testNoChanceToSave() {
+        YieldDistribution distribution = YieldDistribution.forPatch(model(4, 0), 0.75);
+        assertEquals(4, distribution.getMaxHerbs());
+        assertEquals(0.25, distribution.getProbability(0), 0.0);
+        assertEquals(0.75, distribution.getProbability(4), 0.0);
+        assertEquals(0, distribution.getPercentile(0.25));
+        assertEquals(4, distribution.getPercentile(0.26));
+        // 3 herbs at 100gp each don't cover a 350gp patch, 4 do
+        assertEquals(0.25, distribution.getProbabilityOfLoss(100.0, 350.0), 0.0);
+        assertEquals(1.0, distribution.getProbabilityOfLoss(100.0, 450.0), 0.0);
+    }
+
+    private static PatchModel model(int harvestLives, int chanceToSaveNumerator) {
+        return new PatchModel(Herb.RANARR, HerbPatch.CATHERBY, harvestLives, chanceToSaveNumerator, 0.0, false,
+                0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+    }
+}